@@ -0,0 +1,32 @@
+package ydgrun.info.qnotes3.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+/**
+ * Gives notes written before {@code changedAt} was introduced one, so that a sync from scratch
+ * with {@code GET /api/notes/changes} includes them. Every write sets it since, so once the
+ * backfill has run it finds nothing to update.
+ */
+@Component
+public class ChangedAtBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(ChangedAtBackfill.class);
+
+    private final NoteRepository noteRepository;
+
+    public ChangedAtBackfill(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void backfill() {
+        long updated = noteRepository.backfillChangedAt();
+        if (updated > 0) {
+            logger.info("Set changedAt on {} notes written before it was introduced", updated);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import ydgrun.info.qnotes3.domain.Note;
 import ydgrun.info.qnotes3.domain.User;
 import ydgrun.info.qnotes3.repository.NoteRepository;
 import ydgrun.info.qnotes3.repository.UserRepository;
+import ydgrun.info.qnotes3.repository.UserStatsRepository;
 
 import java.time.OffsetDateTime;
 import java.util.Arrays;
@@ -23,12 +24,14 @@ public class DataInitializer {
     private final Random random = new Random();
 
     @Bean
-    CommandLineRunner initDatabase(UserRepository userRepository, NoteRepository noteRepository, PasswordEncoder passwordEncoder) {
+    CommandLineRunner initDatabase(UserRepository userRepository, NoteRepository noteRepository,
+                                   UserStatsRepository userStatsRepository, PasswordEncoder passwordEncoder) {
         return args -> {
             logger.info("Starting data initialization...");
 
             // Clear existing data
             noteRepository.deleteAll();
+            userStatsRepository.deleteAll();
             userRepository.deleteAll();
             logger.info("Cleared existing data");
 
@@ -72,6 +75,7 @@ public class DataInitializer {
         note.setPriority(getRandomPriority());
         note.setCreatedAt(createdAt);
         note.setUpdatedAt(createdAt);
+        note.setChangedAt(createdAt);
         return note;
     }
 
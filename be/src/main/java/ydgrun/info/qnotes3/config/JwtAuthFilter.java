@@ -1,12 +1,18 @@
 package ydgrun.info.qnotes3.config;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -15,8 +21,37 @@ import ydgrun.info.qnotes3.service.JwtService;
 import java.io.IOException;
 import java.util.Collections;
 
+/**
+ * Authenticates requests carrying a valid Bearer token. A token that fails verification leaves
+ * the request unauthenticated, so routes open to everyone still answer it; {@link #ENTRY_POINT}
+ * turns it into a 401 on the routes that need authentication.
+ */
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class JwtAuthFilter extends OncePerRequestFilter {
+    static final String INVALID_TOKEN = "Bearer error=\"invalid_token\"";
+    // Request attribute set when the request carried a token that failed verification
+    static final String INVALID_TOKEN_ATTRIBUTE = JwtAuthFilter.class.getName() + ".INVALID_TOKEN";
+
+    /**
+     * Answers requests that need authentication but have none: 401 when their token failed
+     * verification, which tells the client to refresh its access token, and 403 as before otherwise.
+     */
+    static final AuthenticationEntryPoint ENTRY_POINT = new AuthenticationEntryPoint() {
+        private final AuthenticationEntryPoint forbidden = new Http403ForbiddenEntryPoint();
+
+        @Override
+        public void commence(HttpServletRequest request, HttpServletResponse response,
+                             AuthenticationException authException) throws IOException, ServletException {
+            if (request.getAttribute(INVALID_TOKEN_ATTRIBUTE) == null) {
+                forbidden.commence(request, response, authException);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, INVALID_TOKEN);
+        }
+    };
+
     private final JwtService jwtService;
 
     public JwtAuthFilter(JwtService jwtService) {
@@ -37,20 +72,33 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String username = jwtService.extractUsername(jwt);
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtService.isTokenValid(jwt)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        username,
-                        null,
-                        Collections.emptyList()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        final String username = validUsername(jwt);
+
+        if (username == null) {
+            // Expired, tampered with or malformed
+            request.setAttribute(INVALID_TOKEN_ATTRIBUTE, Boolean.TRUE);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    username,
+                    null,
+                    Collections.emptyList()
+            );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         
         filterChain.doFilter(request, response);
     }
+
+    private String validUsername(String jwt) {
+        try {
+            return jwtService.extractValidUsername(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package ydgrun.info.qnotes3.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many documents each Mongo command returned or affected as
+ * {@code mongodb.driver.commands.documents}, tagged by command and collection like the
+ * {@code mongodb.driver.commands} latency timer Spring Boot registers for the same commands.
+ * <p>
+ * Cursor commands count the documents of the batch in the reply, so a large {@code find} shows up
+ * as one {@code find} plus a {@code getMore} per further batch. Commands without a collection, such
+ * as handshakes, are not recorded.
+ */
+class MongoCommandDocumentsListener implements CommandListener {
+    static final String METRIC = "mongodb.driver.commands.documents";
+
+    private final MeterRegistry meterRegistry;
+    // Replies do not name the collection, so it is kept from the command until the reply arrives
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+    MongoCommandDocumentsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String collection = collection(event.getCommandName(), event.getCommand());
+        if (collection != null) {
+            collections.put(event.getRequestId(), collection);
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String collection = collections.remove(event.getRequestId());
+        if (collection == null) {
+            return;
+        }
+        long documents = documents(event.getResponse());
+        if (documents < 0) {
+            return;
+        }
+        DistributionSummary.builder(METRIC)
+                .description("Documents returned or affected by a Mongo command")
+                .baseUnit("documents")
+                .tag("command", event.getCommandName())
+                .tag("collection", collection)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000.0)
+                .register(meterRegistry)
+                .record(documents);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        collections.remove(event.getRequestId());
+    }
+
+    static String collection(String commandName, BsonDocument command) {
+        BsonValue value = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    /**
+     * Documents in the reply's cursor batch, {@code n} of writes and counts, the values of
+     * {@code distinct} or the document of {@code findAndModify}; -1 for other replies.
+     */
+    static long documents(BsonDocument response) {
+        if (response.isDocument("cursor")) {
+            BsonDocument cursor = response.getDocument("cursor");
+            if (cursor.isArray("firstBatch")) {
+                return cursor.getArray("firstBatch").size();
+            }
+            if (cursor.isArray("nextBatch")) {
+                return cursor.getArray("nextBatch").size();
+            }
+        }
+        if (response.isNumber("n")) {
+            return response.getNumber("n").longValue();
+        }
+        if (response.isArray("values")) {
+            return response.getArray("values").size();
+        }
+        if (response.containsKey("value")) {
+            return response.isNull("value") ? 0 : 1;
+        }
+        return -1;
+    }
+}
@@ -1,5 +1,9 @@
 package ydgrun.info.qnotes3.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -23,6 +27,29 @@ public class MongoConfig {
         ));
     }
 
+    /**
+     * Both optional so that slices without metrics or components, such as {@code @DataMongoTest},
+     * can import this configuration.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandListenersCustomizer(
+            ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<SlowQueryProfiler> slowQueryProfiler) {
+        return settings -> {
+            meterRegistry.ifAvailable(registry -> settings.addCommandListener(new MongoCommandDocumentsListener(registry)));
+            slowQueryProfiler.ifAvailable(settings::addCommandListener);
+        };
+    }
+
+    /**
+     * With virtual threads the connection pool, not the Tomcat thread limit, caps how many requests
+     * wait on Mongo at once. Overrides a {@code maxPoolSize} given in the connection string.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoConnectionPoolCustomizer(
+            @Value("${notes.mongo.max-pool-size}") int maxPoolSize) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool.maxSize(maxPoolSize));
+    }
+
     private static class OffsetDateTimeToDateConverter implements Converter<OffsetDateTime, Date> {
         @Override
         public Date convert(OffsetDateTime source) {
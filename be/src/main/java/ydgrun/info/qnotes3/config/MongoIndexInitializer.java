@@ -0,0 +1,105 @@
+package ydgrun.info.qnotes3.config;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.RefreshToken;
+
+import java.time.Duration;
+
+/**
+ * Creates the indexes backing every query shape of {@link ydgrun.info.qnotes3.repository.NoteRepository},
+ * and those of the refresh tokens.
+ * <p>
+ * {@code deletedAt} is part of the keys rather than a partial filter so that the same
+ * indexes also serve the {@code deletedAt: {$ne: null}} queries used by the statistics.
+ */
+@Component
+public class MongoIndexInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+    // Relevance of a title match compared to a content match
+    private static final int TITLE_WEIGHT = 3;
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void createIndexes() {
+        IndexOperations noteIndexes = mongoTemplate.indexOps(Note.class);
+
+        // Note lists (optionally limited by createdAt) sorted by createdAt, keyset pages sorted by
+        // createdAt and _id, deleted-note statistics
+        noteIndexes.createIndex(new Index()
+            .on("userId", Sort.Direction.ASC)
+            .on("deletedAt", Sort.Direction.ASC)
+            .on("createdAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("userId_deletedAt_createdAt_id"));
+
+        // Priority filtered lists and keyset pages, NOW and DONE statistics
+        noteIndexes.createIndex(new Index()
+            .on("userId", Sort.Direction.ASC)
+            .on("priority", Sort.Direction.ASC)
+            .on("deletedAt", Sort.Direction.ASC)
+            .on("createdAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("userId_priority_deletedAt_createdAt_id"));
+
+        // Stale notes: range on updatedAt
+        noteIndexes.createIndex(new Index()
+            .on("userId", Sort.Direction.ASC)
+            .on("deletedAt", Sort.Direction.ASC)
+            .on("updatedAt", Sort.Direction.ASC)
+            .named("userId_deletedAt_updatedAt"));
+
+        // Changes since a checkpoint, deleted notes included: range and sort on changedAt and _id
+        noteIndexes.createIndex(new Index()
+            .on("userId", Sort.Direction.ASC)
+            .on("changedAt", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .named("userId_changedAt_id"));
+
+        // Full-text search; the userId prefix scopes every $text query to one user's notes
+        noteIndexes.createIndex(new IndexDefinition() {
+            @Override
+            public Document getIndexKeys() {
+                return new Document("userId", 1).append("title", "text").append("content", "text");
+            }
+
+            @Override
+            public Document getIndexOptions() {
+                return new Document("name", "userId_title_content_text")
+                    .append("weights", new Document("title", TITLE_WEIGHT).append("content", 1));
+            }
+        });
+
+        logger.info("Ensured indexes on collection {}", mongoTemplate.getCollectionName(Note.class));
+
+        IndexOperations refreshTokenIndexes = mongoTemplate.indexOps(RefreshToken.class);
+
+        // Revoking a family on logout or reuse
+        refreshTokenIndexes.createIndex(new Index()
+            .on("family", Sort.Direction.ASC)
+            .named("family"));
+
+        // Removes tokens as they expire
+        refreshTokenIndexes.createIndex(new Index()
+            .on("expiresAt", Sort.Direction.ASC)
+            .expire(Duration.ZERO)
+            .named("expiresAt_ttl"));
+
+        logger.info("Ensured indexes on collection {}", mongoTemplate.getCollectionName(RefreshToken.class));
+    }
+}
@@ -0,0 +1,84 @@
+package ydgrun.info.qnotes3.config;
+
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.service.JwtService;
+
+import java.util.Collections;
+
+/**
+ * {@link JwtAuthFilter} for the reactive profile. Not a component: it only runs inside the
+ * security filter chain of {@link ReactiveSecurityConfig}.
+ */
+public class ReactiveJwtAuthFilter implements WebFilter {
+    /**
+     * Same as {@link JwtAuthFilter#ENTRY_POINT}.
+     */
+    static final ServerAuthenticationEntryPoint ENTRY_POINT = new ServerAuthenticationEntryPoint() {
+        private final ServerAuthenticationEntryPoint forbidden = new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN);
+
+        @Override
+        public Mono<Void> commence(ServerWebExchange exchange, AuthenticationException authException) {
+            if (exchange.getAttribute(JwtAuthFilter.INVALID_TOKEN_ATTRIBUTE) == null) {
+                return forbidden.commence(exchange, authException);
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, JwtAuthFilter.INVALID_TOKEN);
+            return response.setComplete();
+        }
+    };
+
+    private final JwtService jwtService;
+
+    public ReactiveJwtAuthFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        final String jwt = authHeader.substring(7);
+        final String username = validUsername(jwt);
+
+        if (username == null) {
+            // Expired, tampered with or malformed
+            exchange.getAttributes().put(JwtAuthFilter.INVALID_TOKEN_ATTRIBUTE, Boolean.TRUE);
+            return chain.filter(exchange);
+        }
+
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                username,
+                null,
+                Collections.emptyList()
+        );
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken));
+    }
+
+    private String validUsername(String jwt) {
+        try {
+            return jwtService.extractValidUsername(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ydgrun.info.qnotes3.config;
+
+import com.mongodb.connection.TransportSettings;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Reactive repositories for the {@code reactive} profile. The reactive client itself comes from
+ * Boot's auto-configuration, which application.properties excludes unless that profile is active,
+ * so the servlet stack runs only the blocking driver on its default transport.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableReactiveMongoRepositories(basePackages = "ydgrun.info.qnotes3.repository")
+public class ReactiveMongoConfig {
+
+    /**
+     * Boot's reactive auto-configuration creates a Netty event loop group each time it customizes
+     * client settings but only shuts down the last one, so with the blocking and the reactive client
+     * in one context the first group's threads outlive it. Both clients use this group instead;
+     * this customizer runs after Boot's, whose groups are then never started.
+     */
+    @Bean(destroyMethod = "shutdownGracefully")
+    public NioEventLoopGroup mongoEventLoopGroup() {
+        return new NioEventLoopGroup();
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTransportCustomizer(NioEventLoopGroup mongoEventLoopGroup) {
+        return settings -> settings.transportSettings(
+            TransportSettings.nettyBuilder().eventLoopGroup(mongoEventLoopGroup).build());
+    }
+}
@@ -0,0 +1,90 @@
+package ydgrun.info.qnotes3.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import ydgrun.info.qnotes3.service.JwtService;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * {@link SecurityConfig} for the reactive profile, with the same rules and responses.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    private final JwtService jwtService;
+    private final Set<String> adminUsernames;
+
+    public ReactiveSecurityConfig(JwtService jwtService,
+                                  @Value("${notes.admin.usernames}") Set<String> adminUsernames) {
+        this.jwtService = jwtService;
+        this.adminUsernames = adminUsernames;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            // Stateless: the token is checked on every request
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            // 401 for rejected tokens and 403 for requests without one, as on the servlet stack
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(ReactiveJwtAuthFilter.ENTRY_POINT))
+            .authorizeExchange(auth -> auth
+                .pathMatchers("/api/auth/**").permitAll()
+                // Scraped and probed without a token, on the internal management.server.port only
+                .matchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                // Shows queries of all users
+                .matchers(EndpointRequest.to(SlowQueriesEndpoint.class)).access((authentication, context) ->
+                    authentication
+                        .filter(Authentication::isAuthenticated)
+                        .map(user -> new AuthorizationDecision(adminUsernames.contains(user.getName())))
+                        .defaultIfEmpty(new AuthorizationDecision(false)))
+                .pathMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                .anyExchange().authenticated()
+            )
+            .addFilterAt(new ReactiveJwtAuthFilter(jwtService), SecurityWebFiltersOrder.AUTHENTICATION);
+
+        return http.build();
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(Arrays.asList("http://localhost:4200")); // Angular default port
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setAllowCredentials(true);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
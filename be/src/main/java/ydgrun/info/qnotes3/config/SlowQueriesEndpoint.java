@@ -0,0 +1,26 @@
+package ydgrun.info.qnotes3.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/slowqueries}: the slow Mongo commands kept by {@link SlowQueryProfiler},
+ * newest first. Only the users listed in {@code notes.admin.usernames} may read it.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint {
+    private final SlowQueryProfiler profiler;
+
+    public SlowQueriesEndpoint(SlowQueryProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public List<SlowQueryProfiler.SlowQuery> slowQueries() {
+        return profiler.recent();
+    }
+}
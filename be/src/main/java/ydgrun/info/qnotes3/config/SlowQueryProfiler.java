@@ -0,0 +1,288 @@
+package ydgrun.info.qnotes3.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the most recent Mongo commands that took longer than the threshold, with the user they ran
+ * for, their shape and how many documents they returned, served by {@link SlowQueriesEndpoint}.
+ * <p>
+ * A sample of the slow reads is explained in the background with {@code executionStats}, adding the
+ * winning plan and the keys and documents it examined; a collection scan or far more keys examined
+ * than documents returned points at a missing index. Explains run one at a time and are skipped
+ * while the queue is full, so a burst of slow queries cannot add much load to Mongo.
+ * <p>
+ * Shapes keep field names, operators, sort and limit but replace every filter value with
+ * {@code "?"}, so note contents are never kept.
+ */
+@Component
+public class SlowQueryProfiler implements CommandListener, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryProfiler.class);
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct");
+    private static final Set<String> KEPT_AS_IS = Set.of("sort", "limit", "skip", "batchSize", "projection", "key");
+    // Added by the driver to every command; explain rejects them inside the explained command
+    private static final Set<String> DRIVER_FIELDS = Set.of(
+        "$db", "lsid", "$clusterTime", "txnNumber", "$readPreference", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+    /**
+     * @param docsReturned documents in the first reply, or null for replies without documents
+     * @param plan         null until the query is explained, and for queries that are not
+     */
+    public record SlowQuery(long id, Instant startedAt, String userId, String database, String collection,
+                            String command, long durationMillis, Long docsReturned, String shape, Plan plan) {
+
+        SlowQuery withPlan(Plan explained) {
+            return new SlowQuery(id, startedAt, userId, database, collection, command, durationMillis,
+                docsReturned, shape, explained);
+        }
+    }
+
+    /**
+     * @param summary stages of the winning plan from the top, with the index of each index scan
+     */
+    public record Plan(String summary, long keysExamined, long docsExamined, long docsReturned,
+                       long executionMillis) {
+    }
+
+    private record Started(Instant at, String userId, String collection, BsonDocument command) {
+    }
+
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final int capacity;
+    private final Supplier<MongoClient> mongoClient;
+    private final Executor explainExecutor;
+    private final Map<Integer, Started> running = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    // Newest first
+    private final LinkedList<SlowQuery> slowQueries = new LinkedList<>();
+
+    @Autowired
+    public SlowQueryProfiler(@Value("${notes.profiler.slow-threshold}") Duration threshold,
+                             @Value("${notes.profiler.explain-sample-rate}") double explainSampleRate,
+                             @Value("${notes.profiler.capacity}") int capacity,
+                             ObjectProvider<MongoClient> mongoClient) {
+        this(threshold, explainSampleRate, capacity, mongoClient::getObject, new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy()));
+    }
+
+    SlowQueryProfiler(Duration threshold, double explainSampleRate, int capacity,
+                      Supplier<MongoClient> mongoClient, Executor explainExecutor) {
+        this.thresholdNanos = threshold.toNanos();
+        this.explainSampleRate = explainSampleRate;
+        this.capacity = capacity;
+        this.mongoClient = mongoClient;
+        this.explainExecutor = explainExecutor;
+    }
+
+    /**
+     * Slow queries seen most recently, newest first.
+     */
+    public List<SlowQuery> recent() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String collection = MongoCommandDocumentsListener.collection(event.getCommandName(), event.getCommand());
+        if (collection == null) {
+            return;
+        }
+        // The event's document is only valid during the callback; copy it only if it may be explained
+        BsonDocument command = EXPLAINABLE.contains(event.getCommandName()) ? event.getCommand().clone() : null;
+        running.put(event.getRequestId(), new Started(Instant.now(), currentUserId(), collection, command));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = running.remove(event.getRequestId());
+        if (started == null || event.getElapsedTime(TimeUnit.NANOSECONDS) < thresholdNanos) {
+            return;
+        }
+        long documents = MongoCommandDocumentsListener.documents(event.getResponse());
+        SlowQuery slowQuery = new SlowQuery(ids.incrementAndGet(), started.at(), started.userId(),
+            event.getDatabaseName(), started.collection(), event.getCommandName(),
+            event.getElapsedTime(TimeUnit.MILLISECONDS), documents < 0 ? null : documents,
+            started.command() != null ? shape(started.command()).toJson() : null, null);
+        add(slowQuery);
+
+        if (started.command() != null && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+            explainExecutor.execute(() -> explain(slowQuery, started.command()));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        running.remove(event.getRequestId());
+    }
+
+    @Override
+    public void destroy() {
+        if (explainExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void add(SlowQuery slowQuery) {
+        synchronized (slowQueries) {
+            slowQueries.addFirst(slowQuery);
+            if (slowQueries.size() > capacity) {
+                slowQueries.removeLast();
+            }
+        }
+    }
+
+    private void explain(SlowQuery slowQuery, BsonDocument command) {
+        try {
+            // Copied rather than cloned: the clone of a command is as immutable as the command
+            BsonDocument explained = new BsonDocument();
+            command.forEach((key, value) -> {
+                if (!DRIVER_FIELDS.contains(key)) {
+                    explained.append(key, value);
+                }
+            });
+            BsonDocument result = mongoClient.get().getDatabase(slowQuery.database()).runCommand(
+                new BsonDocument("explain", explained).append("verbosity", new BsonString("executionStats")),
+                BsonDocument.class);
+            Plan plan = plan(result);
+            synchronized (slowQueries) {
+                slowQueries.replaceAll(entry -> entry.id() == slowQuery.id() ? entry.withPlan(plan) : entry);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Could not explain slow {} on {}", slowQuery.command(), slowQuery.collection(), e);
+        }
+    }
+
+    /**
+     * Reads the plan of find, count and distinct explains, and of aggregate explains whose first
+     * stage is the cursor of the underlying query.
+     */
+    static Plan plan(BsonDocument explain) {
+        BsonDocument queryPlanner = nested(explain, "queryPlanner");
+        BsonDocument executionStats = nested(explain, "executionStats");
+        BsonDocument winningPlan = queryPlanner != null ? queryPlanner.getDocument("winningPlan", null) : null;
+        if (winningPlan != null && winningPlan.isDocument("queryPlan")) {
+            // Plans run by the slot-based engine wrap the classic stage tree
+            winningPlan = winningPlan.getDocument("queryPlan");
+        }
+        List<String> stages = new ArrayList<>();
+        for (BsonDocument stage = winningPlan; stage != null; stage = stage.getDocument("inputStage", null)) {
+            String name = stage.getString("stage", new BsonString("?")).getValue();
+            stages.add(stage.containsKey("indexName") ? name + " " + stage.getString("indexName").getValue() : name);
+            if (stage.isArray("inputStages")) {
+                BsonArray inputs = stage.getArray("inputStages");
+                stages.add("(" + inputs.size() + " inputs)");
+                break;
+            }
+        }
+        return new Plan(stages.isEmpty() ? "unknown" : String.join(" <- ", stages),
+            number(executionStats, "totalKeysExamined"),
+            number(executionStats, "totalDocsExamined"),
+            number(executionStats, "nReturned"),
+            number(executionStats, "executionTimeMillis"));
+    }
+
+    private static BsonDocument nested(BsonValue value, String key) {
+        if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            if (document.isDocument(key)) {
+                return document.getDocument(key);
+            }
+            for (BsonValue child : document.values()) {
+                BsonDocument found = nested(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (value.isArray()) {
+            for (BsonValue child : value.asArray()) {
+                BsonDocument found = nested(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long number(BsonDocument document, String key) {
+        return document != null && document.isNumber(key) ? document.getNumber(key).longValue() : -1;
+    }
+
+    /**
+     * The command without driver fields and with every filter value replaced by {@code "?"}.
+     */
+    static BsonDocument shape(BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        for (Map.Entry<String, BsonValue> field : command.entrySet()) {
+            if (DRIVER_FIELDS.contains(field.getKey())) {
+                continue;
+            }
+            boolean keep = KEPT_AS_IS.contains(field.getKey()) || field.getKey().equals(command.getFirstKey());
+            shape.append(field.getKey(), keep ? field.getValue() : redact(field.getValue()));
+        }
+        return shape;
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, child) ->
+                redacted.append(key, KEPT_AS_IS.contains(key.replace("$", "")) ? child : redact(child)));
+            return redacted;
+        }
+        if (value.isArray() && value.asArray().stream().anyMatch(child -> child.isDocument() || child.isArray())) {
+            BsonArray redacted = new BsonArray();
+            value.asArray().forEach(child -> redacted.add(redact(child)));
+            return redacted;
+        }
+        return new BsonString("?");
+    }
+
+    private static String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication instanceof AnonymousAuthenticationToken
+            ? null
+            : authentication.getName();
+    }
+}
@@ -2,44 +2,85 @@ package ydgrun.info.qnotes3.controllers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
 import ydgrun.info.qnotes3.api.AuthenticationApi;
 import ydgrun.info.qnotes3.domain.User;
+import ydgrun.info.qnotes3.exception.InvalidRefreshTokenException;
+import ydgrun.info.qnotes3.exception.PasswordHashingRejectedException;
 import ydgrun.info.qnotes3.model.AuthResponse;
+import ydgrun.info.qnotes3.model.Error;
 import ydgrun.info.qnotes3.model.LoginRequest;
+import ydgrun.info.qnotes3.model.RefreshRequest;
 import ydgrun.info.qnotes3.model.RegisterRequest;
 import ydgrun.info.qnotes3.service.JwtService;
+import ydgrun.info.qnotes3.service.RefreshTokenService;
 import ydgrun.info.qnotes3.service.UserService;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthenticationController implements AuthenticationApi {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
     private final UserService userService;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthenticationController(UserService userService, JwtService jwtService) {
+    public AuthenticationController(UserService userService, JwtService jwtService,
+                                    RefreshTokenService refreshTokenService) {
         this.userService = userService;
         this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Override
     public ResponseEntity<AuthResponse> login(LoginRequest loginRequest) {
         logger.debug("Login request for user: {}", loginRequest.getUsername());
         User user = userService.authenticate(loginRequest.getUsername(), loginRequest.getPassword());
-        
-        AuthResponse response = new AuthResponse();
-        response.setToken(jwtService.generateToken(user.getUsername()));
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(tokensFor(user.getUsername(), refreshTokenService.issue(user.getUsername())));
     }
 
     @Override
     public ResponseEntity<AuthResponse> register(RegisterRequest registerRequest) {
         logger.debug("Registration request for user: {}", registerRequest.getUsername());
         User user = userService.createUser(registerRequest.getUsername(), registerRequest.getPassword());
-        
+        return ResponseEntity.status(201).body(tokensFor(user.getUsername(), refreshTokenService.issue(user.getUsername())));
+    }
+
+    @Override
+    public ResponseEntity<AuthResponse> refresh(RefreshRequest refreshRequest) {
+        RefreshTokenService.Issued issued = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        logger.debug("Refreshed tokens of user: {}", issued.username());
+        return ResponseEntity.ok(tokensFor(issued.username(), issued.token()));
+    }
+
+    @Override
+    public ResponseEntity<Void> logout(RefreshRequest refreshRequest) {
+        refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    private AuthResponse tokensFor(String username, String refreshToken) {
         AuthResponse response = new AuthResponse();
-        response.setToken(jwtService.generateToken(user.getUsername()));
-        return ResponseEntity.status(201).body(response);
+        response.setToken(jwtService.generateToken(username));
+        response.setRefreshToken(refreshToken);
+        return response;
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<Error> invalidRefreshToken(InvalidRefreshTokenException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+            .body(new Error().code("INVALID_REFRESH_TOKEN").message(e.getMessage()));
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Error> passwordHashingRejected(PasswordHashingRejectedException e) {
+        logger.debug("Password hashing rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, e.getRetryAfter().toSeconds())))
+            .body(new Error().code("PASSWORD_HASHING_BUSY").message(e.getMessage()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Strong ETags for conditional GETs, for the servlet and the reactive controllers. Responses that
+ * carry one may be kept by the browser but are revalidated on every use, and vary by
+ * {@code Authorization} because the same URL serves every user.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Every write of a note sets its {@code changedAt}.
+     */
+    static String note(Note note) {
+        OffsetDateTime changedAt = note.getChangedAt() != null ? note.getChangedAt() : note.getUpdatedAt();
+        return quoted(note.getId() + "-" + Long.toHexString(changedAt.toInstant().toEpochMilli()));
+    }
+
+    /**
+     * @param version from {@code getNotesVersion}; null for pages that have no ETag
+     */
+    static String page(String version) {
+        return version != null ? quoted(version) : null;
+    }
+
+    /**
+     * @param version from {@code getStatisticsVersion}; null while the statistics have no ETag
+     */
+    static String statistics(String version) {
+        return version != null ? quoted(version) : null;
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        ETag current = ETag.create(etag);
+        return ETag.parse(ifNoneMatch).stream()
+            .anyMatch(candidate -> candidate.isWildcard() || candidate.compare(current, false));
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .varyBy(HttpHeaders.AUTHORIZATION)
+            .build();
+    }
+
+    /**
+     * A 200 response, with the ETag when there is one.
+     */
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        if (etag == null) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .varyBy(HttpHeaders.AUTHORIZATION)
+            .body(body);
+    }
+
+    private static String quoted(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
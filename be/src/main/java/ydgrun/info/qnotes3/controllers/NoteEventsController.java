@@ -0,0 +1,139 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.model.NoteTombstone;
+import ydgrun.info.qnotes3.model.Statistics;
+import ydgrun.info.qnotes3.service.JwtService;
+import ydgrun.info.qnotes3.service.NoteEventBus;
+import ydgrun.info.qnotes3.service.NoteEventSink;
+import ydgrun.info.qnotes3.service.NoteEventSubscription;
+import ydgrun.info.qnotes3.service.StatisticsService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Streams the note changes of the current user as server-sent events:
+ * <ul>
+ *   <li>{@code note}: an API {@link ydgrun.info.qnotes3.model.Note} created or updated</li>
+ *   <li>{@code deleted}: a {@link NoteTombstone}</li>
+ *   <li>{@code statistics}: the {@link Statistics} fields that changed since the previous one,
+ *       all of them in the first</li>
+ *   <li>{@code resync}: changes were dropped; fetch them from GET /api/notes/changes</li>
+ * </ul>
+ * The stream ends after {@code notes.events.timeout}, or when the access token it was opened with
+ * expires if that is sooner, and clients reconnect with a fresh one.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api")
+public class NoteEventsController {
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventsController.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final NoteEventBus noteEventBus;
+    private final JwtService jwtService;
+    private final long timeoutMillis;
+
+    public NoteEventsController(NoteEventBus noteEventBus, JwtService jwtService,
+                                @Value("${notes.events.timeout}") Duration timeout) {
+        this.noteEventBus = noteEventBus;
+        this.jwtService = jwtService;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    private String getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+
+    @GetMapping(value = "/notes/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        String userId = getCurrentUserId();
+        logger.debug("Opening note events");
+        // Already verified by JwtAuthFilter; at least 1 ms, as 0 would mean no timeout at all
+        long tokenMillis = jwtService.remainingLifetime(authorization.substring(BEARER_PREFIX.length())).toMillis();
+        SseEmitter emitter = new SseEmitter(Math.max(1, Math.min(timeoutMillis, tokenMillis)));
+        NoteEventSubscription subscription = noteEventBus.subscribe(userId, new EmitterSink(emitter));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    private static final class EmitterSink implements NoteEventSink {
+        private final SseEmitter emitter;
+        private Statistics lastStatistics;
+
+        private EmitterSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void note(Note note) throws IOException {
+            if (note.getDeletedAt() != null) {
+                emitter.send(SseEmitter.event().name("deleted")
+                    .data(new NoteTombstone().id(note.getId()).deletedAt(note.getDeletedAt())));
+            } else {
+                emitter.send(SseEmitter.event().name("note").data(NoteMapper.toApiNote(note)));
+            }
+        }
+
+        @Override
+        public void statistics(NoteStatistics noteStatistics) throws IOException {
+            Statistics statistics = StatisticsService.toStatistics(noteStatistics);
+            Map<String, Object> changed = new LinkedHashMap<>();
+            putIfChanged(changed, "staleNotesCount", statistics.getStaleNotesCount(),
+                lastStatistics == null ? null : lastStatistics.getStaleNotesCount());
+            putIfChanged(changed, "highPriorityNotesCount", statistics.getHighPriorityNotesCount(),
+                lastStatistics == null ? null : lastStatistics.getHighPriorityNotesCount());
+            putIfChanged(changed, "averageCompletionTimeHours", statistics.getAverageCompletionTimeHours(),
+                lastStatistics == null ? null : lastStatistics.getAverageCompletionTimeHours());
+            putIfChanged(changed, "averageDeletionTimeHours", statistics.getAverageDeletionTimeHours(),
+                lastStatistics == null ? null : lastStatistics.getAverageDeletionTimeHours());
+            lastStatistics = statistics;
+            if (!changed.isEmpty()) {
+                emitter.send(SseEmitter.event().name("statistics").data(changed));
+            }
+        }
+
+        private static void putIfChanged(Map<String, Object> changed, String field, Object value, Object last) {
+            if (last == null || !Objects.equals(value, last)) {
+                changed.put(field, value);
+            }
+        }
+
+        @Override
+        public void resync() throws IOException {
+            emitter.send(SseEmitter.event().name("resync").data(Map.of()));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void complete() {
+            emitter.complete();
+        }
+    }
+}
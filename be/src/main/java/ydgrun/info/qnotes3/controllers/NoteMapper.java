@@ -0,0 +1,131 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.springframework.data.domain.Page;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+import ydgrun.info.qnotes3.domain.NoteChanges;
+import ydgrun.info.qnotes3.domain.NoteWindow;
+import ydgrun.info.qnotes3.model.Note;
+import ydgrun.info.qnotes3.model.NoteBatchRequest;
+import ydgrun.info.qnotes3.model.NoteBatchResponse;
+import ydgrun.info.qnotes3.model.NoteBatchResult;
+import ydgrun.info.qnotes3.model.NoteChangesResponse;
+import ydgrun.info.qnotes3.model.NoteSearchHighlight;
+import ydgrun.info.qnotes3.model.NoteSearchResponse;
+import ydgrun.info.qnotes3.model.NoteSearchResult;
+import ydgrun.info.qnotes3.model.NoteTombstone;
+import ydgrun.info.qnotes3.model.NotesResponse;
+import ydgrun.info.qnotes3.model.NotesScrollResponse;
+
+import java.util.List;
+
+/**
+ * Maps domain notes to their API representation, for the servlet and the reactive controllers.
+ */
+final class NoteMapper {
+
+    private NoteMapper() {
+    }
+
+    static Note toApiNote(ydgrun.info.qnotes3.domain.Note domainNote) {
+        Note apiNote = new Note();
+        apiNote.setId(domainNote.getId());
+        apiNote.setTitle(domainNote.getTitle());
+        apiNote.setContent(domainNote.getContent());
+        apiNote.setPriority(Note.PriorityEnum.fromValue(domainNote.getPriority().name()));
+        apiNote.setCreatedAt(domainNote.getCreatedAt());
+        apiNote.setUpdatedAt(domainNote.getUpdatedAt());
+
+        // Only set deletedAt if it's not null
+        if (domainNote.getDeletedAt() != null) {
+            apiNote.deletedAt(domainNote.getDeletedAt());
+        }
+
+        return apiNote;
+    }
+
+    static ydgrun.info.qnotes3.domain.Note.Priority toPriority(String priority) {
+        return priority != null ? ydgrun.info.qnotes3.domain.Note.Priority.valueOf(priority) : null;
+    }
+
+    static NotesResponse toNotesResponse(Page<ydgrun.info.qnotes3.domain.Note> notesPage) {
+        NotesResponse response = new NotesResponse();
+        response.setNotes(notesPage.getContent().stream().map(NoteMapper::toApiNote).toList());
+        response.setTotalPages(notesPage.getTotalPages());
+        response.setCurrentPage(notesPage.getNumber());
+        return response;
+    }
+
+    static NotesScrollResponse toScrollResponse(NoteWindow window) {
+        NotesScrollResponse response = new NotesScrollResponse();
+        response.setNotes(window.notes().stream().map(NoteMapper::toApiNote).toList());
+        if (window.nextCursor() != null) {
+            response.setNextCursor(window.nextCursor().encode());
+        }
+        return response;
+    }
+
+    /**
+     * Deleted notes are reduced to tombstones carrying only their id and deletion time.
+     */
+    static NoteChangesResponse toChangesResponse(NoteChanges changes) {
+        NoteChangesResponse response = new NoteChangesResponse();
+        response.setNotes(changes.notes().stream()
+            .filter(note -> note.getDeletedAt() == null)
+            .map(NoteMapper::toApiNote)
+            .toList());
+        response.setDeleted(changes.notes().stream()
+            .filter(note -> note.getDeletedAt() != null)
+            .map(note -> new NoteTombstone().id(note.getId()).deletedAt(note.getDeletedAt()))
+            .toList());
+        response.setCheckpoint(changes.checkpoint().encode());
+        response.setHasMore(changes.hasMore());
+        return response;
+    }
+
+    static NoteSearchResponse toSearchResponse(List<ydgrun.info.qnotes3.domain.NoteSearchResult> results) {
+        NoteSearchResponse response = new NoteSearchResponse();
+        response.setResults(results.stream()
+            .map(result -> {
+                NoteSearchResult apiResult = new NoteSearchResult();
+                apiResult.setNote(toApiNote(result.note()));
+                apiResult.setScore(result.score());
+                apiResult.setSnippet(result.snippet());
+                apiResult.setHighlights(result.highlights().stream()
+                    .map(highlight -> new NoteSearchHighlight().start(highlight.start()).length(highlight.length()))
+                    .toList());
+                return apiResult;
+            })
+            .toList());
+        return response;
+    }
+
+    static List<NoteBatchOperation> toBatchOperations(NoteBatchRequest noteBatchRequest) {
+        return noteBatchRequest.getOperations().stream()
+            .map(operation -> new NoteBatchOperation(
+                operation.getType() != null
+                    ? NoteBatchOperation.Type.valueOf(operation.getType().getValue())
+                    : null,
+                operation.getId(),
+                operation.getTitle(),
+                operation.getContent(),
+                operation.getPriority() != null
+                    ? ydgrun.info.qnotes3.domain.Note.Priority.valueOf(operation.getPriority().getValue())
+                    : null))
+            .toList();
+    }
+
+    static NoteBatchResponse toBatchResponse(List<ydgrun.info.qnotes3.domain.NoteBatchResult> results) {
+        NoteBatchResponse response = new NoteBatchResponse();
+        response.setResults(results.stream()
+            .map(result -> {
+                NoteBatchResult apiResult = new NoteBatchResult();
+                apiResult.setIndex(result.index());
+                apiResult.setStatus(NoteBatchResult.StatusEnum.fromValue(result.status().name()));
+                apiResult.setId(result.id());
+                apiResult.setError(result.error());
+                return apiResult;
+            })
+            .toList());
+        return response;
+    }
+}
@@ -3,27 +3,42 @@ package ydgrun.info.qnotes3.controllers;
 import org.openapitools.jackson.nullable.JsonNullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ydgrun.info.qnotes3.api.NotesApi;
 import ydgrun.info.qnotes3.model.Note;
+import ydgrun.info.qnotes3.model.NoteBatchRequest;
+import ydgrun.info.qnotes3.model.NoteBatchResponse;
+import ydgrun.info.qnotes3.model.NoteChangesResponse;
+import ydgrun.info.qnotes3.model.NotePatchRequest;
 import ydgrun.info.qnotes3.model.NoteRequest;
+import ydgrun.info.qnotes3.model.NoteSearchResponse;
+import ydgrun.info.qnotes3.model.NoteSuggestResponse;
 import ydgrun.info.qnotes3.model.NotesResponse;
+import ydgrun.info.qnotes3.model.NotesScrollResponse;
+import ydgrun.info.qnotes3.service.NoteSearchIndex;
 import ydgrun.info.qnotes3.service.NoteService;
 
-import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api")
 public class NotesController implements NotesApi {
     private static final Logger logger = LoggerFactory.getLogger(NotesController.class);
     private final NoteService noteService;
+    private final Optional<NoteSearchIndex> searchIndex;
 
-    public NotesController(NoteService noteService) {
+    public NotesController(NoteService noteService, Optional<NoteSearchIndex> searchIndex) {
         this.noteService = noteService;
+        this.searchIndex = searchIndex;
     }
 
     private String getCurrentUserId() {
@@ -42,7 +57,7 @@ public class NotesController implements NotesApi {
                 noteRequest.getContent(),
                 ydgrun.info.qnotes3.domain.Note.Priority.valueOf(noteRequest.getPriority().getValue())
             );
-            return ResponseEntity.status(201).body(mapToApiNote(domainNote));
+            return ResponseEntity.status(201).body(NoteMapper.toApiNote(domainNote));
         } catch (Exception e) {
             logger.error("Error creating note", e);
             throw e;
@@ -59,10 +74,16 @@ public class NotesController implements NotesApi {
 
     @Override
     @GetMapping(value = "/notes/{id}", produces = "application/json")
-    public ResponseEntity<Note> getNoteById(@PathVariable("id") UUID id) {
+    public ResponseEntity<Note> getNoteById(
+            @PathVariable("id") UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Getting note with id: {}", id);
         ydgrun.info.qnotes3.domain.Note domainNote = noteService.getNote(getCurrentUserId(), id);
-        return ResponseEntity.ok(mapToApiNote(domainNote));
+        String etag = ETags.note(domainNote);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ETags.ok(etag, NoteMapper.toApiNote(domainNote));
     }
 
     @Override
@@ -70,22 +91,82 @@ public class NotesController implements NotesApi {
     public ResponseEntity<NotesResponse> getNotes(
             @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
             @RequestParam(value = "priority", required = false) String priority,
-            @RequestParam(value = "dateRange", required = false, defaultValue = "ALL") String dateRange) {
+            @RequestParam(value = "dateRange", required = false, defaultValue = "ALL") String dateRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Getting notes with page: {}, priority: {}, dateRange: {}", page, priority, dateRange);
-        
-        var notesPage = noteService.getNotes(
+        String userId = getCurrentUserId();
+        var notesPriority = NoteMapper.toPriority(priority);
+
+        // Taken before the page is read, and answered without reading it when it still matches
+        String etag = ETags.page(noteService.getNotesVersion(userId, notesPriority, dateRange));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        var notesPage = noteService.getNotes(userId, page, notesPriority, dateRange);
+
+        return ETags.ok(etag, NoteMapper.toNotesResponse(notesPage));
+    }
+
+    @Override
+    @GetMapping(value = "/notes/scroll", produces = "application/json")
+    public ResponseEntity<NotesScrollResponse> scrollNotes(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit,
+            @RequestParam(value = "priority", required = false) String priority,
+            @RequestParam(value = "dateRange", required = false, defaultValue = "ALL") String dateRange) {
+        logger.debug("Scrolling notes after: {}, limit: {}, priority: {}, dateRange: {}", after, limit, priority, dateRange);
+
+        var window = noteService.scrollNotes(
             getCurrentUserId(),
-            page,
-            priority != null ? ydgrun.info.qnotes3.domain.Note.Priority.valueOf(priority) : null,
+            after,
+            limit,
+            NoteMapper.toPriority(priority),
             dateRange
         );
 
-        NotesResponse response = new NotesResponse();
-        response.setNotes(notesPage.getContent().stream().map(this::mapToApiNote).toList());
-        response.setTotalPages(notesPage.getTotalPages());
-        response.setCurrentPage(notesPage.getNumber());
+        return ResponseEntity.ok(NoteMapper.toScrollResponse(window));
+    }
+
+    @Override
+    @GetMapping(value = "/notes/changes", produces = "application/json")
+    public ResponseEntity<NoteChangesResponse> getNoteChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", required = false, defaultValue = "100") Integer limit) {
+        logger.debug("Getting note changes since: {}, limit: {}", since, limit);
+
+        var changes = noteService.getChanges(getCurrentUserId(), since, limit);
+
+        return ResponseEntity.ok(NoteMapper.toChangesResponse(changes));
+    }
+
+    @Override
+    @GetMapping(value = "/notes/search", produces = "application/json")
+    public ResponseEntity<NoteSearchResponse> searchNotes(
+            @RequestParam(value = "q") String q,
+            @RequestParam(value = "priority", required = false) String priority,
+            @RequestParam(value = "limit", required = false, defaultValue = "20") Integer limit) {
+        logger.debug("Searching notes for: {}, priority: {}, limit: {}", q, priority, limit);
 
-        return ResponseEntity.ok(response);
+        String userId = getCurrentUserId();
+        var domainPriority = NoteMapper.toPriority(priority);
+        var results = searchIndex
+            .map(index -> index.searchNotes(userId, q, domainPriority, limit))
+            .orElseGet(() -> noteService.searchNotes(userId, q, domainPriority, limit));
+
+        return ResponseEntity.ok(NoteMapper.toSearchResponse(results));
+    }
+
+    @Override
+    @GetMapping(value = "/notes/suggest", produces = "application/json")
+    public ResponseEntity<NoteSuggestResponse> suggestNoteTerms(
+            @RequestParam(value = "prefix") String prefix,
+            @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        logger.debug("Suggesting note terms for prefix: {}, limit: {}", prefix, limit);
+        String userId = getCurrentUserId();
+        List<String> suggestions = searchIndex
+            .map(index -> index.suggest(userId, prefix, limit))
+            .orElseGet(List::of);
+        return ResponseEntity.ok(new NoteSuggestResponse().suggestions(suggestions));
     }
 
     @Override
@@ -99,23 +180,32 @@ public class NotesController implements NotesApi {
             noteRequest.getContent(),
             ydgrun.info.qnotes3.domain.Note.Priority.valueOf(noteRequest.getPriority().getValue())
         );
-        return ResponseEntity.ok(mapToApiNote(domainNote));
+        return ResponseEntity.ok(NoteMapper.toApiNote(domainNote));
     }
 
-    private Note mapToApiNote(ydgrun.info.qnotes3.domain.Note domainNote) {
-        Note apiNote = new Note();
-        apiNote.setId(domainNote.getId());
-        apiNote.setTitle(domainNote.getTitle());
-        apiNote.setContent(domainNote.getContent());
-        apiNote.setPriority(Note.PriorityEnum.fromValue(domainNote.getPriority().name()));
-        apiNote.setCreatedAt(domainNote.getCreatedAt());
-        apiNote.setUpdatedAt(domainNote.getUpdatedAt());
-        
-        // Only set deletedAt if it's not null
-        if (domainNote.getDeletedAt() != null) {
-            apiNote.deletedAt(domainNote.getDeletedAt());
-        }
-        
-        return apiNote;
+    @Override
+    @PatchMapping(value = "/notes/{id}", produces = "application/json", consumes = "application/json")
+    public ResponseEntity<Note> patchNote(@PathVariable("id") UUID id, @RequestBody NotePatchRequest notePatchRequest) {
+        logger.debug("Patching note with id: {} and data: {}", id, notePatchRequest);
+        ydgrun.info.qnotes3.domain.Note domainNote = noteService.patchNote(
+            getCurrentUserId(),
+            id,
+            notePatchRequest.getTitle(),
+            notePatchRequest.getContent(),
+            notePatchRequest.getPriority() != null
+                ? ydgrun.info.qnotes3.domain.Note.Priority.valueOf(notePatchRequest.getPriority().getValue())
+                : null
+        );
+        return ResponseEntity.ok(NoteMapper.toApiNote(domainNote));
+    }
+
+    @Override
+    @PostMapping(value = "/notes:batch", produces = "application/json", consumes = "application/json")
+    // @Validated rather than @Valid: NotesApi is @Validated, and Hibernate Validator rejects
+    // overrides that add parameter constraints
+    public ResponseEntity<NoteBatchResponse> batchNotes(@Validated @RequestBody NoteBatchRequest noteBatchRequest) {
+        logger.debug("Received batch of {} note operations", noteBatchRequest.getOperations().size());
+        var operations = NoteMapper.toBatchOperations(noteBatchRequest);
+        return ResponseEntity.ok(NoteMapper.toBatchResponse(noteService.executeBatch(getCurrentUserId(), operations)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package ydgrun.info.qnotes3.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ydgrun.info.qnotes3.model.Note;
+import ydgrun.info.qnotes3.service.NoteService;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports all notes of the current user as newline-delimited JSON, one API {@link Note} per line.
+ * Notes are written as they are read from the Mongo cursor, so memory use does not depend on
+ * the number of notes.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api")
+public class NotesExportController {
+    private static final Logger logger = LoggerFactory.getLogger(NotesExportController.class);
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final NoteService noteService;
+    private final ObjectWriter noteWriter;
+
+    public NotesExportController(NoteService noteService, ObjectMapper objectMapper) {
+        this.noteService = noteService;
+        this.noteWriter = objectMapper.writerFor(Note.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator((String) null);
+    }
+
+    private String getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+
+    @GetMapping(value = "/notes/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportNotes(
+            @RequestParam(value = "includeDeleted", required = false, defaultValue = "false") boolean includeDeleted,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Resolved here because the body is written on an async thread without the security context
+        String userId = getCurrentUserId();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        logger.debug("Exporting notes, includeDeleted: {}, gzip: {}", includeDeleted, gzip);
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE) : outputStream;
+            long count = 0;
+            try (Stream<ydgrun.info.qnotes3.domain.Note> notes = noteService.streamNotes(userId, includeDeleted);
+                 JsonGenerator generator = noteWriter.createGenerator(out)) {
+                Iterator<ydgrun.info.qnotes3.domain.Note> iterator = notes.iterator();
+                while (iterator.hasNext()) {
+                    noteWriter.writeValue(generator, NoteMapper.toApiNote(iterator.next()));
+                    generator.writeRaw('\n');
+                    count++;
+                }
+            }
+            logger.debug("Exported {} notes", count);
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("notes-" + LocalDate.now() + (gzip ? ".ndjson.gz" : ".ndjson"))
+                .build()
+                .toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,93 @@
+package ydgrun.info.qnotes3.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ydgrun.info.qnotes3.domain.NoteImportProgress;
+import ydgrun.info.qnotes3.service.NoteImportListener;
+import ydgrun.info.qnotes3.service.NoteImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports newline-delimited JSON notes and answers with a newline-delimited stream of events:
+ * an {@code error} event per rejected record, a {@code progress} event after every stored batch
+ * and a final {@code summary} event.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api")
+public class NotesImportController {
+    private static final Logger logger = LoggerFactory.getLogger(NotesImportController.class);
+
+    private final NoteImportService noteImportService;
+    private final ObjectMapper objectMapper;
+
+    public NotesImportController(NoteImportService noteImportService, ObjectMapper objectMapper) {
+        this.noteImportService = noteImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    private String getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+
+    @PostMapping(value = "/notes/import",
+        consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importNotes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.debug("Importing notes");
+        String userId = getCurrentUserId();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        InputStream body = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+            ? new GZIPInputStream(request.getInputStream())
+            : request.getInputStream();
+        try (JsonGenerator events = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            events.setRootValueSeparator(null);
+            NoteImportProgress summary = noteImportService.importNotes(userId, body, new NoteImportListener() {
+                @Override
+                public void onError(long line, String message) throws IOException {
+                    events.writeStartObject();
+                    events.writeStringField("type", "error");
+                    events.writeNumberField("line", line);
+                    events.writeStringField("message", message);
+                    events.writeEndObject();
+                    events.writeRaw('\n');
+                }
+
+                @Override
+                public void onProgress(NoteImportProgress progress) throws IOException {
+                    writeProgress(events, "progress", progress);
+                    events.flush();
+                }
+            });
+            writeProgress(events, "summary", summary);
+        }
+    }
+
+    private static void writeProgress(JsonGenerator events, String type, NoteImportProgress progress) throws IOException {
+        events.writeStartObject();
+        events.writeStringField("type", type);
+        events.writeNumberField("records", progress.records());
+        events.writeNumberField("imported", progress.imported());
+        events.writeNumberField("failed", progress.failed());
+        events.writeEndObject();
+        events.writeRaw('\n');
+    }
+}
@@ -0,0 +1,93 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.api.reactive.AuthenticationApi;
+import ydgrun.info.qnotes3.exception.InvalidRefreshTokenException;
+import ydgrun.info.qnotes3.exception.PasswordHashingRejectedException;
+import ydgrun.info.qnotes3.model.AuthResponse;
+import ydgrun.info.qnotes3.model.Error;
+import ydgrun.info.qnotes3.model.LoginRequest;
+import ydgrun.info.qnotes3.model.RefreshRequest;
+import ydgrun.info.qnotes3.model.RegisterRequest;
+import ydgrun.info.qnotes3.service.JwtService;
+import ydgrun.info.qnotes3.service.ReactiveRefreshTokenService;
+import ydgrun.info.qnotes3.service.ReactiveUserService;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthenticationController implements AuthenticationApi {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAuthenticationController.class);
+    private final ReactiveUserService userService;
+    private final JwtService jwtService;
+    private final ReactiveRefreshTokenService refreshTokenService;
+
+    public ReactiveAuthenticationController(ReactiveUserService userService, JwtService jwtService,
+                                            ReactiveRefreshTokenService refreshTokenService) {
+        this.userService = userService;
+        this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+    }
+
+    @Override
+    public Mono<ResponseEntity<AuthResponse>> login(Mono<LoginRequest> loginRequest, ServerWebExchange exchange) {
+        return loginRequest
+            .doOnNext(request -> logger.debug("Login request for user: {}", request.getUsername()))
+            .flatMap(request -> userService.authenticate(request.getUsername(), request.getPassword()))
+            .flatMap(user -> refreshTokenService.issue(user.getUsername())
+                .map(refreshToken -> ResponseEntity.ok(tokensFor(user.getUsername(), refreshToken))));
+    }
+
+    @Override
+    public Mono<ResponseEntity<AuthResponse>> register(Mono<RegisterRequest> registerRequest, ServerWebExchange exchange) {
+        return registerRequest
+            .doOnNext(request -> logger.debug("Registration request for user: {}", request.getUsername()))
+            .flatMap(request -> userService.createUser(request.getUsername(), request.getPassword()))
+            .flatMap(user -> refreshTokenService.issue(user.getUsername())
+                .map(refreshToken -> ResponseEntity.status(201).body(tokensFor(user.getUsername(), refreshToken))));
+    }
+
+    @Override
+    public Mono<ResponseEntity<AuthResponse>> refresh(Mono<RefreshRequest> refreshRequest, ServerWebExchange exchange) {
+        return refreshRequest
+            .flatMap(request -> refreshTokenService.rotate(request.getRefreshToken()))
+            .doOnNext(issued -> logger.debug("Refreshed tokens of user: {}", issued.username()))
+            .map(issued -> ResponseEntity.ok(tokensFor(issued.username(), issued.token())));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Void>> logout(Mono<RefreshRequest> refreshRequest, ServerWebExchange exchange) {
+        return refreshRequest
+            .flatMap(request -> refreshTokenService.revoke(request.getRefreshToken()))
+            .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    private AuthResponse tokensFor(String username, String refreshToken) {
+        AuthResponse response = new AuthResponse();
+        response.setToken(jwtService.generateToken(username));
+        response.setRefreshToken(refreshToken);
+        return response;
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<Error> invalidRefreshToken(InvalidRefreshTokenException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+            .body(new Error().code("INVALID_REFRESH_TOKEN").message(e.getMessage()));
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Error> passwordHashingRejected(PasswordHashingRejectedException e) {
+        logger.debug("Password hashing rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, e.getRetryAfter().toSeconds())))
+            .body(new Error().code("PASSWORD_HASHING_BUSY").message(e.getMessage()));
+    }
+}
@@ -0,0 +1,181 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.api.reactive.NotesApi;
+import ydgrun.info.qnotes3.model.Note;
+import ydgrun.info.qnotes3.model.NoteBatchRequest;
+import ydgrun.info.qnotes3.model.NoteBatchResponse;
+import ydgrun.info.qnotes3.model.NoteChangesResponse;
+import ydgrun.info.qnotes3.model.NotePatchRequest;
+import ydgrun.info.qnotes3.model.NoteRequest;
+import ydgrun.info.qnotes3.model.NoteSearchResponse;
+import ydgrun.info.qnotes3.model.NoteSuggestResponse;
+import ydgrun.info.qnotes3.model.NotesResponse;
+import ydgrun.info.qnotes3.model.NotesScrollResponse;
+import ydgrun.info.qnotes3.service.ReactiveNoteService;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link NotesController} for the reactive profile; mappings and parameters come from the
+ * generated reactive {@link NotesApi}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNotesController implements NotesApi {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveNotesController.class);
+    private final ReactiveNoteService noteService;
+
+    public ReactiveNotesController(ReactiveNoteService noteService) {
+        this.noteService = noteService;
+    }
+
+    private static Mono<String> getCurrentUserId() {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(context -> context.getAuthentication().getName());
+    }
+
+    @Override
+    public Mono<ResponseEntity<Note>> createNote(Mono<NoteRequest> noteRequest, ServerWebExchange exchange) {
+        return Mono.zip(getCurrentUserId(), noteRequest)
+            .flatMap(request -> {
+                logger.debug("Received request to create note: {}", request.getT2());
+                return noteService.createNote(
+                    request.getT1(),
+                    request.getT2().getTitle(),
+                    request.getT2().getContent(),
+                    ydgrun.info.qnotes3.domain.Note.Priority.valueOf(request.getT2().getPriority().getValue()));
+            })
+            .map(domainNote -> ResponseEntity.status(201).body(NoteMapper.toApiNote(domainNote)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Void>> deleteNote(UUID id, ServerWebExchange exchange) {
+        logger.debug("Deleting note with id: {}", id);
+        return getCurrentUserId()
+            .flatMap(userId -> noteService.deleteNote(userId, id))
+            .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Note>> getNoteById(UUID id, String ifNoneMatch, ServerWebExchange exchange) {
+        logger.debug("Getting note with id: {}", id);
+        return getCurrentUserId()
+            .flatMap(userId -> noteService.getNote(userId, id))
+            .map(domainNote -> {
+                String etag = ETags.note(domainNote);
+                return ETags.matches(ifNoneMatch, etag)
+                    ? ETags.<Note>notModified(etag)
+                    : ETags.ok(etag, NoteMapper.toApiNote(domainNote));
+            });
+    }
+
+    @Override
+    public Mono<ResponseEntity<NotesResponse>> getNotes(Integer page, String priority, String dateRange,
+                                                        String ifNoneMatch, ServerWebExchange exchange) {
+        logger.debug("Getting notes with page: {}, priority: {}, dateRange: {}", page, priority, dateRange);
+        var notesPriority = NoteMapper.toPriority(priority);
+        return getCurrentUserId()
+            // Taken before the page is read, and answered without reading it when it still matches
+            .flatMap(userId -> noteService.getNotesVersion(userId, notesPriority, dateRange)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(version -> {
+                    String etag = ETags.page(version.orElse(null));
+                    if (ETags.matches(ifNoneMatch, etag)) {
+                        return Mono.just(ETags.<NotesResponse>notModified(etag));
+                    }
+                    return noteService.getNotes(userId, page, notesPriority, dateRange)
+                        .map(notesPage -> ETags.ok(etag, NoteMapper.toNotesResponse(notesPage)));
+                }));
+    }
+
+    @Override
+    public Mono<ResponseEntity<NotesScrollResponse>> scrollNotes(String after, Integer limit, String priority,
+                                                                 String dateRange, ServerWebExchange exchange) {
+        logger.debug("Scrolling notes after: {}, limit: {}, priority: {}, dateRange: {}", after, limit, priority, dateRange);
+        return getCurrentUserId()
+            .flatMap(userId -> noteService.scrollNotes(userId, after, limit, NoteMapper.toPriority(priority), dateRange))
+            .map(window -> ResponseEntity.ok(NoteMapper.toScrollResponse(window)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<NoteChangesResponse>> getNoteChanges(String since, Integer limit,
+                                                                    ServerWebExchange exchange) {
+        logger.debug("Getting note changes since: {}, limit: {}", since, limit);
+        return getCurrentUserId()
+            .flatMap(userId -> noteService.getChanges(userId, since, limit))
+            .map(changes -> ResponseEntity.ok(NoteMapper.toChangesResponse(changes)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<NoteSearchResponse>> searchNotes(String q, String priority, Integer limit,
+                                                                ServerWebExchange exchange) {
+        logger.debug("Searching notes for: {}, priority: {}, limit: {}", q, priority, limit);
+        return getCurrentUserId()
+            .flatMap(userId -> noteService.searchNotes(userId, q, NoteMapper.toPriority(priority), limit))
+            .map(results -> ResponseEntity.ok(NoteMapper.toSearchResponse(results)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<NoteSuggestResponse>> suggestNoteTerms(String prefix, Integer limit,
+                                                                      ServerWebExchange exchange) {
+        logger.debug("Suggesting note terms for prefix: {}, limit: {}", prefix, limit);
+        return getCurrentUserId()
+            .flatMap(userId -> noteService.suggest(userId, prefix, limit))
+            .map(suggestions -> ResponseEntity.ok(new NoteSuggestResponse().suggestions(suggestions)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Note>> updateNote(UUID id, Mono<NoteRequest> noteRequest, ServerWebExchange exchange) {
+        return Mono.zip(getCurrentUserId(), noteRequest)
+            .flatMap(request -> {
+                logger.debug("Updating note with id: {} and data: {}", id, request.getT2());
+                return noteService.updateNote(
+                    request.getT1(),
+                    id,
+                    request.getT2().getTitle(),
+                    request.getT2().getContent(),
+                    ydgrun.info.qnotes3.domain.Note.Priority.valueOf(request.getT2().getPriority().getValue()));
+            })
+            .map(domainNote -> ResponseEntity.ok(NoteMapper.toApiNote(domainNote)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Note>> patchNote(UUID id, Mono<NotePatchRequest> notePatchRequest,
+                                                ServerWebExchange exchange) {
+        return Mono.zip(getCurrentUserId(), notePatchRequest)
+            .flatMap(request -> {
+                logger.debug("Patching note with id: {} and data: {}", id, request.getT2());
+                NotePatchRequest patch = request.getT2();
+                return noteService.patchNote(
+                    request.getT1(),
+                    id,
+                    patch.getTitle(),
+                    patch.getContent(),
+                    patch.getPriority() != null
+                        ? ydgrun.info.qnotes3.domain.Note.Priority.valueOf(patch.getPriority().getValue())
+                        : null);
+            })
+            .map(domainNote -> ResponseEntity.ok(NoteMapper.toApiNote(domainNote)));
+    }
+
+    @Override
+    public Mono<ResponseEntity<NoteBatchResponse>> batchNotes(Mono<NoteBatchRequest> noteBatchRequest,
+                                                              ServerWebExchange exchange) {
+        return Mono.zip(getCurrentUserId(), noteBatchRequest)
+            .flatMap(request -> {
+                logger.debug("Received batch of {} note operations", request.getT2().getOperations().size());
+                return noteService.executeBatch(request.getT1(), NoteMapper.toBatchOperations(request.getT2()));
+            })
+            .map(results -> ResponseEntity.ok(NoteMapper.toBatchResponse(results)));
+    }
+}
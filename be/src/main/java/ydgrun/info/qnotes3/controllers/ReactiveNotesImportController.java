@@ -0,0 +1,92 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ydgrun.info.qnotes3.domain.NoteImportProgress;
+import ydgrun.info.qnotes3.service.NoteImportListener;
+import ydgrun.info.qnotes3.service.NoteImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link NotesImportController} for the reactive profile, with the same events. The import itself
+ * reads a blocking stream and writes through the blocking repositories, so it runs on the bounded
+ * elastic scheduler.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api")
+public class ReactiveNotesImportController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveNotesImportController.class);
+    // Request body buffers read ahead of the parser
+    private static final int BODY_DEMAND = 16;
+
+    private final NoteImportService noteImportService;
+
+    public ReactiveNotesImportController(NoteImportService noteImportService) {
+        this.noteImportService = noteImportService;
+    }
+
+    private static Mono<String> getCurrentUserId() {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(context -> context.getAuthentication().getName());
+    }
+
+    @PostMapping(value = "/notes/import",
+        consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Map<String, Object>> importNotes(ServerHttpRequest request) {
+        logger.debug("Importing notes");
+        return getCurrentUserId().flatMapMany(userId -> Flux.<Map<String, Object>>create(events -> {
+            InputStream body = DataBufferUtils.subscriberInputStream(request.getBody(), BODY_DEMAND);
+            try (InputStream input = "gzip".equalsIgnoreCase(request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                    ? new GZIPInputStream(body)
+                    : body) {
+                NoteImportProgress summary = noteImportService.importNotes(userId, input, new NoteImportListener() {
+                    @Override
+                    public void onError(long line, String message) {
+                        Map<String, Object> event = new LinkedHashMap<>();
+                        event.put("type", "error");
+                        event.put("line", line);
+                        event.put("message", message);
+                        events.next(event);
+                    }
+
+                    @Override
+                    public void onProgress(NoteImportProgress progress) {
+                        events.next(progressEvent("progress", progress));
+                    }
+                });
+                events.next(progressEvent("summary", summary));
+                events.complete();
+            } catch (IOException | RuntimeException e) {
+                events.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private static Map<String, Object> progressEvent(String type, NoteImportProgress progress) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        event.put("records", progress.records());
+        event.put("imported", progress.imported());
+        event.put("failed", progress.failed());
+        return event;
+    }
+}
@@ -0,0 +1,50 @@
+package ydgrun.info.qnotes3.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.api.reactive.StatisticsApi;
+import ydgrun.info.qnotes3.model.Statistics;
+import ydgrun.info.qnotes3.service.ReactiveUserStatsService;
+import ydgrun.info.qnotes3.service.StatisticsService;
+
+import java.util.Optional;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatisticsController implements StatisticsApi {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveStatisticsController.class);
+    private final ReactiveUserStatsService userStatsService;
+
+    public ReactiveStatisticsController(ReactiveUserStatsService userStatsService) {
+        this.userStatsService = userStatsService;
+    }
+
+    private static Mono<String> getCurrentUserId() {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(context -> context.getAuthentication().getName());
+    }
+
+    @Override
+    public Mono<ResponseEntity<Statistics>> getStatistics(String ifNoneMatch, ServerWebExchange exchange) {
+        return getCurrentUserId()
+            .doOnNext(userId -> logger.debug("Getting statistics for user: {}", userId))
+            // Taken before the statistics are computed, and answered without computing them when it still matches
+            .flatMap(userId -> userStatsService.getStatisticsVersion(userId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(version -> {
+                    String etag = ETags.statistics(version.orElse(null));
+                    if (ETags.matches(ifNoneMatch, etag)) {
+                        return Mono.just(ETags.<Statistics>notModified(etag));
+                    }
+                    return userStatsService.getStatistics(userId)
+                        .map(noteStatistics -> ETags.ok(etag, StatisticsService.toStatistics(noteStatistics)));
+                }));
+    }
+}
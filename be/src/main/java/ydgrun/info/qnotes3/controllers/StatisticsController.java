@@ -2,6 +2,7 @@ package ydgrun.info.qnotes3.controllers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -9,14 +10,18 @@ import org.springframework.web.bind.annotation.RestController;
 import ydgrun.info.qnotes3.api.StatisticsApi;
 import ydgrun.info.qnotes3.model.Statistics;
 import ydgrun.info.qnotes3.service.StatisticsService;
+import ydgrun.info.qnotes3.service.UserStatsService;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class StatisticsController implements StatisticsApi {
     private static final Logger logger = LoggerFactory.getLogger(StatisticsController.class);
     private final StatisticsService statisticsService;
+    private final UserStatsService userStatsService;
 
-    public StatisticsController(StatisticsService statisticsService) {
+    public StatisticsController(StatisticsService statisticsService, UserStatsService userStatsService) {
         this.statisticsService = statisticsService;
+        this.userStatsService = userStatsService;
     }
 
     private String getCurrentUserId() {
@@ -25,8 +30,14 @@ public class StatisticsController implements StatisticsApi {
     }
 
     @Override
-    public ResponseEntity<Statistics> getStatistics() {
-        logger.debug("Getting statistics for user: {}", getCurrentUserId());
-        return ResponseEntity.ok(statisticsService.getStatistics(getCurrentUserId()));
+    public ResponseEntity<Statistics> getStatistics(String ifNoneMatch) {
+        String userId = getCurrentUserId();
+        logger.debug("Getting statistics for user: {}", userId);
+        // Taken before the statistics are computed, and answered without computing them when it still matches
+        String etag = ETags.statistics(userStatsService.getStatisticsVersion(userId));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ETags.ok(etag, statisticsService.getStatistics(userId));
     }
 }
\ No newline at end of file
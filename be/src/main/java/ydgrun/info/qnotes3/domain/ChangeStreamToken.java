@@ -0,0 +1,48 @@
+package ydgrun.info.qnotes3.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Where an instance stopped following the change stream of the notes collection, so that it
+ * resumes there rather than at the time it reconnects. Stored per instance, under its node id.
+ */
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+    @Id
+    private String id;
+
+    // The resume token of the last change seen, as extended JSON
+    @Field("token")
+    private String token;
+
+    @Field("savedAt")
+    private OffsetDateTime savedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public OffsetDateTime getSavedAt() {
+        return savedAt;
+    }
+
+    public void setSavedAt(OffsetDateTime savedAt) {
+        this.savedAt = savedAt;
+    }
+}
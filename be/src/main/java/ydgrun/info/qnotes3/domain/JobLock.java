@@ -0,0 +1,48 @@
+package ydgrun.info.qnotes3.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Lets a scheduled job run on only one of the instances sharing the database: whichever instance
+ * takes the lock of the job runs it, and the lock is free again once {@code lockedUntil} has passed.
+ */
+@Document(collection = "job_locks")
+public class JobLock {
+    @Id
+    private String job;
+
+    @Field("lockedUntil")
+    private OffsetDateTime lockedUntil;
+
+    // Node id of the instance that took the lock
+    @Field("lockedBy")
+    private String lockedBy;
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    public OffsetDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(OffsetDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+}
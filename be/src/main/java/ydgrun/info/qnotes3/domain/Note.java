@@ -33,10 +33,28 @@ public class Note {
     @Field("deletedAt")
     private OffsetDateTime deletedAt;
 
+    // Server time of the last write of any kind, deletion included; the order of GET /api/notes/changes
+    @Field("changedAt")
+    private OffsetDateTime changedAt;
+
     public enum Priority {
         NOW, LATER, SOMEDAY, DONE
     }
 
+    public Note copy() {
+        Note copy = new Note();
+        copy.setId(id);
+        copy.setUserId(userId);
+        copy.setTitle(title);
+        copy.setContent(content);
+        copy.setPriority(priority);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        copy.setDeletedAt(deletedAt);
+        copy.setChangedAt(changedAt);
+        return copy;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -100,4 +118,12 @@ public class Note {
     public void setDeletedAt(OffsetDateTime deletedAt) {
         this.deletedAt = deletedAt;
     }
+
+    public OffsetDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(OffsetDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.util.UUID;
+
+/**
+ * One item of a batch request. {@code id} is required for every type except CREATE;
+ * UPDATE sets the non-null fields and SET_PRIORITY only uses {@code priority}.
+ */
+public record NoteBatchOperation(Type type, UUID id, String title, String content, Note.Priority priority) {
+
+    public enum Type {
+        CREATE, UPDATE, SET_PRIORITY, DELETE
+    }
+}
@@ -0,0 +1,21 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.util.UUID;
+
+/**
+ * Outcome of the batch item at {@code index}; {@code error} is only set when the item was not applied.
+ */
+public record NoteBatchResult(int index, Status status, UUID id, String error) {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, INVALID, FAILED
+    }
+
+    public static NoteBatchResult applied(int index, Status status, UUID id) {
+        return new NoteBatchResult(index, status, id, null);
+    }
+
+    public static NoteBatchResult rejected(int index, Status status, UUID id, String error) {
+        return new NoteBatchResult(index, status, id, error);
+    }
+}
@@ -0,0 +1,10 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.util.List;
+
+/**
+ * Notes written since a checkpoint in the order they were written, deleted ones included, and the
+ * checkpoint to ask from next; {@code hasMore} tells that more changes are ready right away.
+ */
+public record NoteChanges(List<Note> notes, NoteCheckpoint checkpoint, boolean hasMore) {
+}
@@ -0,0 +1,36 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the (changedAt, id) order of note changes: every change up to {@code changedAt} and
+ * {@code id} has been seen, or every change up to and including {@code changedAt} when {@code id}
+ * is null. Encoded for clients as an opaque URL-safe token.
+ */
+public record NoteCheckpoint(OffsetDateTime changedAt, UUID id) {
+
+    public static NoteCheckpoint of(Note note) {
+        return new NoteCheckpoint(note.getChangedAt(), note.getId());
+    }
+
+    public String encode() {
+        String raw = changedAt.toInstant().toEpochMilli() + (id != null ? ":" + id : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static NoteCheckpoint decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        String millis = separator < 0 ? raw : raw.substring(0, separator);
+        OffsetDateTime changedAt = Instant.ofEpochMilli(Long.parseLong(millis)).atOffset(ZoneOffset.UTC);
+        return new NoteCheckpoint(changedAt, separator < 0 ? null : UUID.fromString(raw.substring(separator + 1)));
+    }
+}
@@ -0,0 +1,38 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of a note in the (createdAt desc, id desc) order used for keyset pagination.
+ * Encoded for clients as an opaque URL-safe token.
+ */
+public record NoteCursor(OffsetDateTime createdAt, UUID id) {
+
+    public static NoteCursor of(Note note) {
+        return new NoteCursor(note.getCreatedAt(), note.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.toInstant().toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static NoteCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        OffsetDateTime createdAt = Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator)))
+            .atOffset(ZoneOffset.UTC);
+        return new NoteCursor(createdAt, UUID.fromString(raw.substring(separator + 1)));
+    }
+}
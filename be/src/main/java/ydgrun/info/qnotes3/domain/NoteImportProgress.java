@@ -0,0 +1,7 @@
+package ydgrun.info.qnotes3.domain;
+
+/**
+ * Running totals of an import; {@code records} counts every record read, valid or not.
+ */
+public record NoteImportProgress(long records, long imported, long failed) {
+}
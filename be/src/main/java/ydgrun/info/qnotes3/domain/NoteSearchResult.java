@@ -0,0 +1,14 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.util.List;
+
+/**
+ * A note matching a search with its relevance score and an excerpt of the matching text.
+ * Highlights are character ranges of {@code snippet}, so clients can mark them without
+ * the server embedding markup in user content.
+ */
+public record NoteSearchResult(Note note, double score, String snippet, List<Highlight> highlights) {
+
+    public record Highlight(int start, int length) {
+    }
+}
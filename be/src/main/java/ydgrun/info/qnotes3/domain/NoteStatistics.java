@@ -0,0 +1,25 @@
+package ydgrun.info.qnotes3.domain;
+
+/**
+ * Per-user note statistics as raw counts and hour sums, so that averages can be
+ * derived without loading the underlying notes.
+ */
+public record NoteStatistics(
+        long staleCount,
+        long highPriorityCount,
+        long completedCount,
+        double completionHoursSum,
+        long deletedCount,
+        double deletionHoursSum
+) {
+
+    public static final NoteStatistics EMPTY = new NoteStatistics(0, 0, 0, 0.0, 0, 0.0);
+
+    public double averageCompletionHours() {
+        return completedCount == 0 ? 0.0 : completionHoursSum / completedCount;
+    }
+
+    public double averageDeletionHours() {
+        return deletedCount == 0 ? 0.0 : deletionHoursSum / deletedCount;
+    }
+}
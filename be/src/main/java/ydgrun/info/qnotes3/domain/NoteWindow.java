@@ -0,0 +1,9 @@
+package ydgrun.info.qnotes3.domain;
+
+import java.util.List;
+
+/**
+ * One keyset-paginated page of notes; {@code nextCursor} is null on the last page.
+ */
+public record NoteWindow(List<Note> notes, NoteCursor nextCursor) {
+}
@@ -0,0 +1,72 @@
+package ydgrun.info.qnotes3.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A refresh token, stored under the SHA-256 hash of its value so that the collection cannot be
+ * used to sign in. Every token rotated from the same login shares its {@code family}, which is
+ * revoked as a whole on logout or when a used token is presented again. Mongo removes documents
+ * once they pass {@code expiresAt}.
+ */
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    @Id
+    private String id;
+
+    @Field("username")
+    private String username;
+
+    @Field("family")
+    private String family;
+
+    @Field("expiresAt")
+    private OffsetDateTime expiresAt;
+
+    // Set when the token is exchanged for the next one
+    @Field("usedAt")
+    private OffsetDateTime usedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public void setFamily(String family) {
+        this.family = family;
+    }
+
+    public OffsetDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(OffsetDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public OffsetDateTime getUsedAt() {
+        return usedAt;
+    }
+
+    public void setUsedAt(OffsetDateTime usedAt) {
+        this.usedAt = usedAt;
+    }
+}
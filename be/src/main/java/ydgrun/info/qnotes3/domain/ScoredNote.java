@@ -0,0 +1,7 @@
+package ydgrun.info.qnotes3.domain;
+
+/**
+ * A note returned by a full-text query together with its text score.
+ */
+public record ScoredNote(Note note, double score) {
+}
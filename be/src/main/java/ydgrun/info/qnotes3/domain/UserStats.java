@@ -0,0 +1,117 @@
+package ydgrun.info.qnotes3.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user statistics counters, kept up to date with {@code $inc} on every note write.
+ * Stale notes depend on the current time, so open notes are counted in buckets keyed
+ * by the UTC day of their {@code updatedAt} instead of a single counter. {@code changeCount} counts
+ * every write and is never reset, so it versions the user's notes across instances and restarts.
+ */
+@Document(collection = "user_stats")
+public class UserStats {
+    @Id
+    private String userId;
+
+    @Field("highPriorityCount")
+    private long highPriorityCount;
+
+    @Field("completedCount")
+    private long completedCount;
+
+    @Field("completionHoursSum")
+    private double completionHoursSum;
+
+    @Field("deletedCount")
+    private long deletedCount;
+
+    @Field("deletionHoursSum")
+    private double deletionHoursSum;
+
+    @Field("openByUpdatedDay")
+    private Map<String, Long> openByUpdatedDay = new HashMap<>();
+
+    @Field("rebuiltAt")
+    private OffsetDateTime rebuiltAt;
+
+    @Field("changeCount")
+    private long changeCount;
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public long getHighPriorityCount() {
+        return highPriorityCount;
+    }
+
+    public void setHighPriorityCount(long highPriorityCount) {
+        this.highPriorityCount = highPriorityCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public double getCompletionHoursSum() {
+        return completionHoursSum;
+    }
+
+    public void setCompletionHoursSum(double completionHoursSum) {
+        this.completionHoursSum = completionHoursSum;
+    }
+
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+
+    public void setDeletedCount(long deletedCount) {
+        this.deletedCount = deletedCount;
+    }
+
+    public double getDeletionHoursSum() {
+        return deletionHoursSum;
+    }
+
+    public void setDeletionHoursSum(double deletionHoursSum) {
+        this.deletionHoursSum = deletionHoursSum;
+    }
+
+    public Map<String, Long> getOpenByUpdatedDay() {
+        return openByUpdatedDay;
+    }
+
+    public void setOpenByUpdatedDay(Map<String, Long> openByUpdatedDay) {
+        this.openByUpdatedDay = openByUpdatedDay;
+    }
+
+    public OffsetDateTime getRebuiltAt() {
+        return rebuiltAt;
+    }
+
+    public void setRebuiltAt(OffsetDateTime rebuiltAt) {
+        this.rebuiltAt = rebuiltAt;
+    }
+
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    public void setChangeCount(long changeCount) {
+        this.changeCount = changeCount;
+    }
+}
@@ -0,0 +1,11 @@
+package ydgrun.info.qnotes3.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchQueryException extends IllegalArgumentException {
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+}
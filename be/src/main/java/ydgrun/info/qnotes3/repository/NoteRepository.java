@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface NoteRepository extends MongoRepository<Note, UUID> {
+public interface NoteRepository extends MongoRepository<Note, UUID>, NoteRepositoryCustom {
     
     @Query("{ 'userId': ?0, 'deletedAt': null }")
     Page<Note> findAllByUserIdAndNotDeleted(String userId, Pageable pageable);
@@ -28,6 +28,9 @@ public interface NoteRepository extends MongoRepository<Note, UUID> {
     @Query("{ 'userId': ?0, 'updatedAt': { $lt: ?1 }, 'priority': { $ne: 'DONE' }, 'deletedAt': null }")
     List<Note> findStaleNotes(String userId, OffsetDateTime staleThreshold);
 
+    @Query(value = "{ 'userId': ?0, 'updatedAt': { $gte: ?1, $lt: ?2 }, 'priority': { $ne: 'DONE' }, 'deletedAt': null }", count = true)
+    long countOpenNotesUpdatedBetween(String userId, OffsetDateTime from, OffsetDateTime to);
+
     @Query("{ 'userId': ?0, 'priority': 'NOW', 'deletedAt': null }")
     List<Note> findHighPriorityNotes(String userId);
 
@@ -0,0 +1,87 @@
+package ydgrun.info.qnotes3.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.ScoredNote;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface NoteRepositoryCustom {
+
+    /**
+     * Computes all statistics for a user in a single aggregation round trip.
+     */
+    NoteStatistics aggregateStatistics(String userId, OffsetDateTime staleThreshold);
+
+    /**
+     * Counts active notes that are not DONE, grouped by the UTC day (yyyy-MM-dd) of their last update.
+     */
+    Map<String, Long> countOpenNotesByUpdatedDay(String userId);
+
+    List<String> findDistinctUserIds();
+
+    /**
+     * Returns up to {@code limit} active notes ordered by createdAt and id descending, starting
+     * right after {@code after} (or from the newest note when null). Priority takes precedence
+     * over {@code createdFrom}, as in the offset-paged queries.
+     */
+    List<Note> findActiveNotesAfter(String userId, Note.Priority priority, OffsetDateTime createdFrom,
+                                    NoteCursor after, int limit);
+
+    /**
+     * Returns up to {@code limit} notes, deleted ones included, ordered by changedAt and id ascending,
+     * that changed after {@code since} and no later than {@code until}. Without {@code since}, only
+     * active notes are returned, starting from the earliest change.
+     */
+    List<Note> findChangedNotes(String userId, NoteCheckpoint since, OffsetDateTime until, int limit);
+
+    /**
+     * Sets changedAt on notes written before it existed, to their deletedAt, updatedAt or createdAt,
+     * whichever is set first, so that changes include them. Returns how many notes were updated.
+     */
+    long backfillChangedAt();
+
+    /**
+     * Atomically applies {@code update} to the user's note if it is not deleted and returns the
+     * note as it was before the update, or empty when nothing matched.
+     */
+    Optional<Note> modifyActiveNote(String userId, UUID noteId, Update update);
+
+    List<Note> findActiveNotesByIds(String userId, Collection<UUID> noteIds);
+
+    /**
+     * Like {@link #findActiveNotesByIds}, deleted notes included.
+     */
+    List<Note> findNotesByIds(String userId, Collection<UUID> noteIds);
+
+    /**
+     * Sends {@code inserts} followed by {@code updates} as one unordered bulk write. Each update
+     * pairs a note as it was read with its changes, and only matches while that note is still
+     * active and unchanged since. Failures are reported through
+     * {@link org.springframework.data.mongodb.BulkOperationException}, indexed in that order.
+     */
+    BulkWriteResult bulkWrite(String userId, List<Note> inserts, List<Pair<Note, Update>> updates);
+
+    /**
+     * Streams the user's notes from a server-side cursor, in no particular order.
+     * The returned stream must be closed to release the cursor.
+     */
+    Stream<Note> streamNotes(String userId, boolean includeDeleted);
+
+    /**
+     * Runs a {@code $text} search over the title and content of the user's active notes and returns
+     * at most {@code limit} of them, best text score first.
+     */
+    List<ScoredNote> searchActiveNotes(String userId, String text, Note.Priority priority, int limit);
+}
@@ -0,0 +1,319 @@
+package ydgrun.info.qnotes3.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.ScoredNote;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * The queries and pipelines are built by package-private static methods shared with
+ * {@link ReactiveNoteRepositoryCustomImpl}, so both stacks send Mongo the same commands.
+ */
+public class NoteRepositoryCustomImpl implements NoteRepositoryCustom {
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+    private static final int STREAM_BATCH_SIZE = 1000;
+    static final String TEXT_SCORE_FIELD = "score";
+
+    private final MongoTemplate mongoTemplate;
+
+    public NoteRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public NoteStatistics aggregateStatistics(String userId, OffsetDateTime staleThreshold) {
+        Document result = mongoTemplate.aggregate(statisticsAggregation(userId, staleThreshold), Note.class, Document.class)
+            .getUniqueMappedResult();
+        return toStatistics(result);
+    }
+
+    static Aggregation statisticsAggregation(String userId, OffsetDateTime staleThreshold) {
+        return Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("userId").is(userId)),
+            Aggregation.facet(
+                    Aggregation.match(Criteria.where("deletedAt").is(null)
+                        .and("priority").ne(Note.Priority.DONE.name())
+                        .and("updatedAt").lt(Date.from(staleThreshold.toInstant()))),
+                    Aggregation.count().as("count"))
+                .as("stale")
+                .and(
+                    Aggregation.match(Criteria.where("deletedAt").is(null)
+                        .and("priority").is(Note.Priority.NOW.name())),
+                    Aggregation.count().as("count"))
+                .as("highPriority")
+                .and(
+                    Aggregation.match(Criteria.where("deletedAt").is(null)
+                        .and("priority").is(Note.Priority.DONE.name())),
+                    Aggregation.group().count().as("count").sum(hoursBetween("createdAt", "updatedAt")).as("hours"))
+                .as("completed")
+                .and(
+                    Aggregation.match(Criteria.where("deletedAt").ne(null)),
+                    Aggregation.group().count().as("count").sum(hoursBetween("createdAt", "deletedAt")).as("hours"))
+                .as("deleted")
+        );
+    }
+
+    static NoteStatistics toStatistics(Document result) {
+        if (result == null) {
+            return NoteStatistics.EMPTY;
+        }
+
+        return new NoteStatistics(
+            facetLong(result, "stale", "count"),
+            facetLong(result, "highPriority", "count"),
+            facetLong(result, "completed", "count"),
+            facetDouble(result, "completed", "hours"),
+            facetLong(result, "deleted", "count"),
+            facetDouble(result, "deleted", "hours")
+        );
+    }
+
+    @Override
+    public Map<String, Long> countOpenNotesByUpdatedDay(String userId) {
+        Map<String, Long> countsByDay = new HashMap<>();
+        for (Document day : mongoTemplate.aggregate(openNotesByUpdatedDayAggregation(userId), Note.class, Document.class)) {
+            countsByDay.put(day.getString("_id"), day.get("count", Number.class).longValue());
+        }
+        return countsByDay;
+    }
+
+    /**
+     * One document per day, with the day as {@code _id} and the number of notes as {@code count}.
+     */
+    static Aggregation openNotesByUpdatedDayAggregation(String userId) {
+        return Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("userId").is(userId)
+                .and("deletedAt").is(null)
+                .and("priority").ne(Note.Priority.DONE.name())),
+            Aggregation.project().and(DateOperators.dateOf("updatedAt").toString("%Y-%m-%d")).as("day"),
+            Aggregation.group("day").count().as("count")
+        );
+    }
+
+    @Override
+    public List<String> findDistinctUserIds() {
+        return mongoTemplate.findDistinct(new Query(), "userId", Note.class, String.class);
+    }
+
+    @Override
+    public List<Note> findActiveNotesAfter(String userId, Note.Priority priority, OffsetDateTime createdFrom,
+                                           NoteCursor after, int limit) {
+        return mongoTemplate.find(activeNotesAfterQuery(userId, priority, createdFrom, after, limit), Note.class);
+    }
+
+    static Query activeNotesAfterQuery(String userId, Note.Priority priority, OffsetDateTime createdFrom,
+                                       NoteCursor after, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("deletedAt").is(null);
+        if (priority != null) {
+            criteria.and("priority").is(priority);
+        } else if (createdFrom != null) {
+            criteria.and("createdAt").gte(createdFrom);
+        }
+        if (after != null) {
+            criteria.orOperator(
+                Criteria.where("createdAt").lt(after.createdAt()),
+                Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id())
+            );
+        }
+
+        return Query.query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+            .limit(limit);
+    }
+
+    @Override
+    public List<Note> findChangedNotes(String userId, NoteCheckpoint since, OffsetDateTime until, int limit) {
+        return mongoTemplate.find(changedNotesQuery(userId, since, until, limit), Note.class);
+    }
+
+    static Query changedNotesQuery(String userId, NoteCheckpoint since, OffsetDateTime until, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (since == null) {
+            criteria.and("deletedAt").is(null).and("changedAt").lte(until);
+        } else if (since.id() == null) {
+            criteria.and("changedAt").gt(since.changedAt()).lte(until);
+        } else {
+            criteria.and("changedAt").lte(until).orOperator(
+                Criteria.where("changedAt").gt(since.changedAt()),
+                Criteria.where("changedAt").is(since.changedAt()).and("id").gt(since.id())
+            );
+        }
+
+        return Query.query(criteria)
+            .with(Sort.by(Sort.Direction.ASC, "changedAt", "id"))
+            .limit(limit);
+    }
+
+    @Override
+    public long backfillChangedAt() {
+        Query legacy = Query.query(Criteria.where("changedAt").is(null)).cursorBatchSize(STREAM_BATCH_SIZE);
+        legacy.fields().include("deletedAt", "updatedAt", "createdAt");
+        List<Pair<UUID, OffsetDateTime>> batch = new ArrayList<>();
+        long updated = 0;
+        try (Stream<Note> notes = mongoTemplate.stream(legacy, Note.class)) {
+            for (Iterator<Note> it = notes.iterator(); it.hasNext(); ) {
+                Note note = it.next();
+                OffsetDateTime changedAt = note.getDeletedAt() != null ? note.getDeletedAt()
+                    : note.getUpdatedAt() != null ? note.getUpdatedAt() : note.getCreatedAt();
+                if (changedAt != null) {
+                    batch.add(Pair.of(note.getId(), changedAt));
+                }
+                if (batch.size() == STREAM_BATCH_SIZE) {
+                    updated += setChangedAt(batch);
+                }
+            }
+        }
+        return updated + setChangedAt(batch);
+    }
+
+    private long setChangedAt(List<Pair<UUID, OffsetDateTime>> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+        for (Pair<UUID, OffsetDateTime> note : batch) {
+            // Unless a write has set it since
+            bulk.updateOne(Query.query(Criteria.where("id").is(note.getFirst()).and("changedAt").is(null)),
+                Update.update("changedAt", note.getSecond()));
+        }
+        batch.clear();
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public Optional<Note> modifyActiveNote(String userId, UUID noteId, Update update) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(activeNoteQuery(userId, noteId), update,
+            FindAndModifyOptions.options().returnNew(false), Note.class));
+    }
+
+    static Query activeNoteQuery(String userId, UUID noteId) {
+        return Query.query(Criteria.where("id").is(noteId)
+            .and("userId").is(userId)
+            .and("deletedAt").is(null));
+    }
+
+    @Override
+    public List<Note> findActiveNotesByIds(String userId, Collection<UUID> noteIds) {
+        return mongoTemplate.find(activeNotesByIdsQuery(userId, noteIds), Note.class);
+    }
+
+    static Query activeNotesByIdsQuery(String userId, Collection<UUID> noteIds) {
+        return Query.query(Criteria.where("id").in(noteIds)
+            .and("userId").is(userId)
+            .and("deletedAt").is(null));
+    }
+
+    @Override
+    public List<Note> findNotesByIds(String userId, Collection<UUID> noteIds) {
+        return mongoTemplate.find(notesByIdsQuery(userId, noteIds), Note.class);
+    }
+
+    static Query notesByIdsQuery(String userId, Collection<UUID> noteIds) {
+        return Query.query(Criteria.where("id").in(noteIds).and("userId").is(userId));
+    }
+
+    /**
+     * Matches the note only while it is active and has not changed since it was read.
+     */
+    static Query unchangedNoteQuery(String userId, Note read) {
+        return activeNoteQuery(userId, read.getId()).addCriteria(Criteria.where("changedAt").is(read.getChangedAt()));
+    }
+
+    @Override
+    public BulkWriteResult bulkWrite(String userId, List<Note> inserts, List<Pair<Note, Update>> updates) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+        if (!inserts.isEmpty()) {
+            bulk.insert(inserts);
+        }
+        for (Pair<Note, Update> update : updates) {
+            bulk.updateOne(unchangedNoteQuery(userId, update.getFirst()), update.getSecond());
+        }
+        return bulk.execute();
+    }
+
+    @Override
+    public Stream<Note> streamNotes(String userId, boolean includeDeleted) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (!includeDeleted) {
+            criteria.and("deletedAt").is(null);
+        }
+        return mongoTemplate.stream(Query.query(criteria).cursorBatchSize(STREAM_BATCH_SIZE), Note.class);
+    }
+
+    @Override
+    public List<ScoredNote> searchActiveNotes(String userId, String text, Note.Priority priority, int limit) {
+        String collection = mongoTemplate.getCollectionName(Note.class);
+        return mongoTemplate.find(searchQuery(userId, text, priority, limit), Document.class, collection).stream()
+            .map(document -> new ScoredNote(
+                mongoTemplate.getConverter().read(Note.class, document),
+                document.get(TEXT_SCORE_FIELD, Number.class).doubleValue()))
+            .toList();
+    }
+
+    /**
+     * Returns raw documents carrying the text score in {@link #TEXT_SCORE_FIELD}.
+     */
+    static Query searchQuery(String userId, String text, Note.Priority priority, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+            .sortByScore()
+            .addCriteria(Criteria.where("userId").is(userId).and("deletedAt").is(null))
+            .limit(limit);
+        if (priority != null) {
+            query.addCriteria(Criteria.where("priority").is(priority));
+        }
+        return query;
+    }
+
+    private static AggregationExpression hoursBetween(String startField, String endField) {
+        return ArithmeticOperators.Divide
+            .valueOf(ArithmeticOperators.Subtract.valueOf(endField).subtract(startField))
+            .divideBy(MILLIS_PER_HOUR);
+    }
+
+    private static Number facetValue(Document result, String facet, String field) {
+        List<Document> values = result.getList(facet, Document.class);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.get(0).get(field, Number.class);
+    }
+
+    private static long facetLong(Document result, String facet, String field) {
+        Number value = facetValue(result, facet, field);
+        return value == null ? 0L : value.longValue();
+    }
+
+    private static double facetDouble(Document result, String facet, String field) {
+        Number value = facetValue(result, facet, field);
+        return value == null ? 0.0 : value.doubleValue();
+    }
+}
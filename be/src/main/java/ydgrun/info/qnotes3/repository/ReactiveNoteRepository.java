@@ -0,0 +1,42 @@
+package ydgrun.info.qnotes3.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link NoteRepository} for the reactive profile. Reactive
+ * repositories cannot return a {@code Page}, so each paged query has a count query beside it.
+ */
+public interface ReactiveNoteRepository extends ReactiveMongoRepository<Note, UUID>, ReactiveNoteRepositoryCustom {
+
+    @Query("{ 'userId': ?0, 'deletedAt': null }")
+    Flux<Note> findAllByUserIdAndNotDeleted(String userId, Pageable pageable);
+
+    @Query(value = "{ 'userId': ?0, 'deletedAt': null }", count = true)
+    Mono<Long> countByUserIdAndNotDeleted(String userId);
+
+    @Query("{ 'userId': ?0, 'priority': ?1, 'deletedAt': null }")
+    Flux<Note> findAllByUserIdAndPriorityAndNotDeleted(String userId, Note.Priority priority, Pageable pageable);
+
+    @Query(value = "{ 'userId': ?0, 'priority': ?1, 'deletedAt': null }", count = true)
+    Mono<Long> countByUserIdAndPriorityAndNotDeleted(String userId, Note.Priority priority);
+
+    @Query("{ 'userId': ?0, 'createdAt': { $gte: ?1 }, 'deletedAt': null }")
+    Flux<Note> findAllByUserIdAndCreatedAtAfterAndNotDeleted(String userId, OffsetDateTime after, Pageable pageable);
+
+    @Query(value = "{ 'userId': ?0, 'createdAt': { $gte: ?1 }, 'deletedAt': null }", count = true)
+    Mono<Long> countByUserIdAndCreatedAtAfterAndNotDeleted(String userId, OffsetDateTime after);
+
+    @Query("{ 'userId': ?0, 'id': ?1, 'deletedAt': null }")
+    Mono<Note> findByUserIdAndIdAndNotDeleted(String userId, UUID id);
+
+    @Query(value = "{ 'userId': ?0, 'updatedAt': { $gte: ?1, $lt: ?2 }, 'priority': { $ne: 'DONE' }, 'deletedAt': null }", count = true)
+    Mono<Long> countOpenNotesUpdatedBetween(String userId, OffsetDateTime from, OffsetDateTime to);
+}
@@ -0,0 +1,44 @@
+package ydgrun.info.qnotes3.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.ScoredNote;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link NoteRepositoryCustom}; each method has the contract of the
+ * method of the same name there.
+ */
+public interface ReactiveNoteRepositoryCustom {
+
+    Mono<NoteStatistics> aggregateStatistics(String userId, OffsetDateTime staleThreshold);
+
+    Mono<Map<String, Long>> countOpenNotesByUpdatedDay(String userId);
+
+    Flux<Note> findActiveNotesAfter(String userId, Note.Priority priority, OffsetDateTime createdFrom,
+                                    NoteCursor after, int limit);
+
+    Flux<Note> findChangedNotes(String userId, NoteCheckpoint since, OffsetDateTime until, int limit);
+
+    Mono<Note> modifyActiveNote(String userId, UUID noteId, Update update);
+
+    Flux<Note> findActiveNotesByIds(String userId, Collection<UUID> noteIds);
+
+    Flux<Note> findNotesByIds(String userId, Collection<UUID> noteIds);
+
+    Mono<BulkWriteResult> bulkWrite(String userId, List<Note> inserts, List<Pair<Note, Update>> updates);
+
+    Flux<ScoredNote> searchActiveNotes(String userId, String text, Note.Priority priority, int limit);
+}
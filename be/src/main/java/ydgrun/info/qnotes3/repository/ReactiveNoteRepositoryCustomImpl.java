@@ -0,0 +1,108 @@
+package ydgrun.info.qnotes3.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.ScoredNote;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ReactiveNoteRepositoryCustomImpl implements ReactiveNoteRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveNoteRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<NoteStatistics> aggregateStatistics(String userId, OffsetDateTime staleThreshold) {
+        return mongoTemplate.aggregate(NoteRepositoryCustomImpl.statisticsAggregation(userId, staleThreshold),
+                Note.class, Document.class)
+            .next()
+            .map(NoteRepositoryCustomImpl::toStatistics)
+            .defaultIfEmpty(NoteStatistics.EMPTY);
+    }
+
+    @Override
+    public Mono<Map<String, Long>> countOpenNotesByUpdatedDay(String userId) {
+        return mongoTemplate.aggregate(NoteRepositoryCustomImpl.openNotesByUpdatedDayAggregation(userId),
+                Note.class, Document.class)
+            .collect(HashMap::new, (countsByDay, day) ->
+                countsByDay.put(day.getString("_id"), day.get("count", Number.class).longValue()));
+    }
+
+    @Override
+    public Flux<Note> findActiveNotesAfter(String userId, Note.Priority priority, OffsetDateTime createdFrom,
+                                           NoteCursor after, int limit) {
+        return mongoTemplate.find(
+            NoteRepositoryCustomImpl.activeNotesAfterQuery(userId, priority, createdFrom, after, limit), Note.class);
+    }
+
+    @Override
+    public Flux<Note> findChangedNotes(String userId, NoteCheckpoint since, OffsetDateTime until, int limit) {
+        return mongoTemplate.find(NoteRepositoryCustomImpl.changedNotesQuery(userId, since, until, limit), Note.class);
+    }
+
+    @Override
+    public Mono<Note> modifyActiveNote(String userId, UUID noteId, Update update) {
+        return mongoTemplate.findAndModify(NoteRepositoryCustomImpl.activeNoteQuery(userId, noteId), update,
+            FindAndModifyOptions.options().returnNew(false), Note.class);
+    }
+
+    @Override
+    public Flux<Note> findActiveNotesByIds(String userId, Collection<UUID> noteIds) {
+        return mongoTemplate.find(NoteRepositoryCustomImpl.activeNotesByIdsQuery(userId, noteIds), Note.class);
+    }
+
+    @Override
+    public Flux<Note> findNotesByIds(String userId, Collection<UUID> noteIds) {
+        return mongoTemplate.find(NoteRepositoryCustomImpl.notesByIdsQuery(userId, noteIds), Note.class);
+    }
+
+    /**
+     * Unlike the blocking template, the reactive one translates bulk write failures into generic
+     * data access exceptions; they are turned back into {@link BulkOperationException} so callers
+     * can tell which writes failed.
+     */
+    @Override
+    public Mono<BulkWriteResult> bulkWrite(String userId, List<Note> inserts, List<Pair<Note, Update>> updates) {
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+        if (!inserts.isEmpty()) {
+            bulk.insert(inserts);
+        }
+        for (Pair<Note, Update> update : updates) {
+            bulk.updateOne(NoteRepositoryCustomImpl.unchangedNoteQuery(userId, update.getFirst()), update.getSecond());
+        }
+        return bulk.execute()
+            .onErrorMap(e -> e.getCause() instanceof MongoBulkWriteException,
+                e -> new BulkOperationException(e.getMessage(), (MongoBulkWriteException) e.getCause()));
+    }
+
+    @Override
+    public Flux<ScoredNote> searchActiveNotes(String userId, String text, Note.Priority priority, int limit) {
+        String collection = mongoTemplate.getCollectionName(Note.class);
+        return mongoTemplate.find(NoteRepositoryCustomImpl.searchQuery(userId, text, priority, limit), Document.class,
+                collection)
+            .map(document -> new ScoredNote(
+                mongoTemplate.getConverter().read(Note.class, document),
+                document.get(NoteRepositoryCustomImpl.TEXT_SCORE_FIELD, Number.class).doubleValue()));
+    }
+}
@@ -0,0 +1,10 @@
+package ydgrun.info.qnotes3.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.User;
+
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+    Mono<Boolean> existsByUsername(String username);
+    Mono<User> findByUsername(String username);
+}
@@ -0,0 +1,7 @@
+package ydgrun.info.qnotes3.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import ydgrun.info.qnotes3.domain.UserStats;
+
+public interface ReactiveUserStatsRepository extends ReactiveMongoRepository<UserStats, String> {
+}
@@ -0,0 +1,7 @@
+package ydgrun.info.qnotes3.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import ydgrun.info.qnotes3.domain.UserStats;
+
+public interface UserStatsRepository extends MongoRepository<UserStats, String> {
+}
@@ -1,26 +1,129 @@
 package ydgrun.info.qnotes3.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies HS256 access tokens. Keys come from {@code jwt.keys}, so that every instance
+ * behind a load balancer accepts the tokens of every other one and tokens survive restarts. Each
+ * token names its key in the {@code kid} header; tokens are signed with {@code jwt.signing-key-id}
+ * and verified with whichever configured key they name.
+ * <p>
+ * To rotate, add the new key to every instance, then make it the signing key, and remove the old
+ * one once the tokens it signed have expired ({@code jwt.expiration}).
+ */
 @Service
 public class JwtService {
+    private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+
+    private final Map<String, SecretKey> verificationKeys;
+    private final String signingKeyId;
     private final SecretKey signingKey;
     private final long jwtExpiration;
+    private final JwtParser jwtParser;
+    // Claims of tokens whose signature has already been verified, dropped when the token expires
+    private final Cache<String, Claims> verifiedClaims;
 
-    public JwtService(@Value("${jwt.expiration}") long jwtExpiration) {
-        this.signingKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    /**
+     * @param keys         {@code <kid>:<base64 secret>} entries; secrets need at least 256 bits. When
+     *                     empty, a random key is generated, which only this process accepts
+     * @param signingKeyId kid of the key new tokens are signed with; empty for the first key
+     */
+    public JwtService(@Value("${jwt.expiration}") long jwtExpiration,
+                      @Value("${jwt.cache.max-size}") long cacheMaxSize,
+                      @Value("${jwt.keys}") List<String> keys,
+                      @Value("${jwt.signing-key-id}") String signingKeyId) {
+        this.verificationKeys = parseKeys(keys);
+        if (verificationKeys.isEmpty()) {
+            String generatedKeyId = UUID.randomUUID().toString();
+            logger.warn("jwt.keys is not set; signing with a generated key that other instances reject "
+                    + "and that is lost on restart");
+            verificationKeys.put(generatedKeyId, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+        }
+        this.signingKeyId = signingKeyId.isBlank() ? verificationKeys.keySet().iterator().next() : signingKeyId;
+        this.signingKey = verificationKeys.get(this.signingKeyId);
+        if (signingKey == null) {
+            throw new IllegalArgumentException("jwt.signing-key-id " + signingKeyId + " is not one of jwt.keys");
+        }
         this.jwtExpiration = jwtExpiration;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        SecretKey key = header.getKeyId() == null ? null : verificationKeys.get(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Token is signed with unknown key " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    static Map<String, SecretKey> parseKeys(List<String> keys) {
+        Map<String, SecretKey> parsed = new LinkedHashMap<>();
+        for (String entry : keys) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("jwt.keys entries must look like <kid>:<base64 secret>");
+            }
+            String keyId = entry.substring(0, separator).trim();
+            SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(entry.substring(separator + 1).trim()));
+            if (parsed.put(keyId, key) != null) {
+                throw new IllegalArgumentException("jwt.keys lists key " + keyId + " twice");
+            }
+        }
+        return parsed;
     }
 
     public String generateToken(String username) {
@@ -36,13 +139,31 @@ public class JwtService {
         return !isTokenExpired(token);
     }
 
+    /**
+     * Verifies the token once and returns its subject, or null if it has expired.
+     * Repeated calls with the same token are served from the verified-claims cache.
+     */
+    public String extractValidUsername(String token) {
+        Claims claims = extractAllClaims(token);
+        return claims.getExpiration().before(new Date()) ? null : claims.getSubject();
+    }
+
+    /**
+     * Time until the token expires, negative once it has; served from the verified-claims cache for
+     * a token that passed {@link #extractValidUsername}.
+     */
+    public Duration remainingLifetime(String token) {
+        return Duration.between(Instant.now(), extractExpiration(token).toInstant());
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeyId)
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(signingKey)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -52,11 +173,12 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = verifiedClaims.getIfPresent(token);
+        if (claims == null) {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+            verifiedClaims.put(token, claims);
+        }
+        return claims;
     }
 
     private boolean isTokenExpired(String token) {
@@ -66,4 +188,4 @@ public class JwtService {
     private Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
-}
\ No newline at end of file
+}
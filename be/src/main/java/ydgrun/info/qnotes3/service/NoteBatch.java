@@ -0,0 +1,260 @@
+package ydgrun.info.qnotes3.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+import ydgrun.info.qnotes3.domain.NoteBatchResult;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One batch of note operations, shared by {@link NoteService#executeBatch} and
+ * {@link ReactiveNoteService#executeBatch}: folds the operations onto the notes they reference,
+ * then yields the writes, and once the bulk write has failed or succeeded, the results, the
+ * statistics delta and the changes to publish.
+ */
+final class NoteBatch {
+    private final NoteBatchResult[] results;
+    private final Map<UUID, Note> originals = new HashMap<>();
+    private final Map<UUID, Note> working = new HashMap<>();
+    private final List<Note> inserts = new ArrayList<>();
+    private final List<Integer> insertItems = new ArrayList<>();
+    private final Map<UUID, List<Integer>> itemsByNote = new LinkedHashMap<>();
+    private final List<UUID> updatedIds;
+    private final Set<Integer> failedWrites = new HashSet<>();
+
+    /**
+     * Ids of the existing notes the operations refer to, to be read before folding.
+     */
+    static Set<UUID> referencedIds(List<NoteBatchOperation> operations) {
+        return operations.stream()
+            .filter(operation -> operation.type() != NoteBatchOperation.Type.CREATE && operation.id() != null)
+            .map(NoteBatchOperation::id)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * @param referenced the user's active notes among {@link #referencedIds}
+     */
+    NoteBatch(String userId, List<NoteBatchOperation> operations, Collection<Note> referenced, OffsetDateTime now) {
+        results = new NoteBatchResult[operations.size()];
+        for (Note note : referenced) {
+            originals.put(note.getId(), note);
+            working.put(note.getId(), note.copy());
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            NoteBatchOperation operation = operations.get(i);
+            String error = validate(operation);
+            if (error != null) {
+                results[i] = NoteBatchResult.rejected(i, NoteBatchResult.Status.INVALID, operation.id(), error);
+                continue;
+            }
+            if (operation.type() == NoteBatchOperation.Type.CREATE) {
+                Note note = NoteService.newNote(userId, operation.title(), operation.content(), operation.priority(), now);
+                inserts.add(note);
+                insertItems.add(i);
+                results[i] = NoteBatchResult.applied(i, NoteBatchResult.Status.CREATED, note.getId());
+                continue;
+            }
+
+            Note note = working.get(operation.id());
+            if (note == null || note.getDeletedAt() != null) {
+                results[i] = NoteBatchResult.rejected(i, NoteBatchResult.Status.NOT_FOUND, operation.id(), "Note not found");
+                continue;
+            }
+            switch (operation.type()) {
+                case UPDATE -> {
+                    if (operation.title() != null) {
+                        note.setTitle(operation.title());
+                    }
+                    if (operation.content() != null) {
+                        note.setContent(operation.content());
+                    }
+                    if (operation.priority() != null) {
+                        note.setPriority(operation.priority());
+                    }
+                    note.setUpdatedAt(now);
+                }
+                case SET_PRIORITY -> {
+                    note.setPriority(operation.priority());
+                    note.setUpdatedAt(now);
+                }
+                default -> note.setDeletedAt(now);
+            }
+            note.setChangedAt(now);
+            itemsByNote.computeIfAbsent(note.getId(), id -> new ArrayList<>()).add(i);
+            results[i] = NoteBatchResult.applied(i,
+                operation.type() == NoteBatchOperation.Type.DELETE
+                    ? NoteBatchResult.Status.DELETED
+                    : NoteBatchResult.Status.UPDATED,
+                note.getId());
+        }
+        updatedIds = new ArrayList<>(itemsByNote.keySet());
+    }
+
+    boolean hasWrites() {
+        return !inserts.isEmpty() || !updatedIds.isEmpty();
+    }
+
+    List<Note> inserts() {
+        return inserts;
+    }
+
+    /**
+     * One update per changed note, folding all of its operations, in the order the bulk write
+     * indexes them after the inserts.
+     */
+    List<Pair<Note, Update>> updates() {
+        return updatedIds.stream()
+            .map(id -> Pair.of(originals.get(id), changes(originals.get(id), working.get(id))))
+            .toList();
+    }
+
+    List<UUID> updatedIds() {
+        return updatedIds;
+    }
+
+    /**
+     * Marks every operation behind the failed write as FAILED.
+     */
+    void fail(BulkWriteError writeError) {
+        fail(writeError.getIndex(), NoteBatchResult.Status.FAILED, writeError.getMessage());
+    }
+
+    /**
+     * Whether fewer notes matched than were updated without an error: some were deleted or
+     * changed by another request after they were read.
+     */
+    boolean missedUpdates(BulkWriteResult result) {
+        long updatesWithoutError = updatedIds.size()
+            - failedWrites.stream().filter(index -> index >= inserts.size()).count();
+        return result.getMatchedCount() < updatesWithoutError;
+    }
+
+    /**
+     * Marks the operations on every updated note that does not carry this batch's changedAt as
+     * NOT_FOUND when it is gone or deleted, and as FAILED when another request changed it first.
+     *
+     * @param current the updated notes as read after the bulk write, deleted ones included
+     */
+    void failMissedUpdates(Collection<Note> current) {
+        Map<UUID, Note> currentById = current.stream().collect(Collectors.toMap(Note::getId, Function.identity()));
+        for (int i = 0; i < updatedIds.size(); i++) {
+            int writeIndex = inserts.size() + i;
+            UUID id = updatedIds.get(i);
+            Note note = currentById.get(id);
+            if (failedWrites.contains(writeIndex)
+                || note != null && sameInstant(note.getChangedAt(), working.get(id).getChangedAt())) {
+                continue;
+            }
+            if (note == null || note.getDeletedAt() != null) {
+                fail(writeIndex, NoteBatchResult.Status.NOT_FOUND, "Note not found");
+            } else {
+                fail(writeIndex, NoteBatchResult.Status.FAILED, "Note was changed by another request");
+            }
+        }
+    }
+
+    private void fail(int writeIndex, NoteBatchResult.Status status, String message) {
+        failedWrites.add(writeIndex);
+        List<Integer> items = writeIndex < inserts.size()
+            ? List.of(insertItems.get(writeIndex))
+            : itemsByNote.get(updatedIds.get(writeIndex - inserts.size()));
+        for (int item : items) {
+            results[item] = NoteBatchResult.rejected(item, status, results[item].id(), message);
+        }
+    }
+
+    /**
+     * Mongo keeps milliseconds, so a value read back only equals the written one to the millisecond.
+     */
+    private static boolean sameInstant(OffsetDateTime stored, OffsetDateTime written) {
+        return stored != null && written != null
+            && stored.toInstant().toEpochMilli() == written.toInstant().toEpochMilli();
+    }
+
+    /**
+     * Statistics change of the writes that succeeded.
+     */
+    UserStatsDelta delta() {
+        UserStatsDelta delta = new UserStatsDelta();
+        forEachChange(delta::change);
+        return delta;
+    }
+
+    /**
+     * Calls {@code listener} with the before and after state of each note written successfully,
+     * inserts first.
+     */
+    void forEachChange(BiConsumer<Note, Note> listener) {
+        for (int i = 0; i < inserts.size(); i++) {
+            if (!failedWrites.contains(i)) {
+                listener.accept(null, inserts.get(i));
+            }
+        }
+        for (int i = 0; i < updatedIds.size(); i++) {
+            if (!failedWrites.contains(inserts.size() + i)) {
+                UUID id = updatedIds.get(i);
+                listener.accept(originals.get(id), working.get(id));
+            }
+        }
+    }
+
+    List<NoteBatchResult> results() {
+        return Arrays.asList(results);
+    }
+
+    private static String validate(NoteBatchOperation operation) {
+        if (operation.type() == null) {
+            return "Operation type is required";
+        }
+        return switch (operation.type()) {
+            case CREATE -> operation.title() == null || operation.content() == null || operation.priority() == null
+                ? "Title, content and priority are required"
+                : null;
+            case UPDATE -> operation.id() == null ? "Note id is required" : null;
+            case SET_PRIORITY -> operation.id() == null || operation.priority() == null
+                ? "Note id and priority are required"
+                : null;
+            case DELETE -> operation.id() == null ? "Note id is required" : null;
+        };
+    }
+
+    private static Update changes(Note before, Note after) {
+        Update update = new Update();
+        if (!Objects.equals(before.getTitle(), after.getTitle())) {
+            update.set("title", after.getTitle());
+        }
+        if (!Objects.equals(before.getContent(), after.getContent())) {
+            update.set("content", after.getContent());
+        }
+        if (before.getPriority() != after.getPriority()) {
+            update.set("priority", after.getPriority());
+        }
+        if (!Objects.equals(before.getUpdatedAt(), after.getUpdatedAt())) {
+            update.set("updatedAt", after.getUpdatedAt());
+        }
+        if (after.getDeletedAt() != null) {
+            update.set("deletedAt", after.getDeletedAt());
+        }
+        return update.set("changedAt", after.getChangedAt());
+    }
+}
@@ -0,0 +1,23 @@
+package ydgrun.info.qnotes3.service;
+
+import ydgrun.info.qnotes3.domain.Note;
+
+/**
+ * Notified by {@link NoteService} and {@link NoteImportService} after a note has been written, and
+ * by {@link NoteChangeStreamListener} after another instance wrote one.
+ * Called on the writing thread, so implementations must be cheap and must not throw.
+ */
+public interface NoteChangeListener {
+
+    /**
+     * @param before the note as it was, or {@code null} when it was created or written by another instance
+     * @param after  the note as it is now; its {@code deletedAt} is set when it was deleted
+     */
+    void onNoteChanged(Note before, Note after);
+
+    /**
+     * Writes of other instances may have been missed; whatever was derived from notes may be stale.
+     */
+    default void onChangesMissed() {
+    }
+}
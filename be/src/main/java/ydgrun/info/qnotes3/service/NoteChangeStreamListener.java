@@ -0,0 +1,248 @@
+package ydgrun.info.qnotes3.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.ChangeStreamToken;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Follows the change stream of the notes collection and passes the writes of other instances to
+ * the local {@link NoteChangeListener}s, so that their caches, search indexes and event streams
+ * see them too. Needs a replica set (a single node is enough) and nothing else.
+ * <p>
+ * Writes of this instance have already been published by the service that made them; they are
+ * recognized by their {@code changedAt} and skipped. One that arrives before its own publication
+ * is delivered twice, which listeners tolerate.
+ * <p>
+ * The resume token of the last change is saved under {@code notes.change-stream.node-id} every
+ * {@code notes.change-stream.token-save-interval} and when the instance stops; after a failure or
+ * a restart, the stream resumes there. When the oplog no longer goes back that far, the stream
+ * starts over from the present and the listeners are told that changes were missed.
+ */
+@Service
+@ConditionalOnProperty(name = "notes.change-stream.enabled", havingValue = "true")
+public class NoteChangeStreamListener implements NoteChangeListener, SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(NoteChangeStreamListener.class);
+    // Notes are only soft-deleted; hard deletes carry no owner to route them to
+    private static final List<Bson> PIPELINE = List.of(
+        Aggregates.match(Filters.in("operationType", "insert", "update", "replace")));
+    // How long a poll waits for changes, and so how long stopping takes at most
+    private static final Duration POLL_TIME = Duration.ofSeconds(1);
+    private static final int NOT_A_REPLICA_SET = 40573;
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> RESUME_FAILED = Set.of(260, 280, 286);
+    private static final int LOCAL_WRITES_SIZE = 10_000;
+    private static final Duration LOCAL_WRITES_TTL = Duration.ofMinutes(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final List<NoteChangeListener> listeners;
+    private final String nodeId;
+    private final Duration retryDelay;
+    private final long tokenSaveIntervalNanos;
+    private final Counter remoteChanges;
+    // changedAt of the notes this instance wrote recently
+    private final Cache<UUID, OffsetDateTime> localWrites = Caffeine.newBuilder()
+        .maximumSize(LOCAL_WRITES_SIZE)
+        .expireAfterWrite(LOCAL_WRITES_TTL)
+        .build();
+
+    private volatile boolean running;
+    private Thread thread;
+    // Only used by the thread, apart from loading it before the thread starts
+    private BsonDocument resumeToken;
+    private BsonDocument savedToken;
+    private long savedAt;
+
+    public NoteChangeStreamListener(MongoTemplate mongoTemplate, List<NoteChangeListener> listeners,
+                                    @Value("${notes.change-stream.node-id}") String nodeId,
+                                    @Value("${notes.change-stream.retry-delay}") Duration retryDelay,
+                                    @Value("${notes.change-stream.token-save-interval}") Duration tokenSaveInterval,
+                                    MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.listeners = listeners;
+        this.nodeId = nodeId;
+        this.retryDelay = retryDelay;
+        this.tokenSaveIntervalNanos = tokenSaveInterval.toNanos();
+        this.remoteChanges = Counter.builder("notes.remote.changes")
+            .description("Note writes of other instances passed to the local listeners")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void onNoteChanged(Note before, Note after) {
+        if (after.getChangedAt() != null) {
+            localWrites.put(after.getId(), after.getChangedAt().truncatedTo(ChronoUnit.MILLIS));
+        }
+    }
+
+    /**
+     * Before the web server, so that no request is served before other instances' writes are followed.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public synchronized void start() {
+        ChangeStreamToken stored = mongoTemplate.findById(nodeId, ChangeStreamToken.class);
+        resumeToken = stored != null ? BsonDocument.parse(stored.getToken()) : null;
+        savedToken = resumeToken;
+        running = true;
+        // Opened here so that changes are followed from the moment the instance has started
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = null;
+        try {
+            cursor = open();
+        } catch (MongoException e) {
+            // The thread opens it again and handles the failure
+        }
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> firstCursor = cursor;
+        thread = Thread.ofPlatform().name("note-change-stream").daemon().start(() -> follow(firstCursor));
+        logger.info("Following note changes of other instances as node {}, {}", nodeId,
+            resumeToken != null ? "resuming from " + stored.getSavedAt() : "from now");
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(POLL_TIME.multipliedBy(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void follow(MongoChangeStreamCursor<ChangeStreamDocument<Document>> firstCursor) {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = firstCursor;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = opened != null ? opened : open()) {
+                opened = null;
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        publish(change);
+                    }
+                    // Advances on idle polls too, so that a quiet stream does not fall off the oplog
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    saveTokenIfDue();
+                }
+            } catch (MongoException e) {
+                if (e.getCode() == NOT_A_REPLICA_SET) {
+                    logger.warn("Change streams need a replica set; writes of other instances will not be seen");
+                    running = false;
+                    return;
+                }
+                if (resumeToken != null && RESUME_FAILED.contains(e.getCode())) {
+                    logger.warn("Cannot resume the note change stream, starting over: {}", e.getMessage());
+                    resumeToken = null;
+                    missed();
+                    continue;
+                }
+                retryLater(e);
+            } catch (RuntimeException e) {
+                retryLater(e);
+            }
+        }
+        saveToken();
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        var stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Note.class))
+            .watch(PIPELINE)
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .maxAwaitTime(POLL_TIME.toMillis(), TimeUnit.MILLISECONDS);
+        return (resumeToken != null ? stream.startAfter(resumeToken) : stream).cursor();
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        // Null when the note has been removed since
+        Document document = change.getFullDocument();
+        if (document == null) {
+            return;
+        }
+        Note note = mongoTemplate.getConverter().read(Note.class, document);
+        OffsetDateTime localWrite = localWrites.getIfPresent(note.getId());
+        if (localWrite != null && note.getChangedAt() != null
+                && localWrite.toInstant().equals(note.getChangedAt().toInstant())) {
+            return;
+        }
+        remoteChanges.increment();
+        for (NoteChangeListener listener : listeners) {
+            listener.onNoteChanged(null, note);
+        }
+    }
+
+    private void missed() {
+        for (NoteChangeListener listener : listeners) {
+            listener.onChangesMissed();
+        }
+    }
+
+    private void retryLater(RuntimeException e) {
+        logger.warn("Note change stream failed, resuming in {}: {}", retryDelay, e.toString());
+        LockSupport.parkNanos(retryDelay.toNanos());
+    }
+
+    private void saveTokenIfDue() {
+        if (System.nanoTime() - savedAt >= tokenSaveIntervalNanos) {
+            saveToken();
+        }
+    }
+
+    private void saveToken() {
+        if (resumeToken == null || resumeToken.equals(savedToken)) {
+            return;
+        }
+        savedAt = System.nanoTime();
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)),
+                Update.update("token", resumeToken.toJson()).set("savedAt", OffsetDateTime.now()),
+                ChangeStreamToken.class);
+            savedToken = resumeToken;
+        } catch (RuntimeException e) {
+            logger.warn("Could not save the note change stream position: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pushes every note write to the open event streams of its owner, with the user's statistics
+ * recomputed after each burst of changes, at most once per {@code notes.events.statistics-interval}.
+ * The streams of one user share their statistics: computed once per change or interval, whichever
+ * comes first, and handed to every stream of that user that asks meanwhile.
+ * Writers only append to each subscription's bounded buffer (see {@link NoteEventSubscription}),
+ * so a slow client neither slows down writes nor holds more than {@code notes.events.buffer-size}
+ * notes in memory.
+ * <p>
+ * Each subscription is drained by a virtual thread of its own, which stays parked while the stream
+ * is idle: an open stream costs its buffer and a parked thread, not a platform thread. The number
+ * of open streams is published as {@code notes.events.subscribers} and the changes dropped for a
+ * resync as {@code notes.events.dropped}.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class NoteEventBus implements NoteChangeListener, DisposableBean {
+    private final UserStatsService userStatsService;
+    private final int bufferSize;
+    private final Duration statisticsInterval;
+    private final Duration heartbeatInterval;
+    private final Map<String, UserStreams> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("note-events-", 0).factory());
+    private final Counter dropped;
+
+    public NoteEventBus(UserStatsService userStatsService,
+                        @Value("${notes.events.buffer-size}") int bufferSize,
+                        @Value("${notes.events.statistics-interval}") Duration statisticsInterval,
+                        @Value("${notes.events.heartbeat-interval}") Duration heartbeatInterval,
+                        MeterRegistry meterRegistry) {
+        this.userStatsService = userStatsService;
+        this.bufferSize = bufferSize;
+        this.statisticsInterval = statisticsInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        meterRegistry.gauge("notes.events.subscribers", subscriberCount);
+        this.dropped = Counter.builder("notes.events.dropped")
+            .description("Note changes dropped because a subscriber fell behind; it was told to resync instead")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts sending the user's note changes to {@code sink}, beginning with their statistics,
+     * until the returned subscription is closed or the sink fails.
+     */
+    public NoteEventSubscription subscribe(String userId, NoteEventSink sink) {
+        AtomicReference<NoteEventSubscription> created = new AtomicReference<>();
+        streams.compute(userId, (id, userStreams) -> {
+            UserStreams updated = userStreams != null ? userStreams : new UserStreams(userId);
+            NoteEventSubscription subscription = new NoteEventSubscription(userId, sink, updated.statistics,
+                this::unsubscribe, bufferSize, statisticsInterval, heartbeatInterval);
+            updated.subscriptions.add(subscription);
+            created.set(subscription);
+            return updated;
+        });
+        NoteEventSubscription subscription = created.get();
+        subscriberCount.incrementAndGet();
+        executor.execute(subscription);
+        return subscription;
+    }
+
+    @Override
+    public void onNoteChanged(Note before, Note after) {
+        UserStreams userStreams = streams.get(after.getUserId());
+        if (userStreams == null) {
+            return;
+        }
+        // Before the streams are woken up, so that none of them is handed the statistics from before
+        userStreams.statistics.changed();
+        for (NoteEventSubscription subscription : userStreams.subscriptions) {
+            int droppedChanges = subscription.offer(after);
+            if (droppedChanges > 0) {
+                dropped.increment(droppedChanges);
+            }
+        }
+    }
+
+    /**
+     * Tells every stream to resync, as the changes it missed are unknown.
+     */
+    @Override
+    public void onChangesMissed() {
+        streams.values().forEach(userStreams -> {
+            userStreams.statistics.changed();
+            userStreams.subscriptions.forEach(NoteEventSubscription::resync);
+        });
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void unsubscribe(NoteEventSubscription subscription) {
+        streams.computeIfPresent(subscription.userId(), (id, userStreams) -> {
+            if (userStreams.subscriptions.remove(subscription)) {
+                subscriberCount.decrementAndGet();
+            }
+            return userStreams.subscriptions.isEmpty() ? null : userStreams;
+        });
+    }
+
+    /**
+     * Ends every stream, so that clients reconnect to another instance.
+     */
+    @Override
+    public void destroy() {
+        streams.values().stream()
+            .flatMap(userStreams -> userStreams.subscriptions.stream())
+            .toList()
+            .forEach(NoteEventSubscription::close);
+        executor.shutdownNow();
+    }
+
+    /**
+     * The open streams of one user and the statistics they share.
+     */
+    private final class UserStreams {
+        final Set<NoteEventSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+        final SharedStatistics statistics;
+
+        UserStreams(String userId) {
+            this.statistics = new SharedStatistics(userId);
+        }
+    }
+
+    /**
+     * Computes the statistics of a user again only after a change or once they are a statistics
+     * interval old; streams asking while they are being computed wait for that computation.
+     */
+    private final class SharedStatistics implements Supplier<NoteStatistics> {
+        private final String userId;
+        private final AtomicLong changes = new AtomicLong();
+        private final ReentrantLock lock = new ReentrantLock();
+        private NoteStatistics statistics;
+        private long computedForChanges;
+        private long computedAt;
+
+        SharedStatistics(String userId) {
+            this.userId = userId;
+        }
+
+        void changed() {
+            changes.incrementAndGet();
+        }
+
+        @Override
+        public NoteStatistics get() {
+            lock.lock();
+            try {
+                long currentChanges = changes.get();
+                if (statistics == null || computedForChanges != currentChanges
+                        || System.nanoTime() - computedAt >= statisticsInterval.toNanos()) {
+                    computedAt = System.nanoTime();
+                    statistics = userStatsService.getStatistics(userId);
+                    computedForChanges = currentChanges;
+                }
+                return statistics;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
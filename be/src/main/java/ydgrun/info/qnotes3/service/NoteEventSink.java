@@ -0,0 +1,38 @@
+package ydgrun.info.qnotes3.service;
+
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+
+import java.io.IOException;
+
+/**
+ * Receives the events of one {@link NoteEventSubscription}, one call at a time, on the thread that
+ * drains it. A call that throws ends the subscription.
+ */
+public interface NoteEventSink {
+
+    /**
+     * @param note the latest state of a note created, updated or deleted since the previous call
+     */
+    void note(Note note) throws IOException;
+
+    /**
+     * @param statistics the user's statistics, recomputed after their notes changed
+     */
+    void statistics(NoteStatistics statistics) throws IOException;
+
+    /**
+     * Changes were dropped because the sink fell behind; the client has to fetch them itself.
+     */
+    void resync() throws IOException;
+
+    /**
+     * Nothing happened for a while.
+     */
+    void heartbeat() throws IOException;
+
+    /**
+     * The subscription has ended, however it ended; called once.
+     */
+    void complete();
+}
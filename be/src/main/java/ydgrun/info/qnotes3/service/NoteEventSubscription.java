@@ -0,0 +1,186 @@
+package ydgrun.info.qnotes3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One open event stream of a user, with a bounded buffer between the writers that publish changes
+ * and the thread that sends them. Changes of the same note are coalesced into its latest state;
+ * once the buffer holds {@code bufferSize} different notes, they are all dropped for a single
+ * resync event, and further changes are dropped until it has been sent.
+ */
+public final class NoteEventSubscription implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventSubscription.class);
+
+    private final String userId;
+    private final NoteEventSink sink;
+    private final Supplier<NoteStatistics> statistics;
+    private final Consumer<NoteEventSubscription> onClose;
+    private final int bufferSize;
+    private final long statisticsIntervalNanos;
+    private final long heartbeatIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Latest state of each note not sent yet, in the order of their first change
+    private Map<UUID, Note> pendingNotes = new LinkedHashMap<>();
+    // The first statistics event carries all of them
+    private boolean statisticsPending = true;
+    private boolean resyncPending;
+    private boolean closed;
+
+    NoteEventSubscription(String userId, NoteEventSink sink, Supplier<NoteStatistics> statistics,
+                          Consumer<NoteEventSubscription> onClose,
+                          int bufferSize, Duration statisticsInterval, Duration heartbeatInterval) {
+        this.userId = userId;
+        this.sink = sink;
+        this.statistics = statistics;
+        this.onClose = onClose;
+        this.bufferSize = bufferSize;
+        this.statisticsIntervalNanos = statisticsInterval.toNanos();
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+    }
+
+    String userId() {
+        return userId;
+    }
+
+    /**
+     * Buffers the change without blocking on the sink.
+     *
+     * @return the number of changes dropped to make room, including this one
+     */
+    int offer(Note note) {
+        lock.lock();
+        try {
+            if (closed) {
+                return 0;
+            }
+            statisticsPending = true;
+            int dropped = 0;
+            if (resyncPending) {
+                dropped = 1;
+            } else if (pendingNotes.size() >= bufferSize && !pendingNotes.containsKey(note.getId())) {
+                dropped = pendingNotes.size() + 1;
+                pendingNotes.clear();
+                resyncPending = true;
+            } else {
+                pendingNotes.put(note.getId(), note);
+            }
+            changed.signal();
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the buffered changes with a resync event.
+     */
+    void resync() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            pendingNotes.clear();
+            resyncPending = true;
+            statisticsPending = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends buffered events until the subscription is closed or the sink fails; parks in between.
+     */
+    @Override
+    public void run() {
+        long lastStatistics = System.nanoTime() - statisticsIntervalNanos;
+        try {
+            while (true) {
+                Map<UUID, Note> notes;
+                boolean resync;
+                boolean statisticsDue;
+                lock.lock();
+                try {
+                    long heartbeatAt = System.nanoTime() + heartbeatIntervalNanos;
+                    while (!closed && pendingNotes.isEmpty() && !resyncPending) {
+                        long now = System.nanoTime();
+                        long wait = heartbeatAt - now;
+                        if (statisticsPending) {
+                            wait = Math.min(wait, lastStatistics + statisticsIntervalNanos - now);
+                        }
+                        if (wait <= 0) {
+                            break;
+                        }
+                        changed.awaitNanos(wait);
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    notes = pendingNotes;
+                    pendingNotes = new LinkedHashMap<>();
+                    resync = resyncPending;
+                    resyncPending = false;
+                    statisticsDue = statisticsPending && System.nanoTime() - lastStatistics >= statisticsIntervalNanos;
+                    if (statisticsDue) {
+                        statisticsPending = false;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                if (resync) {
+                    sink.resync();
+                }
+                for (Note note : notes.values()) {
+                    sink.note(note);
+                }
+                if (statisticsDue) {
+                    lastStatistics = System.nanoTime();
+                    sink.statistics(statistics.get());
+                }
+                if (!resync && notes.isEmpty() && !statisticsDue) {
+                    sink.heartbeat();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.debug("Closing note events of user {}: {}", userId, e.toString());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Ends the subscription; safe to call more than once and from any thread.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        onClose.accept(this);
+        sink.complete();
+    }
+}
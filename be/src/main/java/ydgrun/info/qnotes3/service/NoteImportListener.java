@@ -0,0 +1,19 @@
+package ydgrun.info.qnotes3.service;
+
+import ydgrun.info.qnotes3.domain.NoteImportProgress;
+
+import java.io.IOException;
+
+/**
+ * Receives the outcome of an import while it runs, so that it can be reported to the client
+ * without keeping the errors in memory.
+ */
+public interface NoteImportListener {
+
+    void onError(long line, String message) throws IOException;
+
+    /**
+     * Called after every inserted batch.
+     */
+    void onProgress(NoteImportProgress progress) throws IOException;
+}
@@ -0,0 +1,226 @@
+package ydgrun.info.qnotes3.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteImportProgress;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Imports notes from newline-delimited JSON. Records are read one at a time with the Jackson
+ * streaming parser and inserted in batches, and the next batch is only read once the previous
+ * one is stored, so a fast client is throttled by TCP flow control instead of filling the heap.
+ */
+@Service
+public class NoteImportService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteImportService.class);
+    private static final int MAX_TITLE_LENGTH = 255;
+
+    private final NoteRepository noteRepository;
+    private final UserStatsService userStatsService;
+    private final List<NoteChangeListener> changeListeners;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public NoteImportService(NoteRepository noteRepository, UserStatsService userStatsService,
+                             List<NoteChangeListener> changeListeners, ObjectMapper objectMapper,
+                             @Value("${notes.import.batch-size}") int batchSize) {
+        this.noteRepository = noteRepository;
+        this.userStatsService = userStatsService;
+        this.changeListeners = changeListeners;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Each record may carry {@code id}, {@code title}, {@code content}, {@code priority},
+     * {@code createdAt}, {@code updatedAt} and {@code deletedAt}; only title, content and priority
+     * are required. Invalid records and records whose id already exists are reported and skipped.
+     * Malformed JSON stops the import, keeping the records stored before it.
+     */
+    public NoteImportProgress importNotes(String userId, InputStream input, NoteImportListener listener) throws IOException {
+        Batch batch = new Batch(userId, listener);
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            while (true) {
+                JsonToken token;
+                long line = parser.currentLocation().getLineNr();
+                try {
+                    token = parser.nextToken();
+                    if (token == null) {
+                        break;
+                    }
+                    line = parser.currentTokenLocation().getLineNr();
+                    batch.records++;
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        batch.reject(line, "Expected a JSON object");
+                        continue;
+                    }
+                    JsonNode record = parser.readValueAsTree();
+                    String error = validate(record);
+                    if (error != null) {
+                        batch.reject(line, error);
+                        continue;
+                    }
+                    batch.add(line, toNote(userId, record));
+                } catch (JsonParseException e) {
+                    batch.reject(line, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+                    break;
+                }
+            }
+        }
+        batch.flush();
+        logger.debug("Imported {} of {} notes for user {}", batch.imported, batch.records, userId);
+        return batch.progress();
+    }
+
+    private static String validate(JsonNode record) {
+        JsonNode title = record.get("title");
+        if (title == null || !title.isTextual() || title.asText().isBlank()) {
+            return "title is required";
+        }
+        if (title.asText().length() > MAX_TITLE_LENGTH) {
+            return "title must be at most " + MAX_TITLE_LENGTH + " characters";
+        }
+        JsonNode content = record.get("content");
+        if (content == null || !content.isTextual()) {
+            return "content is required";
+        }
+        JsonNode priority = record.get("priority");
+        if (priority == null || !priority.isTextual()) {
+            return "priority is required";
+        }
+        try {
+            Note.Priority.valueOf(priority.asText());
+        } catch (IllegalArgumentException e) {
+            return "priority must be one of NOW, LATER, SOMEDAY, DONE";
+        }
+        if (record.hasNonNull("id")) {
+            try {
+                UUID.fromString(record.get("id").asText());
+            } catch (IllegalArgumentException e) {
+                return "id must be a UUID";
+            }
+        }
+        for (String field : List.of("createdAt", "updatedAt", "deletedAt")) {
+            if (record.hasNonNull(field)) {
+                try {
+                    OffsetDateTime.parse(record.get(field).asText());
+                } catch (DateTimeParseException e) {
+                    return field + " must be an ISO-8601 date-time with offset";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Note toNote(String userId, JsonNode record) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Note note = new Note();
+        note.setId(record.hasNonNull("id") ? UUID.fromString(record.get("id").asText()) : UUID.randomUUID());
+        note.setUserId(userId);
+        note.setTitle(record.get("title").asText());
+        note.setContent(record.get("content").asText());
+        note.setPriority(Note.Priority.valueOf(record.get("priority").asText()));
+        note.setCreatedAt(record.hasNonNull("createdAt") ? OffsetDateTime.parse(record.get("createdAt").asText()) : now);
+        note.setUpdatedAt(record.hasNonNull("updatedAt")
+            ? OffsetDateTime.parse(record.get("updatedAt").asText())
+            : note.getCreatedAt());
+        if (record.hasNonNull("deletedAt")) {
+            note.setDeletedAt(OffsetDateTime.parse(record.get("deletedAt").asText()));
+        }
+        // Imported timestamps may be old; the import itself is the change clients have not seen
+        note.setChangedAt(now);
+        return note;
+    }
+
+    /**
+     * Pending notes of one import together with the running totals.
+     */
+    private class Batch {
+        private final String userId;
+        private final NoteImportListener listener;
+        private List<Note> notes = new ArrayList<>(batchSize);
+        private List<Long> lines = new ArrayList<>(batchSize);
+        private long records;
+        private long imported;
+        private long failed;
+
+        Batch(String userId, NoteImportListener listener) {
+            this.userId = userId;
+            this.listener = listener;
+        }
+
+        void add(long line, Note note) throws IOException {
+            notes.add(note);
+            lines.add(line);
+            if (notes.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) throws IOException {
+            failed++;
+            listener.onError(line, message);
+        }
+
+        void flush() throws IOException {
+            if (notes.isEmpty()) {
+                return;
+            }
+            Set<Integer> failedWrites = new HashSet<>();
+            try {
+                noteRepository.bulkWrite(userId, notes, List.of());
+            } catch (BulkOperationException e) {
+                for (BulkWriteError writeError : e.getErrors()) {
+                    failedWrites.add(writeError.getIndex());
+                    reject(lines.get(writeError.getIndex()), writeError.getCode() == 11000
+                        ? "A note with this id already exists"
+                        : writeError.getMessage());
+                }
+            }
+
+            UserStatsDelta delta = new UserStatsDelta();
+            for (int i = 0; i < notes.size(); i++) {
+                if (!failedWrites.contains(i)) {
+                    delta.add(notes.get(i));
+                    imported++;
+                }
+            }
+            userStatsService.apply(userId, delta);
+            for (int i = 0; i < notes.size(); i++) {
+                if (!failedWrites.contains(i)) {
+                    for (NoteChangeListener changeListener : changeListeners) {
+                        changeListener.onNoteChanged(null, notes.get(i));
+                    }
+                }
+            }
+            notes = new ArrayList<>(batchSize);
+            lines = new ArrayList<>(batchSize);
+            listener.onProgress(progress());
+        }
+
+        NoteImportProgress progress() {
+            return new NoteImportProgress(records, imported, failed);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ydgrun.info.qnotes3.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for {@link NoteService#getNotes} and {@link NoteService#getNote}, invalidated
+ * through {@link NoteChangeListener} before the writing request returns, so users always read
+ * their own writes.
+ * <p>
+ * A change invalidates exactly the cached copy of the changed note. Pages are keyed by the user's
+ * change counter from {@code user_stats}, which every write advances before it returns, so all of
+ * the user's pages become unreachable at once, on every instance, without scanning the cache; the
+ * orphaned entries are evicted like any other.
+ * Loads run on the requesting thread, outside any cache lock, so a slow Mongo read neither blocks
+ * other keys nor pins a virtual thread; concurrent requests for the same key wait for the one load.
+ * A load still running when a change is applied only answers the requests that started before it:
+ * the invalidation drops the pending entry (notes) or the load was keyed with the old counter
+ * (pages), so later requests load again. Page entries also expire after a fixed time, because the
+ * date range filters move with the clock.
+ * <p>
+ * Cached notes and pages are shared between requests and must not be modified.
+ */
+@Service
+public class NoteReadCache implements NoteChangeListener {
+    private record PageKey(String userId, long changeCount, int page, Note.Priority priority, String dateRange) {
+    }
+
+    private record NoteKey(String userId, UUID noteId) {
+    }
+
+    private final AsyncCache<PageKey, Page<Note>> pages;
+    private final AsyncCache<NoteKey, Note> notes;
+
+    public NoteReadCache(@Value("${notes.cache.max-pages}") long maxPages,
+                         @Value("${notes.cache.max-notes}") long maxNotes,
+                         @Value("${notes.cache.page-ttl}") Duration pageTtl,
+                         MeterRegistry meterRegistry) {
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(pageTtl)
+                .recordStats()
+                .buildAsync();
+        this.notes = Caffeine.newBuilder()
+                .maximumSize(maxNotes)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "notes.pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, notes, "notes.single");
+    }
+
+    /**
+     * @param changeCount the user's change counter, read before the page may be loaded
+     */
+    public Page<Note> getPage(String userId, long changeCount, int page, Note.Priority priority, String dateRange,
+                              Supplier<Page<Note>> loader) {
+        return load(pages, new PageKey(userId, changeCount, page, priority, dateRange), loader);
+    }
+
+    public Optional<Note> getNote(String userId, UUID noteId, Supplier<Optional<Note>> loader) {
+        return Optional.ofNullable(load(notes, new NoteKey(userId, noteId), () -> loader.get().orElse(null)));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getPage} for the reactive stack: the loader only starts the
+     * read, and its future is cached while pending. The returned future is shared with concurrent
+     * callers and must not be cancelled.
+     */
+    public CompletableFuture<Page<Note>> getPageAsync(String userId, long changeCount, int page, Note.Priority priority,
+                                                      String dateRange, Supplier<CompletableFuture<Page<Note>>> loader) {
+        return pages.get(new PageKey(userId, changeCount, page, priority, dateRange), (key, executor) -> loader.get());
+    }
+
+    /**
+     * Non-blocking variant of {@link #getNote}; completes with null when the note does not exist.
+     */
+    public CompletableFuture<Note> getNoteAsync(String userId, UUID noteId, Supplier<CompletableFuture<Note>> loader) {
+        return notes.get(new NoteKey(userId, noteId), (key, executor) -> loader.get());
+    }
+
+    @Override
+    public void onNoteChanged(Note before, Note after) {
+        notes.synchronous().invalidate(new NoteKey(after.getUserId(), after.getId()));
+    }
+
+    @Override
+    public void onChangesMissed() {
+        notes.synchronous().invalidateAll();
+    }
+
+    /**
+     * Returns the cached value, or registers a pending entry and loads it on the calling thread.
+     * Null values and failures are not cached.
+     */
+    private static <K, V> V load(AsyncCache<K, V> cache, K key, Supplier<V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> cached = cache.get(key, (k, executor) -> loading);
+        if (cached == loading) {
+            try {
+                V value = loader.get();
+                loading.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
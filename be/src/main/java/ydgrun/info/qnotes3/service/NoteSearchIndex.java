@@ -0,0 +1,193 @@
+package ydgrun.info.qnotes3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory alternative to the Mongo text index for search and type-ahead. Each user who searches
+ * gets a {@link UserNoteIndex}, built from their notes on the first search and kept current by
+ * {@link NoteChangeListener} callbacks. Once the estimated size of all indexes exceeds the memory
+ * budget, the least recently used ones are dropped and rebuilt when needed again.
+ * <p>
+ * Callbacks never wait: a change for an index that is being built or searched is queued on it and
+ * indexed by whichever thread holds its lock next, before that thread reads the index.
+ * <p>
+ * Unlike {@code $text}, negated words are ignored and phrases match as separate words.
+ */
+@Service
+@ConditionalOnProperty(name = "notes.search.index.enabled", havingValue = "true")
+public class NoteSearchIndex implements NoteChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+    private static final int SUGGEST_SIZE = 10;
+    private static final int MAX_SUGGEST_SIZE = 50;
+
+    private final NoteRepository noteRepository;
+    private final long memoryBudget;
+    private final Map<String, UserNoteIndex> indexes = new ConcurrentHashMap<>();
+    // Orders the indexes by last use for eviction
+    private final AtomicLong useClock = new AtomicLong();
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    public NoteSearchIndex(NoteRepository noteRepository,
+                           @Value("${notes.search.index.memory-budget}") DataSize memoryBudget) {
+        this.noteRepository = noteRepository;
+        this.memoryBudget = memoryBudget.toBytes();
+    }
+
+    /**
+     * Same contract as {@link NoteService#searchNotes}; only the matched notes are read from Mongo.
+     */
+    public List<NoteSearchResult> searchNotes(String userId, String query, Note.Priority priority, Integer limit) {
+        List<String> terms = NoteService.searchTerms(query);
+        int size = NoteService.searchSize(limit);
+
+        List<UserNoteIndex.Hit> hits = withIndex(userId, index -> index.search(terms, priority, size));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Note> notes = noteRepository.findActiveNotesByIds(userId, hits.stream().map(UserNoteIndex.Hit::noteId).toList())
+            .stream()
+            .collect(Collectors.toMap(Note::getId, Function.identity()));
+        return hits.stream()
+            .filter(hit -> notes.containsKey(hit.noteId()))
+            .map(hit -> NoteSearchSnippets.build(notes.get(hit.noteId()), hit.score(), terms, NoteService.SNIPPET_LENGTH))
+            .toList();
+    }
+
+    /**
+     * Words from the user's notes starting with the prefix, most widely used first.
+     */
+    public List<String> suggest(String userId, String prefix, Integer limit) {
+        String normalized = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        int size = limit != null ? Math.max(1, Math.min(limit, MAX_SUGGEST_SIZE)) : SUGGEST_SIZE;
+
+        return withIndex(userId, index -> index.suggest(normalized, size));
+    }
+
+    @Override
+    public void onNoteChanged(Note before, Note after) {
+        UserNoteIndex index = indexes.get(after.getUserId());
+        if (index == null) {
+            return;
+        }
+        index.pending.add(after);
+        if (index.lock.tryLock()) {
+            try {
+                if (index.loaded) {
+                    index.applyPending();
+                }
+            } finally {
+                index.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops every index; each is rebuilt from Mongo on its user's next search.
+     */
+    @Override
+    public void onChangesMissed() {
+        indexes.clear();
+    }
+
+    int indexedUsers() {
+        return indexes.size();
+    }
+
+    long estimatedBytes() {
+        return indexes.values().stream().mapToLong(UserNoteIndex::estimatedBytes).sum();
+    }
+
+    /**
+     * Runs the action on the user's index, building it first if needed. The index is registered
+     * before it is built, so changes written while the notes are being read are queued and
+     * replayed afterwards rather than lost; replaying a change the build already saw is harmless.
+     */
+    private <T> T withIndex(String userId, Function<UserNoteIndex, T> action) {
+        UserNoteIndex index = indexes.computeIfAbsent(userId, id -> new UserNoteIndex());
+        index.lastUsed = useClock.incrementAndGet();
+        boolean built = false;
+        T result;
+        index.lock.lock();
+        try {
+            if (!index.loaded) {
+                build(userId, index);
+                built = true;
+            }
+            index.applyPending();
+            result = action.apply(index);
+        } finally {
+            index.lock.unlock();
+        }
+        if (built) {
+            trim();
+        }
+        return result;
+    }
+
+    private void build(String userId, UserNoteIndex index) {
+        long start = System.nanoTime();
+        try (Stream<Note> notes = noteRepository.streamNotes(userId, false)) {
+            notes.forEach(index::put);
+        } catch (RuntimeException e) {
+            indexes.remove(userId, index);
+            throw e;
+        }
+        index.loaded = true;
+        logger.debug("Indexed {} notes of user {} in {} ms, ~{} KB", index.size(), userId,
+            (System.nanoTime() - start) / 1_000_000, index.estimatedBytes() / 1024);
+    }
+
+    /**
+     * Evicts the least recently used indexes until the rest fit the budget, always keeping one.
+     * Skipped while another thread trims.
+     */
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        try {
+            long total = estimatedBytes();
+            if (total <= memoryBudget) {
+                return;
+            }
+            List<Map.Entry<String, UserNoteIndex>> leastRecentlyUsedFirst = indexes.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .toList();
+            for (Map.Entry<String, UserNoteIndex> entry : leastRecentlyUsedFirst) {
+                if (total <= memoryBudget || indexes.size() <= 1) {
+                    break;
+                }
+                if (indexes.remove(entry.getKey(), entry.getValue())) {
+                    total -= entry.getValue().estimatedBytes();
+                    logger.debug("Evicted search index of user {}", entry.getKey());
+                }
+            }
+        } finally {
+            trimLock.unlock();
+        }
+    }
+}
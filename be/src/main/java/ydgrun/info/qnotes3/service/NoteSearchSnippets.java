@@ -0,0 +1,127 @@
+package ydgrun.info.qnotes3.service;
+
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the excerpt shown for a search result. Words are matched by prefix against crudely
+ * stemmed query terms, which is close enough to the stemming of the Mongo text index for
+ * highlighting purposes.
+ */
+final class NoteSearchSnippets {
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String ELLIPSIS = "…";
+
+    private NoteSearchSnippets() {
+    }
+
+    /**
+     * Extracts the positive terms of a {@code $text} search string, dropping negated terms and
+     * phrase quotes.
+     */
+    static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String token : WHITESPACE.split(query.replace("\"", " ").trim())) {
+            if (token.isEmpty() || token.startsWith("-")) {
+                continue;
+            }
+            Matcher word = WORD.matcher(token);
+            while (word.find()) {
+                terms.add(stem(word.group().toLowerCase(Locale.ROOT)));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Passes every lower-cased word of the text to the consumer, in order.
+     */
+    static void forEachWord(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        Matcher word = WORD.matcher(text);
+        while (word.find()) {
+            consumer.accept(word.group().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    static NoteSearchResult build(Note note, double score, List<String> terms, int maxLength) {
+        String content = normalize(note.getContent());
+        String text = !matches(content, terms).isEmpty() || matches(normalize(note.getTitle()), terms).isEmpty()
+            ? content
+            : normalize(note.getTitle());
+        List<int[]> matches = matches(text, terms);
+
+        int start = 0;
+        if (!matches.isEmpty() && matches.get(0)[0] > maxLength / 2) {
+            start = text.indexOf(' ', matches.get(0)[0] - maxLength / 4) + 1;
+        }
+        int end = Math.min(text.length(), start + maxLength);
+        if (end < text.length()) {
+            int lastSpace = text.lastIndexOf(' ', end);
+            if (lastSpace > start) {
+                end = lastSpace;
+            }
+        }
+
+        String prefix = start > 0 ? ELLIPSIS : "";
+        String snippet = prefix + text.substring(start, end) + (end < text.length() ? ELLIPSIS : "");
+        List<NoteSearchResult.Highlight> highlights = new ArrayList<>();
+        for (int[] match : matches) {
+            if (match[0] >= start && match[1] <= end) {
+                highlights.add(new NoteSearchResult.Highlight(match[0] - start + prefix.length(), match[1] - match[0]));
+            }
+        }
+        return new NoteSearchResult(note, score, snippet, highlights);
+    }
+
+    private static List<int[]> matches(String text, List<String> terms) {
+        List<int[]> matches = new ArrayList<>();
+        Matcher word = WORD.matcher(text);
+        while (word.find()) {
+            String candidate = word.group().toLowerCase(Locale.ROOT);
+            for (String term : terms) {
+                if (candidate.startsWith(term)) {
+                    matches.add(new int[]{word.start(), word.end()});
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : WHITESPACE.matcher(text).replaceAll(" ").trim();
+    }
+
+    static String stem(String term) {
+        if (term.length() > 5 && term.endsWith("ing")) {
+            return undouble(term.substring(0, term.length() - 3));
+        }
+        if (term.length() > 4 && (term.endsWith("ed") || term.endsWith("es"))) {
+            return undouble(term.substring(0, term.length() - 2));
+        }
+        if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss")) {
+            return term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+
+    // "running" -> "runn" -> "run"
+    private static String undouble(String stem) {
+        int length = stem.length();
+        if (length > 2 && stem.charAt(length - 1) == stem.charAt(length - 2)) {
+            return stem.substring(0, length - 1);
+        }
+        return stem;
+    }
+}
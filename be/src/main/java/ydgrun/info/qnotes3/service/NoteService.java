@@ -1,89 +1,407 @@
 package ydgrun.info.qnotes3.service;
 
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+import ydgrun.info.qnotes3.domain.NoteBatchResult;
+import ydgrun.info.qnotes3.domain.NoteChanges;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.NoteWindow;
+import ydgrun.info.qnotes3.exception.InvalidCursorException;
+import ydgrun.info.qnotes3.exception.InvalidSearchQueryException;
+import ydgrun.info.qnotes3.exception.NoteNotFoundException;
 import ydgrun.info.qnotes3.repository.NoteRepository;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "notes.service", histogram = true)
 public class NoteService {
     private final NoteRepository noteRepository;
+    private final UserStatsService userStatsService;
+    private final NoteReadCache readCache;
+    private final List<NoteChangeListener> changeListeners;
     private static final int PAGE_SIZE = 10;
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final int SEARCH_SIZE = 20;
+    private static final int MAX_SEARCH_SIZE = 100;
+    static final int SNIPPET_LENGTH = 160;
+    static final int STALE_AFTER_DAYS = 2;
+    private static final int CHANGES_SIZE = 100;
+    private static final int MAX_CHANGES_SIZE = 500;
+    // Longer than any write takes to land after taking its changedAt, clock skew between instances included
+    static final Duration CHANGES_SETTLE_TIME = Duration.ofSeconds(2);
 
-    public NoteService(NoteRepository noteRepository) {
+    /**
+     * @param changeListeners notified of every write; must include {@code readCache} for it to be
+     *                        invalidated, which the application context does by itself
+     */
+    public NoteService(NoteRepository noteRepository, UserStatsService userStatsService, NoteReadCache readCache,
+                       List<NoteChangeListener> changeListeners) {
         this.noteRepository = noteRepository;
+        this.userStatsService = userStatsService;
+        this.readCache = readCache;
+        this.changeListeners = changeListeners;
     }
 
     public Note createNote(String userId, String title, String content, Note.Priority priority) {
-        Note note = new Note();
-        note.setId(UUID.randomUUID());
-        note.setUserId(userId);
-        note.setTitle(title);
-        note.setContent(content);
-        note.setPriority(priority);
-        note.setCreatedAt(OffsetDateTime.now());
-        note.setUpdatedAt(OffsetDateTime.now());
-        return noteRepository.save(note);
+        Note saved = noteRepository.save(newNote(userId, title, content, priority, OffsetDateTime.now()));
+        userStatsService.recordChange(null, saved);
+        publishChange(null, saved);
+        return saved;
     }
 
+    /**
+     * Replaces every field in one atomic findAndModify scoped to the user's active note; unlike
+     * {@link #patchNote}, a null clears the field.
+     */
     public Note updateNote(String userId, UUID noteId, String title, String content, Note.Priority priority) {
-        Note note = noteRepository.findByUserIdAndIdAndNotDeleted(userId, noteId)
-                .orElseThrow(() -> new IllegalArgumentException("Note not found"));
+        OffsetDateTime now = OffsetDateTime.now();
+        Note before = noteRepository.modifyActiveNote(userId, noteId, replace(title, content, priority, now))
+                .orElseThrow(() -> new NoteNotFoundException("Note not found"));
+        Note after = replaced(before, title, content, priority, now);
+        userStatsService.recordChange(before, after);
+        publishChange(before, after);
+        return after;
+    }
 
-        note.setTitle(title);
-        note.setContent(content);
-        note.setPriority(priority);
-        note.setUpdatedAt(OffsetDateTime.now());
-        return noteRepository.save(note);
+    static Update replace(String title, String content, Note.Priority priority, OffsetDateTime now) {
+        return new Update()
+            .set("title", title)
+            .set("content", content)
+            .set("priority", priority)
+            .set("updatedAt", now)
+            .set("changedAt", now);
+    }
+
+    /**
+     * The note as {@link #replace} leaves it, computed from the state it had before.
+     */
+    static Note replaced(Note before, String title, String content, Note.Priority priority, OffsetDateTime now) {
+        Note after = before.copy();
+        after.setTitle(title);
+        after.setContent(content);
+        after.setPriority(priority);
+        after.setUpdatedAt(now);
+        after.setChangedAt(now);
+        return after;
+    }
+
+    /**
+     * Sets the non-null fields in one atomic findAndModify scoped to the user's active note,
+     * so concurrent edits of different fields do not overwrite each other.
+     */
+    public Note patchNote(String userId, UUID noteId, String title, String content, Note.Priority priority) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Note before = noteRepository.modifyActiveNote(userId, noteId, patch(title, content, priority, now))
+                .orElseThrow(() -> new NoteNotFoundException("Note not found"));
+        Note after = patched(before, title, content, priority, now);
+        userStatsService.recordChange(before, after);
+        publishChange(before, after);
+        return after;
+    }
+
+    static Update patch(String title, String content, Note.Priority priority, OffsetDateTime now) {
+        Update update = new Update().set("updatedAt", now).set("changedAt", now);
+        if (title != null) {
+            update.set("title", title);
+        }
+        if (content != null) {
+            update.set("content", content);
+        }
+        if (priority != null) {
+            update.set("priority", priority);
+        }
+        return update;
+    }
+
+    /**
+     * The note as {@link #patch} leaves it, computed from the state it had before.
+     */
+    static Note patched(Note before, String title, String content, Note.Priority priority, OffsetDateTime now) {
+        Note after = before.copy();
+        if (title != null) {
+            after.setTitle(title);
+        }
+        if (content != null) {
+            after.setContent(content);
+        }
+        if (priority != null) {
+            after.setPriority(priority);
+        }
+        after.setUpdatedAt(now);
+        after.setChangedAt(now);
+        return after;
     }
 
+    /**
+     * Soft-deletes the note, leaving a tombstone that {@link #getChanges} reports.
+     */
     public void deleteNote(String userId, UUID noteId) {
-        Note note = noteRepository.findByUserIdAndIdAndNotDeleted(userId, noteId)
-                .orElseThrow(() -> new IllegalArgumentException("Note not found"));
+        OffsetDateTime now = OffsetDateTime.now();
+        Note before = noteRepository.modifyActiveNote(userId, noteId, delete(now))
+                .orElseThrow(() -> new NoteNotFoundException("Note not found"));
+        Note after = deleted(before, now);
+        userStatsService.recordChange(before, after);
+        publishChange(before, after);
+    }
+
+    static Update delete(OffsetDateTime now) {
+        return new Update().set("deletedAt", now).set("changedAt", now);
+    }
+
+    static Note deleted(Note before, OffsetDateTime now) {
+        Note after = before.copy();
+        after.setDeletedAt(now);
+        after.setChangedAt(now);
+        return after;
+    }
+
+    /**
+     * Applies a mixed list of operations with one read of the referenced notes, one unordered
+     * bulk write and one statistics update. Operations on the same note are folded in request
+     * order into a single update, so a note deleted earlier in the batch is NOT_FOUND afterwards.
+     */
+    public List<NoteBatchResult> executeBatch(String userId, List<NoteBatchOperation> operations) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Set<UUID> referencedIds = NoteBatch.referencedIds(operations);
+        NoteBatch batch = new NoteBatch(userId, operations,
+            referencedIds.isEmpty() ? List.of() : noteRepository.findActiveNotesByIds(userId, referencedIds), now);
+
+        if (batch.hasWrites()) {
+            BulkWriteResult result;
+            try {
+                result = noteRepository.bulkWrite(userId, batch.inserts(), batch.updates());
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(batch::fail);
+                result = e.getResult();
+            }
+            if (batch.missedUpdates(result)) {
+                batch.failMissedUpdates(noteRepository.findNotesByIds(userId, batch.updatedIds()));
+            }
+        }
 
-        note.setDeletedAt(OffsetDateTime.now());
-        noteRepository.save(note);
+        userStatsService.apply(userId, batch.delta());
+        batch.forEachChange(this::publishChange);
+        return batch.results();
     }
 
     public Note getNote(String userId, UUID noteId) {
-        return noteRepository.findByUserIdAndIdAndNotDeleted(userId, noteId)
-                .orElseThrow(() -> new IllegalArgumentException("Note not found"));
+        return readCache.getNote(userId, noteId, () -> noteRepository.findByUserIdAndIdAndNotDeleted(userId, noteId))
+                .orElseThrow(() -> new NoteNotFoundException("Note not found"));
+    }
+
+    /**
+     * Streams every note of the user without loading them all into memory.
+     * The caller must close the stream.
+     */
+    public Stream<Note> streamNotes(String userId, boolean includeDeleted) {
+        return noteRepository.streamNotes(userId, includeDeleted);
     }
 
     public Page<Note> getNotes(String userId, Integer page, Note.Priority priority, String dateRange) {
-        PageRequest pageRequest = PageRequest.of(
-            page != null ? page : 0,
-            PAGE_SIZE,
-            Sort.by(Sort.Direction.DESC, "createdAt")
-        );
+        int pageNumber = page != null ? page : 0;
+        return readCache.getPage(userId, userStatsService.getChangeCount(userId), pageNumber, priority,
+            cachedDateRange(priority, dateRange), () -> findNotes(userId, pageNumber, priority, dateRange));
+    }
+
+    /**
+     * Changes whenever a page of {@link #getNotes} may have changed, on every instance; null for
+     * pages filtered by a date range, which also change with the clock.
+     */
+    public String getNotesVersion(String userId, Note.Priority priority, String dateRange) {
+        return cachedDateRange(priority, dateRange) == null
+            ? Long.toHexString(userStatsService.getChangeCount(userId))
+            : null;
+    }
+
+    /**
+     * The date range that selects a different page, as part of the page cache key: it is ignored
+     * when filtering by priority.
+     */
+    static String cachedDateRange(Note.Priority priority, String dateRange) {
+        return priority == null && createdFrom(dateRange) != null ? dateRange : null;
+    }
+
+    static PageRequest pageRequest(int page) {
+        return PageRequest.of(page, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    private Page<Note> findNotes(String userId, int page, Note.Priority priority, String dateRange) {
+        PageRequest pageRequest = pageRequest(page);
 
         if (priority != null) {
             return noteRepository.findAllByUserIdAndPriorityAndNotDeleted(userId, priority, pageRequest);
         }
 
-        if (dateRange != null) {
-            OffsetDateTime after = switch (dateRange) {
-                case "TODAY" -> OffsetDateTime.now().withHour(0).withMinute(0).withSecond(0);
-                case "PAST_SEVEN_DAYS" -> OffsetDateTime.now().minusDays(7);
-                default -> null;
-            };
-            
-            if (after != null) {
-                return noteRepository.findAllByUserIdAndCreatedAtAfterAndNotDeleted(userId, after, pageRequest);
-            }
+        OffsetDateTime after = createdFrom(dateRange);
+        if (after != null) {
+            return noteRepository.findAllByUserIdAndCreatedAtAfterAndNotDeleted(userId, after, pageRequest);
         }
 
         return noteRepository.findAllByUserIdAndNotDeleted(userId, pageRequest);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #getNotes}: no skip and no count query, so the cost
+     * of a page does not grow with its depth.
+     */
+    public NoteWindow scrollNotes(String userId, String after, Integer limit, Note.Priority priority, String dateRange) {
+        int size = scrollSize(limit);
+        List<Note> notes = noteRepository.findActiveNotesAfter(userId, priority, createdFrom(dateRange),
+            decodeCursor(after), size + 1);
+        return window(notes, size);
+    }
+
+    static NoteCursor decodeCursor(String after) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        try {
+            return NoteCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    static int scrollSize(Integer limit) {
+        return limit != null ? Math.max(1, Math.min(limit, MAX_SCROLL_SIZE)) : PAGE_SIZE;
+    }
+
+    /**
+     * @param notes up to {@code size + 1} notes; the extra one only tells that there is a next window
+     */
+    static NoteWindow window(List<Note> notes, int size) {
+        if (notes.size() <= size) {
+            return new NoteWindow(notes, null);
+        }
+        List<Note> page = notes.subList(0, size);
+        return new NoteWindow(page, NoteCursor.of(page.get(size - 1)));
+    }
+
+    /**
+     * Notes written after the checkpoint {@code since}, deleted ones included, earliest change
+     * first; without a checkpoint, every active note. A write is only reported once it is
+     * {@link #CHANGES_SETTLE_TIME} old, so that a slower write with an earlier changedAt cannot
+     * land behind a checkpoint that was already handed out.
+     */
+    public NoteChanges getChanges(String userId, String since, Integer limit) {
+        NoteCheckpoint checkpoint = decodeCheckpoint(since);
+        int size = changesSize(limit);
+        OffsetDateTime until = changesUntil();
+        return changes(noteRepository.findChangedNotes(userId, checkpoint, until, size + 1), size, checkpoint, until);
+    }
+
+    static NoteCheckpoint decodeCheckpoint(String since) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        try {
+            return NoteCheckpoint.decode(since);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid checkpoint");
+        }
+    }
+
+    static int changesSize(Integer limit) {
+        return limit != null ? Math.max(1, Math.min(limit, MAX_CHANGES_SIZE)) : CHANGES_SIZE;
+    }
+
+    static OffsetDateTime changesUntil() {
+        return OffsetDateTime.now().minus(CHANGES_SETTLE_TIME).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * @param notes up to {@code size + 1} changes up to {@code until}; the extra one only tells that
+     *              there are more
+     */
+    static NoteChanges changes(List<Note> notes, int size, NoteCheckpoint since, OffsetDateTime until) {
+        if (notes.size() > size) {
+            List<Note> page = notes.subList(0, size);
+            return new NoteChanges(page, NoteCheckpoint.of(page.get(size - 1)), true);
+        }
+        // Everything up to until has been returned; never move a checkpoint back
+        boolean sinceIsLater = since != null && !since.changedAt().isBefore(until);
+        return new NoteChanges(notes, sinceIsLater ? since : new NoteCheckpoint(until, null), false);
+    }
+
+    /**
+     * Full-text search over title and content, most relevant first, with a highlighted excerpt per note.
+     */
+    public List<NoteSearchResult> searchNotes(String userId, String query, Note.Priority priority, Integer limit) {
+        List<String> terms = searchTerms(query);
+        int size = searchSize(limit);
+
+        return noteRepository.searchActiveNotes(userId, query, priority, size).stream()
+            .map(hit -> NoteSearchSnippets.build(hit.note(), hit.score(), terms, SNIPPET_LENGTH))
+            .toList();
+    }
+
+    static List<String> searchTerms(String query) {
+        List<String> terms = query == null ? List.of() : NoteSearchSnippets.terms(query);
+        if (terms.isEmpty()) {
+            throw new InvalidSearchQueryException("Search query must contain at least one term");
+        }
+        return terms;
+    }
+
+    static int searchSize(Integer limit) {
+        return limit != null ? Math.max(1, Math.min(limit, MAX_SEARCH_SIZE)) : SEARCH_SIZE;
+    }
+
+    private void publishChange(Note before, Note after) {
+        for (NoteChangeListener listener : changeListeners) {
+            listener.onNoteChanged(before, after);
+        }
+    }
+
+    static Note newNote(String userId, String title, String content, Note.Priority priority,
+                                OffsetDateTime now) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(userId);
+        note.setTitle(title);
+        note.setContent(content);
+        note.setPriority(priority);
+        note.setCreatedAt(now);
+        note.setUpdatedAt(now);
+        note.setChangedAt(now);
+        return note;
+    }
+
+    static OffsetDateTime createdFrom(String dateRange) {
+        if (dateRange == null) {
+            return null;
+        }
+        return switch (dateRange) {
+            case "TODAY" -> OffsetDateTime.now().withHour(0).withMinute(0).withSecond(0);
+            case "PAST_SEVEN_DAYS" -> OffsetDateTime.now().minusDays(7);
+            default -> null;
+        };
+    }
+
+    public NoteStatistics getStatistics(String userId) {
+        return noteRepository.aggregateStatistics(userId, OffsetDateTime.now().minusDays(STALE_AFTER_DAYS));
+    }
+
     public int countStaleNotes(String userId) {
-        OffsetDateTime staleThreshold = OffsetDateTime.now().minusDays(2);
+        OffsetDateTime staleThreshold = OffsetDateTime.now().minusDays(STALE_AFTER_DAYS);
         return noteRepository.findStaleNotes(userId, staleThreshold).size();
     }
 
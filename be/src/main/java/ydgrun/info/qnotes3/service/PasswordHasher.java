@@ -0,0 +1,116 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.exception.PasswordHashingRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the {@link PasswordEncoder} (BCrypt, tens of milliseconds of CPU per call) on a pool of its
+ * own, so that a burst of logins and registrations uses at most that many cores and leaves the
+ * request threads to note requests. Calls beyond the pool wait in a bounded queue; once it is full
+ * they are refused at once with {@link PasswordHashingRejectedException}, answered with 503 and
+ * {@code Retry-After}.
+ * <p>
+ * The queue depth is published as {@code executor.queued{name=password.hash}} and the time spent
+ * hashing as {@code password.hash.duration}.
+ */
+@Service
+public class PasswordHasher implements DisposableBean {
+    private final PasswordEncoder passwordEncoder;
+    private final Duration retryAfter;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${notes.password.hash-threads}") int threads,
+                          @Value("${notes.password.queue-capacity}") int queueCapacity,
+                          @Value("${notes.password.retry-after}") Duration retryAfter,
+                          MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfter = retryAfter;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "password.hash", Tags.empty()).bindTo(meterRegistry);
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchTimer = hashTimer(meterRegistry, "match");
+        this.rejected = Counter.builder("password.hash.rejected")
+            .description("Password hashes refused because the queue was full")
+            .register(meterRegistry);
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hash.duration")
+            .description("Time spent hashing one password, without waiting in the queue")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Completes on a hashing thread, or fails with {@link PasswordHashingRejectedException}.
+     */
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Completes on a hashing thread, or fails with {@link PasswordHashingRejectedException}.
+     */
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        return submit(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> hash) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(hash), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                new PasswordHashingRejectedException("Too many logins in progress, try again later", retryAfter));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,231 @@
+package ydgrun.info.qnotes3.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+import ydgrun.info.qnotes3.domain.NoteBatchResult;
+import ydgrun.info.qnotes3.domain.NoteChanges;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+import ydgrun.info.qnotes3.domain.NoteWindow;
+import ydgrun.info.qnotes3.exception.NoteNotFoundException;
+import ydgrun.info.qnotes3.repository.ReactiveNoteRepository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link NoteService} for the reactive profile, with the same
+ * contracts, Mongo commands and statistics bookkeeping. Pages and single notes go through the
+ * shared {@link NoteReadCache}, and {@link NoteChangeListener}s are told about every write on the
+ * thread that completed it, so they must not block.
+ * <p>
+ * The in-memory {@link NoteSearchIndex} is built from a blocking cursor; when it is enabled,
+ * search and suggestions run on the bounded elastic scheduler rather than on an event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNoteService {
+    private final ReactiveNoteRepository noteRepository;
+    private final ReactiveUserStatsService userStatsService;
+    private final NoteReadCache readCache;
+    private final List<NoteChangeListener> changeListeners;
+    private final Optional<NoteSearchIndex> searchIndex;
+
+    public ReactiveNoteService(ReactiveNoteRepository noteRepository, ReactiveUserStatsService userStatsService,
+                               NoteReadCache readCache, List<NoteChangeListener> changeListeners,
+                               Optional<NoteSearchIndex> searchIndex) {
+        this.noteRepository = noteRepository;
+        this.userStatsService = userStatsService;
+        this.readCache = readCache;
+        this.changeListeners = changeListeners;
+        this.searchIndex = searchIndex;
+    }
+
+    public Mono<Note> createNote(String userId, String title, String content, Note.Priority priority) {
+        return noteRepository.save(NoteService.newNote(userId, title, content, priority, OffsetDateTime.now()))
+            .flatMap(saved -> recordChange(null, saved).thenReturn(saved));
+    }
+
+    /**
+     * See {@link NoteService#updateNote}.
+     */
+    public Mono<Note> updateNote(String userId, UUID noteId, String title, String content, Note.Priority priority) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return noteRepository.modifyActiveNote(userId, noteId, NoteService.replace(title, content, priority, now))
+            .switchIfEmpty(Mono.error(() -> new NoteNotFoundException("Note not found")))
+            .flatMap(before -> {
+                Note after = NoteService.replaced(before, title, content, priority, now);
+                return recordChange(before, after).thenReturn(after);
+            });
+    }
+
+    /**
+     * See {@link NoteService#patchNote}.
+     */
+    public Mono<Note> patchNote(String userId, UUID noteId, String title, String content, Note.Priority priority) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return noteRepository.modifyActiveNote(userId, noteId, NoteService.patch(title, content, priority, now))
+            .switchIfEmpty(Mono.error(() -> new NoteNotFoundException("Note not found")))
+            .flatMap(before -> {
+                Note after = NoteService.patched(before, title, content, priority, now);
+                return recordChange(before, after).thenReturn(after);
+            });
+    }
+
+    public Mono<Void> deleteNote(String userId, UUID noteId) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return noteRepository.modifyActiveNote(userId, noteId, NoteService.delete(now))
+            .switchIfEmpty(Mono.error(() -> new NoteNotFoundException("Note not found")))
+            .flatMap(before -> recordChange(before, NoteService.deleted(before, now)));
+    }
+
+    /**
+     * See {@link NoteService#executeBatch}.
+     */
+    public Mono<List<NoteBatchResult>> executeBatch(String userId, List<NoteBatchOperation> operations) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Set<UUID> referencedIds = NoteBatch.referencedIds(operations);
+        Mono<List<Note>> referenced = referencedIds.isEmpty()
+            ? Mono.just(List.of())
+            : noteRepository.findActiveNotesByIds(userId, referencedIds).collectList();
+
+        return referenced.flatMap(notes -> {
+            NoteBatch batch = new NoteBatch(userId, operations, notes, now);
+            if (!batch.hasWrites()) {
+                return Mono.just(batch);
+            }
+            return noteRepository.bulkWrite(userId, batch.inserts(), batch.updates())
+                .onErrorResume(BulkOperationException.class, e -> {
+                    e.getErrors().forEach(batch::fail);
+                    return Mono.just(e.getResult());
+                })
+                .flatMap(result -> batch.missedUpdates(result)
+                    ? noteRepository.findNotesByIds(userId, batch.updatedIds()).collectList()
+                        .doOnNext(batch::failMissedUpdates)
+                        .thenReturn(batch)
+                    : Mono.just(batch));
+        }).flatMap(batch -> userStatsService.apply(userId, batch.delta())
+            .then(Mono.fromRunnable(() -> batch.forEachChange(this::publishChange)))
+            .thenReturn(batch.results()));
+    }
+
+    public Mono<Note> getNote(String userId, UUID noteId) {
+        return Mono.fromFuture(() -> readCache.getNoteAsync(userId, noteId,
+                () -> noteRepository.findByUserIdAndIdAndNotDeleted(userId, noteId).toFuture()), true)
+            .switchIfEmpty(Mono.error(() -> new NoteNotFoundException("Note not found")));
+    }
+
+    /**
+     * Same as {@link NoteService#getNotesVersion}; empty for pages filtered by a date range.
+     */
+    public Mono<String> getNotesVersion(String userId, Note.Priority priority, String dateRange) {
+        if (NoteService.cachedDateRange(priority, dateRange) != null) {
+            return Mono.empty();
+        }
+        return userStatsService.getChangeCount(userId).map(Long::toHexString);
+    }
+
+    public Mono<Page<Note>> getNotes(String userId, Integer page, Note.Priority priority, String dateRange) {
+        int pageNumber = page != null ? page : 0;
+        return userStatsService.getChangeCount(userId)
+            .flatMap(changeCount -> Mono.fromFuture(() -> readCache.getPageAsync(userId, changeCount, pageNumber,
+                priority, NoteService.cachedDateRange(priority, dateRange),
+                () -> findNotes(userId, pageNumber, priority, dateRange).toFuture()), true));
+    }
+
+    private Mono<Page<Note>> findNotes(String userId, int page, Note.Priority priority, String dateRange) {
+        PageRequest pageRequest = NoteService.pageRequest(page);
+        Flux<Note> content;
+        Mono<Long> total;
+        OffsetDateTime after = NoteService.createdFrom(dateRange);
+        if (priority != null) {
+            content = noteRepository.findAllByUserIdAndPriorityAndNotDeleted(userId, priority, pageRequest);
+            total = noteRepository.countByUserIdAndPriorityAndNotDeleted(userId, priority);
+        } else if (after != null) {
+            content = noteRepository.findAllByUserIdAndCreatedAtAfterAndNotDeleted(userId, after, pageRequest);
+            total = noteRepository.countByUserIdAndCreatedAtAfterAndNotDeleted(userId, after);
+        } else {
+            content = noteRepository.findAllByUserIdAndNotDeleted(userId, pageRequest);
+            total = noteRepository.countByUserIdAndNotDeleted(userId);
+        }
+        return Mono.zip(content.collectList(), total, (notes, count) -> new PageImpl<>(notes, pageRequest, count));
+    }
+
+    /**
+     * See {@link NoteService#scrollNotes}.
+     */
+    public Mono<NoteWindow> scrollNotes(String userId, String after, Integer limit, Note.Priority priority,
+                                        String dateRange) {
+        return Mono.defer(() -> {
+            NoteCursor cursor = NoteService.decodeCursor(after);
+            int size = NoteService.scrollSize(limit);
+            return noteRepository.findActiveNotesAfter(userId, priority, NoteService.createdFrom(dateRange), cursor, size + 1)
+                .collectList()
+                .map(notes -> NoteService.window(notes, size));
+        });
+    }
+
+    /**
+     * See {@link NoteService#getChanges}.
+     */
+    public Mono<NoteChanges> getChanges(String userId, String since, Integer limit) {
+        return Mono.defer(() -> {
+            NoteCheckpoint checkpoint = NoteService.decodeCheckpoint(since);
+            int size = NoteService.changesSize(limit);
+            OffsetDateTime until = NoteService.changesUntil();
+            return noteRepository.findChangedNotes(userId, checkpoint, until, size + 1)
+                .collectList()
+                .map(notes -> NoteService.changes(notes, size, checkpoint, until));
+        });
+    }
+
+    /**
+     * See {@link NoteService#searchNotes} and {@link NoteSearchIndex#searchNotes}.
+     */
+    public Mono<List<NoteSearchResult>> searchNotes(String userId, String query, Note.Priority priority, Integer limit) {
+        if (searchIndex.isPresent()) {
+            return Mono.fromCallable(() -> searchIndex.get().searchNotes(userId, query, priority, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+        }
+        return Mono.defer(() -> {
+            List<String> terms = NoteService.searchTerms(query);
+            return noteRepository.searchActiveNotes(userId, query, priority, NoteService.searchSize(limit))
+                .map(hit -> NoteSearchSnippets.build(hit.note(), hit.score(), terms, NoteService.SNIPPET_LENGTH))
+                .collectList();
+        });
+    }
+
+    /**
+     * See {@link NoteSearchIndex#suggest}; empty when the index is disabled.
+     */
+    public Mono<List<String>> suggest(String userId, String prefix, Integer limit) {
+        return searchIndex
+            .map(index -> Mono.fromCallable(() -> index.suggest(userId, prefix, limit))
+                .subscribeOn(Schedulers.boundedElastic()))
+            .orElseGet(() -> Mono.just(List.of()));
+    }
+
+    private Mono<Void> recordChange(Note before, Note after) {
+        return userStatsService.recordChange(before, after)
+            .then(Mono.fromRunnable(() -> publishChange(before, after)));
+    }
+
+    private void publishChange(Note before, Note after) {
+        for (NoteChangeListener listener : changeListeners) {
+            listener.onNoteChanged(before, after);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ydgrun.info.qnotes3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.RefreshToken;
+import ydgrun.info.qnotes3.exception.InvalidRefreshTokenException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link RefreshTokenService}, on the same {@code refresh_tokens}
+ * documents.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRefreshTokenService.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Duration expiration;
+
+    public ReactiveRefreshTokenService(ReactiveMongoTemplate mongoTemplate,
+                                       @Value("${jwt.refresh.expiration}") Duration expiration) {
+        this.mongoTemplate = mongoTemplate;
+        this.expiration = expiration;
+    }
+
+    public Mono<String> issue(String username) {
+        return insert(username, UUID.randomUUID().toString(), OffsetDateTime.now())
+            .map(RefreshTokenService.Issued::token);
+    }
+
+    /**
+     * See {@link RefreshTokenService#rotate}.
+     */
+    public Mono<RefreshTokenService.Issued> rotate(String token) {
+        return Mono.defer(() -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            String id = RefreshTokenService.hash(token);
+            return mongoTemplate.findAndModify(RefreshTokenService.unusedQuery(id, now),
+                    RefreshTokenService.markUsed(now), RefreshToken.class)
+                .flatMap(used -> insert(used.getUsername(), used.getFamily(), now))
+                .switchIfEmpty(Mono.defer(() -> mongoTemplate.findById(id, RefreshToken.class)
+                    .filter(presented -> presented.getUsedAt() != null)
+                    .flatMap(presented -> {
+                        logger.warn("Refresh token of user {} was used twice; revoking its family",
+                            presented.getUsername());
+                        return mongoTemplate.remove(RefreshTokenService.familyQuery(presented.getFamily()),
+                            RefreshToken.class);
+                    })
+                    .then(Mono.error(() -> new InvalidRefreshTokenException("Invalid refresh token")))));
+        });
+    }
+
+    public Mono<Void> revoke(String token) {
+        return Mono.defer(() -> mongoTemplate.findById(RefreshTokenService.hash(token), RefreshToken.class))
+            .flatMap(presented -> mongoTemplate.remove(RefreshTokenService.familyQuery(presented.getFamily()),
+                RefreshToken.class))
+            .then();
+    }
+
+    private Mono<RefreshTokenService.Issued> insert(String username, String family, OffsetDateTime now) {
+        return Mono.defer(() -> {
+            String token = RefreshTokenService.newToken();
+            return mongoTemplate.insert(RefreshTokenService.document(token, username, family, now.plus(expiration)))
+                .thenReturn(new RefreshTokenService.Issued(username, token));
+        });
+    }
+}
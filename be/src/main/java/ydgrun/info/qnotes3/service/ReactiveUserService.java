@@ -0,0 +1,45 @@
+package ydgrun.info.qnotes3.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.User;
+import ydgrun.info.qnotes3.repository.ReactiveUserRepository;
+
+/**
+ * Non-blocking counterpart of {@link UserService}. Hashing and matching run on the
+ * {@link PasswordHasher} pool, never on an event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+    private final ReactiveUserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository, PasswordHasher passwordHasher) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+    }
+
+    public Mono<User> createUser(String username, String password) {
+        return userRepository.existsByUsername(username)
+            .flatMap(exists -> {
+                if (exists) {
+                    return Mono.error(new IllegalArgumentException("Username already exists"));
+                }
+                return Mono.fromFuture(() -> passwordHasher.encodeAsync(password));
+            })
+            .flatMap(encoded -> {
+                User user = new User();
+                user.setUsername(username);
+                user.setPassword(encoded);
+                return userRepository.save(user);
+            });
+    }
+
+    public Mono<User> authenticate(String username, String password) {
+        return userRepository.findByUsername(username)
+            .filterWhen(user -> Mono.fromFuture(() -> passwordHasher.matchesAsync(password, user.getPassword())))
+            .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Invalid credentials")));
+    }
+}
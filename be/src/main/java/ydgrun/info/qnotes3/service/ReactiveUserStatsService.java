@@ -0,0 +1,125 @@
+package ydgrun.info.qnotes3.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.UserStats;
+import ydgrun.info.qnotes3.repository.ReactiveNoteRepository;
+import ydgrun.info.qnotes3.repository.ReactiveUserStatsRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of {@link UserStatsService} for the reactive profile, on the same
+ * {@code user_stats} documents. The nightly reconciliation stays with {@link StatisticsReconciler}.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserStatsService {
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReactiveUserStatsRepository userStatsRepository;
+    private final ReactiveNoteRepository noteRepository;
+
+    public ReactiveUserStatsService(ReactiveMongoTemplate mongoTemplate, ReactiveUserStatsRepository userStatsRepository,
+                                    ReactiveNoteRepository noteRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.userStatsRepository = userStatsRepository;
+        this.noteRepository = noteRepository;
+    }
+
+    public Mono<Void> recordChange(Note before, Note after) {
+        UserStatsDelta delta = new UserStatsDelta();
+        delta.change(before, after);
+        return apply(after != null ? after.getUserId() : before.getUserId(), delta);
+    }
+
+    Mono<Void> apply(String userId, UserStatsDelta delta) {
+        if (delta.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<String> decrementedDays = delta.decrementedDays();
+        if (decrementedDays.isEmpty()) {
+            return mongoTemplate.upsert(UserStatsService.byId(userId), delta.toUpdate(), UserStats.class).then();
+        }
+        return mongoTemplate.findAndModify(UserStatsService.withDays(userId, decrementedDays), delta.toUpdate(),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), UserStats.class)
+            .flatMapMany(updated -> Flux.fromIterable(UserStatsService.emptiedDays(updated, decrementedDays)))
+            .concatMap(day -> mongoTemplate.updateFirst(UserStatsService.emptiedDay(userId, day),
+                new Update().unset(UserStatsDelta.dayField(day)), UserStats.class))
+            .then();
+    }
+
+    public Mono<Long> getChangeCount(String userId) {
+        return mongoTemplate.findOne(UserStatsService.changeCountField(userId), UserStats.class)
+            .map(UserStats::getChangeCount)
+            .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Same as {@link UserStatsService#getStatisticsVersion}; empty while the statistics were never built.
+     */
+    public Mono<String> getStatisticsVersion(String userId) {
+        OffsetDateTime staleThreshold = OffsetDateTime.now().minusDays(NoteService.STALE_AFTER_DAYS);
+        return mongoTemplate.findOne(UserStatsService.versionFields(userId, staleThreshold), UserStats.class)
+            .mapNotNull(stats -> UserStatsService.statisticsVersion(stats, staleThreshold));
+    }
+
+    public Mono<NoteStatistics> getStatistics(String userId) {
+        return userStatsRepository.findById(userId)
+            .filter(existing -> existing.getRebuiltAt() != null)
+            .switchIfEmpty(Mono.defer(() -> initialize(userId)))
+            .flatMap(stats -> countStaleNotes(stats, OffsetDateTime.now().minusDays(NoteService.STALE_AFTER_DAYS))
+                .map(staleCount -> UserStatsService.statistics(stats, staleCount)));
+    }
+
+    /**
+     * Same conditional write as {@link UserStatsService#rebuild}.
+     */
+    public Mono<UserStats> rebuild(String userId) {
+        return mongoTemplate.findOne(UserStatsService.rebuildGuardFields(userId), UserStats.class)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(read -> Mono.zip(noteRepository.aggregateStatistics(userId, OffsetDateTime.now()),
+                    noteRepository.countOpenNotesByUpdatedDay(userId))
+                .map(totals -> UserStatsService.rebuilt(userId, totals.getT1(), totals.getT2()))
+                .flatMap(stats -> mongoTemplate.upsert(UserStatsService.unchangedSince(userId, read.orElse(null)),
+                        UserStatsService.rebuiltFields(stats), UserStats.class)
+                    .thenReturn(stats)
+                    .onErrorResume(DuplicateKeyException.class, e -> userStatsRepository.findById(userId)
+                        .defaultIfEmpty(stats))));
+    }
+
+    /**
+     * Same conditional write as {@link UserStatsService}: only while {@code rebuiltAt} is absent.
+     */
+    private Mono<UserStats> initialize(String userId) {
+        return Mono.zip(noteRepository.aggregateStatistics(userId, OffsetDateTime.now()),
+                noteRepository.countOpenNotesByUpdatedDay(userId))
+            .map(totals -> UserStatsService.rebuilt(userId, totals.getT1(), totals.getT2()))
+            .flatMap(stats -> mongoTemplate.upsert(UserStatsService.notRebuilt(userId),
+                    UserStatsService.rebuiltFields(stats), UserStats.class)
+                .thenReturn(stats)
+                .onErrorResume(DuplicateKeyException.class, e -> userStatsRepository.findById(userId)
+                    .defaultIfEmpty(stats)));
+    }
+
+    private Mono<Long> countStaleNotes(UserStats stats, OffsetDateTime staleThreshold) {
+        long staleCount = UserStatsService.countStaleDays(stats, staleThreshold);
+        // Only the bucket containing the threshold is partially stale; count it precisely.
+        if (!UserStatsService.hasOpenNotesOnThresholdDay(stats, staleThreshold)) {
+            return Mono.just(staleCount);
+        }
+        return noteRepository.countOpenNotesUpdatedBetween(stats.getUserId(),
+                UserStatsService.thresholdDayStart(staleThreshold), staleThreshold)
+            .map(thresholdDayCount -> staleCount + thresholdDayCount);
+    }
+}
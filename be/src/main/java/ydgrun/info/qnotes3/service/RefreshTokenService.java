@@ -0,0 +1,129 @@
+package ydgrun.info.qnotes3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.RefreshToken;
+import ydgrun.info.qnotes3.exception.InvalidRefreshTokenException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens, so that an expired access token can be replaced with a
+ * point lookup instead of a password check. A refresh token can be exchanged once: the exchange
+ * marks it used and issues the next token of the same family. Presenting a used token again means
+ * it was copied, so the whole family is revoked and its holder has to log in again.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param username owner of the tokens
+     * @param token    refresh token to hand out; only its hash is stored
+     */
+    public record Issued(String username, String token) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration expiration;
+
+    public RefreshTokenService(MongoTemplate mongoTemplate,
+                               @Value("${jwt.refresh.expiration}") Duration expiration) {
+        this.mongoTemplate = mongoTemplate;
+        this.expiration = expiration;
+    }
+
+    /**
+     * Starts a new family, on login or registration.
+     */
+    public String issue(String username) {
+        return insert(username, UUID.randomUUID().toString(), OffsetDateTime.now()).token();
+    }
+
+    /**
+     * Exchanges an unused, unexpired refresh token for the next one.
+     *
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or used
+     */
+    public Issued rotate(String token) {
+        OffsetDateTime now = OffsetDateTime.now();
+        String id = hash(token);
+        RefreshToken used = mongoTemplate.findAndModify(unusedQuery(id, now), markUsed(now), RefreshToken.class);
+        if (used == null) {
+            RefreshToken presented = mongoTemplate.findById(id, RefreshToken.class);
+            if (presented != null && presented.getUsedAt() != null) {
+                logger.warn("Refresh token of user {} was used twice; revoking its family", presented.getUsername());
+                mongoTemplate.remove(familyQuery(presented.getFamily()), RefreshToken.class);
+            }
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        return insert(used.getUsername(), used.getFamily(), now);
+    }
+
+    /**
+     * Revokes the token and every token of its family; unknown tokens are ignored.
+     */
+    public void revoke(String token) {
+        RefreshToken presented = mongoTemplate.findById(hash(token), RefreshToken.class);
+        if (presented != null) {
+            mongoTemplate.remove(familyQuery(presented.getFamily()), RefreshToken.class);
+        }
+    }
+
+    private Issued insert(String username, String family, OffsetDateTime now) {
+        String token = newToken();
+        mongoTemplate.insert(document(token, username, family, now.plus(expiration)));
+        return new Issued(username, token);
+    }
+
+    static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static RefreshToken document(String token, String username, String family, OffsetDateTime expiresAt) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setId(hash(token));
+        refreshToken.setUsername(username);
+        refreshToken.setFamily(family);
+        refreshToken.setExpiresAt(expiresAt);
+        return refreshToken;
+    }
+
+    static Query unusedQuery(String id, OffsetDateTime now) {
+        return Query.query(Criteria.where("_id").is(id).and("usedAt").is(null).and("expiresAt").gt(now));
+    }
+
+    static Update markUsed(OffsetDateTime now) {
+        return new Update().set("usedAt", now);
+    }
+
+    static Query familyQuery(String family) {
+        return Query.query(Criteria.where("family").is(family));
+    }
+}
@@ -0,0 +1,74 @@
+package ydgrun.info.qnotes3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.JobLock;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Rebuilds the {@code user_stats} document of every user nightly, on a single instance. The lock
+ * is kept for {@code notes.stats.reconcile-lock} even when the run ends sooner, so that instances
+ * whose clocks are a little behind do not run it again; it must stay shorter than the time
+ * between two runs.
+ */
+@Service
+public class StatisticsReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsReconciler.class);
+    static final String JOB = "statistics-reconcile";
+
+    private final MongoTemplate mongoTemplate;
+    private final NoteRepository noteRepository;
+    private final UserStatsService userStatsService;
+    private final String nodeId;
+    private final Duration lockFor;
+
+    public StatisticsReconciler(MongoTemplate mongoTemplate, NoteRepository noteRepository,
+                                UserStatsService userStatsService,
+                                @Value("${notes.change-stream.node-id}") String nodeId,
+                                @Value("${notes.stats.reconcile-lock}") Duration lockFor) {
+        this.mongoTemplate = mongoTemplate;
+        this.noteRepository = noteRepository;
+        this.userStatsService = userStatsService;
+        this.nodeId = nodeId;
+        this.lockFor = lockFor;
+    }
+
+    @Scheduled(cron = "${notes.stats.reconcile-cron}")
+    public void reconcileAll() {
+        if (!tryLock(OffsetDateTime.now())) {
+            logger.info("Statistics are reconciled by another instance");
+            return;
+        }
+        List<String> userIds = noteRepository.findDistinctUserIds();
+        logger.info("Reconciling statistics for {} users", userIds.size());
+        for (String userId : userIds) {
+            userStatsService.rebuild(userId);
+        }
+    }
+
+    /**
+     * Takes the lock if it is free at {@code now}. The write only matches an expired lock; while it
+     * is held, the upsert tries to insert a second document with the same id and fails instead.
+     */
+    boolean tryLock(OffsetDateTime now) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(JOB).and("lockedUntil").lt(now)),
+                new Update().set("lockedUntil", now.plus(lockFor)).set("lockedBy", nodeId), JobLock.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
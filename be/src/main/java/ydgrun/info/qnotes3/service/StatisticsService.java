@@ -1,22 +1,33 @@
 package ydgrun.info.qnotes3.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
 import ydgrun.info.qnotes3.model.Statistics;
 
+/**
+ * Assembles the statistics response; the time spent in each component is recorded by
+ * {@link UserStatsService} as {@code notes.statistics.component}.
+ */
 @Service
+@Timed(value = "notes.statistics", histogram = true)
 public class StatisticsService {
-    private final NoteService noteService;
+    private final UserStatsService userStatsService;
 
-    public StatisticsService(NoteService noteService) {
-        this.noteService = noteService;
+    public StatisticsService(UserStatsService userStatsService) {
+        this.userStatsService = userStatsService;
     }
 
     public Statistics getStatistics(String userId) {
+        return toStatistics(userStatsService.getStatistics(userId));
+    }
+
+    public static Statistics toStatistics(NoteStatistics noteStatistics) {
         Statistics stats = new Statistics();
-        stats.setStaleNotesCount(noteService.countStaleNotes(userId));
-        stats.setHighPriorityNotesCount(noteService.countHighPriorityNotes(userId));
-        stats.setAverageCompletionTimeHours((float) noteService.calculateAverageCompletionTime(userId));
-        stats.setAverageDeletionTimeHours((float) noteService.calculateAverageDeletionTime(userId));
+        stats.setStaleNotesCount((int) noteStatistics.staleCount());
+        stats.setHighPriorityNotesCount((int) noteStatistics.highPriorityCount());
+        stats.setAverageCompletionTimeHours((float) noteStatistics.averageCompletionHours());
+        stats.setAverageDeletionTimeHours((float) noteStatistics.averageDeletionHours());
         return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,395 @@
+package ydgrun.info.qnotes3.service;
+
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inverted index over the active notes of one user. Notes are numbered densely and every term
+ * keeps its postings as {@code (note number, weight)} pairs in one growable {@code int[]}, so the
+ * index holds no boxed numbers. An updated note gets a new number and its old one is marked
+ * removed; the arrays are compacted once removed numbers outnumber live ones.
+ * <p>
+ * Terms are stemmed like the search query; each also remembers the first spelling seen, which
+ * is what autocomplete matches against through a lazily sorted array of terms.
+ * <p>
+ * Not thread-safe: {@link NoteSearchIndex} holds {@link #lock} around every use. Changes that
+ * arrive while another thread holds it wait in {@link #pending} instead.
+ */
+final class UserNoteIndex {
+    static final int TITLE_WEIGHT = 3;
+    static final int CONTENT_WEIGHT = 1;
+    private static final byte REMOVED = -1;
+    private static final int MIN_REMOVED_TO_COMPACT = 64;
+
+    // Rough heap costs with compressed references
+    private static final int REFERENCE_BYTES = 4;
+    private static final int UUID_BYTES = 32;
+    private static final int STRING_BYTES = 40;
+    private static final int MAP_ENTRY_BYTES = 36;
+    private static final int TERM_BYTES = 24;
+    private static final int ARRAY_BYTES = 16;
+
+    record Hit(UUID noteId, double score) {
+    }
+
+    private static final class Term {
+        final String word;
+        int[] postings = new int[4];
+        int size;
+
+        Term(String word) {
+            this.word = word;
+        }
+
+        int documents() {
+            return size / 2;
+        }
+    }
+
+    private final Map<String, Term> terms = new HashMap<>();
+    private Term[] sortedTerms;
+    private UUID[] noteIds = new UUID[16];
+    private byte[] priorities = new byte[16];
+    private int[] slots = new int[32];
+    private int documents;
+    private int live;
+    private long termBytes;
+    private volatile long estimatedBytes;
+    // A lock rather than a monitor: it is held while the notes are read from Mongo, which would pin a virtual thread
+    final ReentrantLock lock = new ReentrantLock();
+    final Queue<Note> pending = new ConcurrentLinkedQueue<>();
+    boolean loaded;
+    volatile long lastUsed;
+
+    /**
+     * Indexes the note, replacing any earlier version of it; a deleted note is only removed.
+     */
+    void put(Note note) {
+        removeDocument(note.getId());
+        if (note.getDeletedAt() == null) {
+            addDocument(note);
+        }
+        compactIfSparse();
+        estimatedBytes = computeEstimatedBytes();
+    }
+
+    /**
+     * Indexes the queued changes in the order they arrived; the caller holds the lock.
+     */
+    void applyPending() {
+        for (Note note = pending.poll(); note != null; note = pending.poll()) {
+            put(note);
+        }
+    }
+
+    int size() {
+        return live;
+    }
+
+    /**
+     * Readable without holding the lock of the index.
+     */
+    long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Ranks the notes containing any of the stemmed terms by the sum of their weighted term
+     * frequencies times inverse document frequencies; ties go to the most recently indexed note.
+     */
+    List<Hit> search(List<String> stems, Note.Priority priority, int limit) {
+        if (live == 0) {
+            return List.of();
+        }
+        float[] scores = new float[documents];
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (String stem : new LinkedHashSet<>(stems)) {
+            Term term = terms.get(stem);
+            if (term == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (double) live / term.documents());
+            int[] postings = term.postings;
+            for (int i = 0; i < term.size; i += 2) {
+                int document = postings[i];
+                byte documentPriority = priorities[document];
+                if (documentPriority == REMOVED || priority != null && documentPriority != priority.ordinal()) {
+                    continue;
+                }
+                if (scores[document] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = document;
+                }
+                scores[document] += (float) (postings[i + 1] * idf);
+            }
+        }
+
+        // Min-heap of the best documents seen so far, worst at the root
+        int[] heap = new int[Math.min(limit, touchedCount)];
+        int heapSize = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int document = touched[i];
+            if (heapSize < heap.length) {
+                heap[heapSize] = document;
+                siftUp(heap, heapSize++, scores);
+            } else if (better(document, heap[0], scores)) {
+                heap[0] = document;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+        Hit[] hits = new Hit[heapSize];
+        while (heapSize > 0) {
+            int worst = heap[0];
+            hits[--heapSize] = new Hit(noteIds[worst], scores[worst]);
+            heap[0] = heap[heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * Words starting with the lower-case prefix, in most notes first and alphabetically on ties.
+     */
+    List<String> suggest(String prefix, int limit) {
+        Term[] sorted = sortedTerms();
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].word.compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<Term> matches = new ArrayList<>();
+        for (int i = low; i < sorted.length && sorted[i].word.startsWith(prefix); i++) {
+            matches.add(sorted[i]);
+        }
+        return matches.stream()
+            .sorted(Comparator.comparingInt(Term::documents).reversed())
+            .limit(limit)
+            .map(term -> term.word)
+            .toList();
+    }
+
+    private void addDocument(Note note) {
+        if (documents == noteIds.length) {
+            noteIds = Arrays.copyOf(noteIds, documents * 2);
+            priorities = Arrays.copyOf(priorities, documents * 2);
+        }
+        if ((documents + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        int document = documents++;
+        noteIds[document] = note.getId();
+        priorities[document] = (byte) note.getPriority().ordinal();
+        insertSlot(document);
+        live++;
+        indexText(document, note.getTitle(), TITLE_WEIGHT);
+        indexText(document, note.getContent(), CONTENT_WEIGHT);
+    }
+
+    private void removeDocument(UUID noteId) {
+        int document = find(noteId);
+        if (document >= 0) {
+            priorities[document] = REMOVED;
+            live--;
+        }
+    }
+
+    private void indexText(int document, String text, int weight) {
+        NoteSearchSnippets.forEachWord(text, word -> {
+            String stem = NoteSearchSnippets.stem(word);
+            Term term = terms.get(stem);
+            if (term == null) {
+                term = new Term(word);
+                terms.put(stem, term);
+                sortedTerms = null;
+                termBytes += termOverhead(stem, word) + ARRAY_BYTES + term.postings.length * 4L;
+            }
+            append(term, document, weight);
+        });
+    }
+
+    private void append(Term term, int document, int weight) {
+        if (term.size > 0 && term.postings[term.size - 2] == document) {
+            term.postings[term.size - 1] += weight;
+            return;
+        }
+        if (term.size == term.postings.length) {
+            termBytes += term.postings.length * 4L;
+            term.postings = Arrays.copyOf(term.postings, term.postings.length * 2);
+        }
+        term.postings[term.size++] = document;
+        term.postings[term.size++] = weight;
+    }
+
+    private int find(UUID noteId) {
+        int mask = slots.length - 1;
+        for (int slot = hash(noteId) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int document = slots[slot] - 1;
+            if (priorities[document] != REMOVED && noteIds[document].equals(noteId)) {
+                return document;
+            }
+        }
+        return -1;
+    }
+
+    private void insertSlot(int document) {
+        int mask = slots.length - 1;
+        int slot = hash(noteIds[document]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = document + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int document = 0; document < documents; document++) {
+            if (priorities[document] != REMOVED) {
+                insertSlot(document);
+            }
+        }
+    }
+
+    private static int hash(UUID noteId) {
+        int hash = noteId.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Renumbers the live notes densely and drops their removed postings. The numbering keeps its
+     * order, so postings stay sorted.
+     */
+    private void compactIfSparse() {
+        int removed = documents - live;
+        if (removed < MIN_REMOVED_TO_COMPACT || removed < live) {
+            return;
+        }
+        int[] renumbered = new int[documents];
+        int next = 0;
+        for (int document = 0; document < documents; document++) {
+            if (priorities[document] == REMOVED) {
+                renumbered[document] = -1;
+            } else {
+                renumbered[document] = next;
+                noteIds[next] = noteIds[document];
+                priorities[next] = priorities[document];
+                next++;
+            }
+        }
+        Arrays.fill(noteIds, next, documents, null);
+        documents = next;
+
+        termBytes = 0;
+        Iterator<Map.Entry<String, Term>> entries = terms.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Term> entry = entries.next();
+            Term term = entry.getValue();
+            int size = 0;
+            for (int i = 0; i < term.size; i += 2) {
+                int document = renumbered[term.postings[i]];
+                if (document >= 0) {
+                    term.postings[size++] = document;
+                    term.postings[size++] = term.postings[i + 1];
+                }
+            }
+            if (size == 0) {
+                entries.remove();
+                continue;
+            }
+            term.size = size;
+            if (size * 4 <= term.postings.length) {
+                term.postings = Arrays.copyOf(term.postings, size * 2);
+            }
+            termBytes += termOverhead(entry.getKey(), term.word) + ARRAY_BYTES + term.postings.length * 4L;
+        }
+        sortedTerms = null;
+
+        int capacity = 32;
+        while (capacity < (documents + 1) * 2) {
+            capacity *= 2;
+        }
+        rehash(capacity);
+    }
+
+    private Term[] sortedTerms() {
+        if (sortedTerms == null) {
+            sortedTerms = terms.values().toArray(new Term[0]);
+            Arrays.sort(sortedTerms, Comparator.comparing(term -> term.word));
+        }
+        return sortedTerms;
+    }
+
+    private static long termOverhead(String stem, String word) {
+        long strings = STRING_BYTES + stem.length() + (stem.equals(word) ? 0 : STRING_BYTES + word.length());
+        return MAP_ENTRY_BYTES + TERM_BYTES + REFERENCE_BYTES + strings;
+    }
+
+    private long computeEstimatedBytes() {
+        return termBytes
+            + ARRAY_BYTES + (long) noteIds.length * REFERENCE_BYTES + (long) documents * UUID_BYTES
+            + ARRAY_BYTES + priorities.length
+            + ARRAY_BYTES + slots.length * 4L
+            + (long) terms.size() * REFERENCE_BYTES * 2;
+    }
+
+    private static boolean better(int document, int other, float[] scores) {
+        int byScore = Float.compare(scores[document], scores[other]);
+        return byScore != 0 ? byScore > 0 : document > other;
+    }
+
+    private static void siftUp(int[] heap, int index, float[] scores) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!better(heap[parent], heap[index], scores)) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(heap[worst], heap[left], scores)) {
+                worst = left;
+            }
+            if (right < size && better(heap[worst], heap[right], scores)) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+}
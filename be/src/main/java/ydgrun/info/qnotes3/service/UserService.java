@@ -1,18 +1,21 @@
 package ydgrun.info.qnotes3.service;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import ydgrun.info.qnotes3.domain.User;
 import ydgrun.info.qnotes3.repository.UserRepository;
 
+/**
+ * Passwords are hashed on the {@link PasswordHasher} pool; both methods throw
+ * {@link ydgrun.info.qnotes3.exception.PasswordHashingRejectedException} while it is saturated.
+ */
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
     }
 
     public User createUser(String username, String password) {
@@ -22,13 +25,13 @@ public class UserService {
 
         User user = new User();
         user.setUsername(username);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHasher.encode(password));
         return userRepository.save(user);
     }
 
     public User authenticate(String username, String password) {
         return userRepository.findByUsername(username)
-                .filter(user -> passwordEncoder.matches(password, user.getPassword()))
+                .filter(user -> passwordHasher.matches(password, user.getPassword()))
                 .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package ydgrun.info.qnotes3.service;
+
+import org.springframework.data.mongodb.core.query.Update;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Accumulates the effect of note writes on a user's {@link ydgrun.info.qnotes3.domain.UserStats}
+ * so that any number of changes can be applied with a single {@code $inc}. Every change counts
+ * towards {@code changeCount}, even one that leaves the statistics as they are.
+ */
+class UserStatsDelta {
+    private long highPriorityCount;
+    private long completedCount;
+    private double completionHoursSum;
+    private long deletedCount;
+    private double deletionHoursSum;
+    private final Map<String, Long> openByUpdatedDay = new HashMap<>();
+    private long changeCount;
+
+    void add(Note note) {
+        apply(note, 1);
+        changeCount++;
+    }
+
+    void remove(Note note) {
+        apply(note, -1);
+        changeCount++;
+    }
+
+    void change(Note before, Note after) {
+        if (before != null) {
+            apply(before, -1);
+        }
+        if (after != null) {
+            apply(after, 1);
+        }
+        changeCount++;
+    }
+
+    boolean isEmpty() {
+        return toUpdate().getUpdateObject().isEmpty();
+    }
+
+    Update toUpdate() {
+        Update update = new Update();
+        incIfNonZero(update, "highPriorityCount", highPriorityCount);
+        incIfNonZero(update, "completedCount", completedCount);
+        incIfNonZero(update, "completionHoursSum", completionHoursSum);
+        incIfNonZero(update, "deletedCount", deletedCount);
+        incIfNonZero(update, "deletionHoursSum", deletionHoursSum);
+        openByUpdatedDay.forEach((day, count) -> incIfNonZero(update, dayField(day), count));
+        incIfNonZero(update, "changeCount", changeCount);
+        return update;
+    }
+
+    /**
+     * Day buckets this delta decrements, the only ones it can bring down to zero.
+     */
+    Set<String> decrementedDays() {
+        return openByUpdatedDay.entrySet().stream()
+            .filter(bucket -> bucket.getValue() < 0)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+    }
+
+    static String dayField(String day) {
+        return "openByUpdatedDay." + day;
+    }
+
+    static String dayOf(OffsetDateTime dateTime) {
+        return dateTime.atZoneSameInstant(ZoneOffset.UTC).toLocalDate().toString();
+    }
+
+    private void apply(Note note, int sign) {
+        if (note.getDeletedAt() != null) {
+            deletedCount += sign;
+            deletionHoursSum += sign * hoursBetween(note.getCreatedAt(), note.getDeletedAt());
+            return;
+        }
+
+        if (note.getPriority() == Note.Priority.NOW) {
+            highPriorityCount += sign;
+        }
+        if (note.getPriority() == Note.Priority.DONE) {
+            completedCount += sign;
+            completionHoursSum += sign * hoursBetween(note.getCreatedAt(), note.getUpdatedAt());
+        } else {
+            openByUpdatedDay.merge(dayOf(note.getUpdatedAt()), (long) sign, Long::sum);
+        }
+    }
+
+    private static double hoursBetween(OffsetDateTime start, OffsetDateTime end) {
+        return Duration.between(start, end).toMillis() / 3_600_000.0;
+    }
+
+    private static void incIfNonZero(Update update, String key, long value) {
+        if (value != 0) {
+            update.inc(key, value);
+        }
+    }
+
+    private static void incIfNonZero(Update update, String key, double value) {
+        if (value != 0.0) {
+            update.inc(key, value);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.domain.UserStats;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+import ydgrun.info.qnotes3.repository.UserStatsRepository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the {@code user_stats} document of each user so that statistics can be
+ * served with a point read instead of scanning the user's notes.
+ */
+@Service
+public class UserStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final UserStatsRepository userStatsRepository;
+    private final NoteRepository noteRepository;
+    private final Timer documentTimer;
+    private final Timer rebuildTimer;
+    private final Timer staleTimer;
+
+    public UserStatsService(MongoTemplate mongoTemplate, UserStatsRepository userStatsRepository,
+                            NoteRepository noteRepository, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.userStatsRepository = userStatsRepository;
+        this.noteRepository = noteRepository;
+        this.documentTimer = componentTimer(meterRegistry, "document");
+        this.rebuildTimer = componentTimer(meterRegistry, "rebuild");
+        this.staleTimer = componentTimer(meterRegistry, "stale");
+    }
+
+    private static Timer componentTimer(MeterRegistry meterRegistry, String component) {
+        return Timer.builder("notes.statistics.component")
+                .description("Time spent in one component of the statistics")
+                .tag("component", component)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies the difference between two states of the same note; either side may be null
+     * for inserts and hard deletes.
+     */
+    public void recordChange(Note before, Note after) {
+        UserStatsDelta delta = new UserStatsDelta();
+        delta.change(before, after);
+        apply(after != null ? after.getUserId() : before.getUserId(), delta);
+    }
+
+    void apply(String userId, UserStatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        Set<String> decrementedDays = delta.decrementedDays();
+        if (decrementedDays.isEmpty()) {
+            mongoTemplate.upsert(byId(userId), delta.toUpdate(), UserStats.class);
+            return;
+        }
+        UserStats updated = mongoTemplate.findAndModify(withDays(userId, decrementedDays), delta.toUpdate(),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), UserStats.class);
+        for (String day : emptiedDays(updated, decrementedDays)) {
+            mongoTemplate.updateFirst(emptiedDay(userId, day), new Update().unset(UserStatsDelta.dayField(day)),
+                UserStats.class);
+        }
+    }
+
+    static Query byId(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+
+    /**
+     * Returns only the given day buckets, to see which ones a decrement brought down to zero.
+     */
+    static Query withDays(String userId, Set<String> days) {
+        Query query = byId(userId);
+        days.forEach(day -> query.fields().include(UserStatsDelta.dayField(day)));
+        return query;
+    }
+
+    static List<String> emptiedDays(UserStats updated, Set<String> decrementedDays) {
+        return decrementedDays.stream()
+            .filter(day -> updated.getOpenByUpdatedDay().getOrDefault(day, 0L) == 0)
+            .toList();
+    }
+
+    /**
+     * Matches only while the bucket is still empty, so that an increment racing with the
+     * {@code $unset} is kept; otherwise every day a note ever left would stay in the document.
+     */
+    static Query emptiedDay(String userId, String day) {
+        return Query.query(Criteria.where("_id").is(userId).and(UserStatsDelta.dayField(day)).is(0));
+    }
+
+    /**
+     * Advanced by every note write of the user before the write returns, on whichever instance
+     * served it; 0 before the first write.
+     */
+    public long getChangeCount(String userId) {
+        UserStats stats = mongoTemplate.findOne(changeCountField(userId), UserStats.class);
+        return stats != null ? stats.getChangeCount() : 0;
+    }
+
+    static Query changeCountField(String userId) {
+        Query query = byId(userId);
+        query.fields().include("changeCount");
+        return query;
+    }
+
+    /**
+     * Changes whenever {@link #getStatistics} may have changed, without computing them: with every
+     * write and rebuild, and with the clock, daily while no open note was last updated on the day
+     * of the stale threshold and every minute otherwise, so a revalidated stale count may be up to
+     * a minute behind. Null while the statistics were never built.
+     */
+    public String getStatisticsVersion(String userId) {
+        OffsetDateTime staleThreshold = OffsetDateTime.now().minusDays(NoteService.STALE_AFTER_DAYS);
+        return statisticsVersion(mongoTemplate.findOne(versionFields(userId, staleThreshold), UserStats.class),
+            staleThreshold);
+    }
+
+    static Query versionFields(String userId, OffsetDateTime staleThreshold) {
+        Query query = byId(userId);
+        query.fields().include("changeCount", "rebuiltAt",
+            UserStatsDelta.dayField(UserStatsDelta.dayOf(staleThreshold)));
+        return query;
+    }
+
+    static String statisticsVersion(UserStats stats, OffsetDateTime staleThreshold) {
+        if (stats == null || stats.getRebuiltAt() == null) {
+            return null;
+        }
+        OffsetDateTime clock = hasOpenNotesOnThresholdDay(stats, staleThreshold)
+            ? staleThreshold.truncatedTo(ChronoUnit.MINUTES)
+            : thresholdDayStart(staleThreshold);
+        return Long.toHexString(stats.getChangeCount())
+            + "-" + Long.toHexString(stats.getRebuiltAt().toInstant().toEpochMilli())
+            + "-" + Long.toHexString(clock.toEpochSecond() / 60);
+    }
+
+    public NoteStatistics getStatistics(String userId) {
+        UserStats stats = documentTimer.record(() -> userStatsRepository.findById(userId)
+                .filter(existing -> existing.getRebuiltAt() != null)
+                .orElse(null));
+        if (stats == null) {
+            stats = rebuildTimer.record(() -> initialize(userId));
+        }
+        UserStats current = stats;
+        long staleCount = staleTimer.record(() ->
+                countStaleNotes(current, OffsetDateTime.now().minusDays(NoteService.STALE_AFTER_DAYS)));
+        return statistics(stats, staleCount);
+    }
+
+    static NoteStatistics statistics(UserStats stats, long staleCount) {
+        return new NoteStatistics(
+            staleCount,
+            stats.getHighPriorityCount(),
+            stats.getCompletedCount(),
+            stats.getCompletionHoursSum(),
+            stats.getDeletedCount(),
+            stats.getDeletionHoursSum()
+        );
+    }
+
+    /**
+     * Recomputes the statistics document of a user from the notes collection. Sets only the
+     * rebuilt fields, so that {@code changeCount} keeps counting, and only while neither a write
+     * nor another rebuild changed the document since it was read: the rebuild is then skipped
+     * and returns the current document, and a drift it would have corrected waits for the next one.
+     */
+    public UserStats rebuild(String userId) {
+        return rebuildTimer.record(() -> rebuildNow(userId));
+    }
+
+    private UserStats rebuildNow(String userId) {
+        UserStats read = mongoTemplate.findOne(rebuildGuardFields(userId), UserStats.class);
+        NoteStatistics totals = noteRepository.aggregateStatistics(userId, OffsetDateTime.now());
+        UserStats stats = rebuilt(userId, totals, noteRepository.countOpenNotesByUpdatedDay(userId));
+        try {
+            mongoTemplate.upsert(unchangedSince(userId, read), rebuiltFields(stats), UserStats.class);
+            return stats;
+        } catch (DuplicateKeyException e) {
+            logger.debug("Statistics of user {} changed while they were rebuilt", userId);
+            return userStatsRepository.findById(userId).orElse(stats);
+        }
+    }
+
+    static Query rebuildGuardFields(String userId) {
+        Query query = byId(userId);
+        query.fields().include("rebuiltAt", "changeCount");
+        return query;
+    }
+
+    /**
+     * Matches while the document still has the {@code rebuiltAt} and {@code changeCount} that were
+     * read, or is still missing when {@code read} is null; otherwise the upsert fails on the id.
+     */
+    static Query unchangedSince(String userId, UserStats read) {
+        Criteria criteria = Criteria.where("_id").is(userId);
+        if (read == null || read.getRebuiltAt() == null) {
+            criteria.and("rebuiltAt").exists(false);
+        } else {
+            criteria.and("rebuiltAt").is(read.getRebuiltAt());
+        }
+        if (read == null || read.getChangeCount() == 0) {
+            // Documents written before changeCount existed have none
+            criteria.and("changeCount").in(0L, null);
+        } else {
+            criteria.and("changeCount").is(read.getChangeCount());
+        }
+        return Query.query(criteria);
+    }
+
+    /**
+     * Builds the document of a user that was never rebuilt. The write only matches while
+     * {@code rebuiltAt} is absent, so it cannot overwrite a concurrent rebuild nor the
+     * increments applied after it; losing that race returns the winner's document instead.
+     */
+    private UserStats initialize(String userId) {
+        NoteStatistics totals = noteRepository.aggregateStatistics(userId, OffsetDateTime.now());
+        UserStats stats = rebuilt(userId, totals, noteRepository.countOpenNotesByUpdatedDay(userId));
+        try {
+            mongoTemplate.upsert(notRebuilt(userId), rebuiltFields(stats), UserStats.class);
+            return stats;
+        } catch (DuplicateKeyException e) {
+            return userStatsRepository.findById(userId).orElse(stats);
+        }
+    }
+
+    static Query notRebuilt(String userId) {
+        return Query.query(Criteria.where("_id").is(userId).and("rebuiltAt").exists(false));
+    }
+
+    static Update rebuiltFields(UserStats stats) {
+        return new Update()
+            .set("highPriorityCount", stats.getHighPriorityCount())
+            .set("completedCount", stats.getCompletedCount())
+            .set("completionHoursSum", stats.getCompletionHoursSum())
+            .set("deletedCount", stats.getDeletedCount())
+            .set("deletionHoursSum", stats.getDeletionHoursSum())
+            .set("openByUpdatedDay", stats.getOpenByUpdatedDay())
+            .set("rebuiltAt", stats.getRebuiltAt());
+    }
+
+    static UserStats rebuilt(String userId, NoteStatistics totals, Map<String, Long> openByUpdatedDay) {
+        UserStats stats = new UserStats();
+        stats.setUserId(userId);
+        stats.setHighPriorityCount(totals.highPriorityCount());
+        stats.setCompletedCount(totals.completedCount());
+        stats.setCompletionHoursSum(totals.completionHoursSum());
+        stats.setDeletedCount(totals.deletedCount());
+        stats.setDeletionHoursSum(totals.deletionHoursSum());
+        stats.setOpenByUpdatedDay(openByUpdatedDay);
+        stats.setRebuiltAt(OffsetDateTime.now());
+        return stats;
+    }
+
+    private long countStaleNotes(UserStats stats, OffsetDateTime staleThreshold) {
+        long staleCount = countStaleDays(stats, staleThreshold);
+        // Only the bucket containing the threshold is partially stale; count it precisely.
+        if (hasOpenNotesOnThresholdDay(stats, staleThreshold)) {
+            staleCount += noteRepository.countOpenNotesUpdatedBetween(stats.getUserId(),
+                thresholdDayStart(staleThreshold), staleThreshold);
+        }
+        return staleCount;
+    }
+
+    /**
+     * Open notes of the day buckets entirely before the UTC day of the threshold.
+     */
+    static long countStaleDays(UserStats stats, OffsetDateTime staleThreshold) {
+        LocalDate thresholdDay = thresholdDayStart(staleThreshold).toLocalDate();
+        long staleCount = 0;
+        for (Map.Entry<String, Long> bucket : stats.getOpenByUpdatedDay().entrySet()) {
+            if (LocalDate.parse(bucket.getKey()).isBefore(thresholdDay)) {
+                staleCount += bucket.getValue();
+            }
+        }
+        return staleCount;
+    }
+
+    static boolean hasOpenNotesOnThresholdDay(UserStats stats, OffsetDateTime staleThreshold) {
+        String thresholdDay = thresholdDayStart(staleThreshold).toLocalDate().toString();
+        return stats.getOpenByUpdatedDay().getOrDefault(thresholdDay, 0L) > 0;
+    }
+
+    static OffsetDateTime thresholdDayStart(OffsetDateTime staleThreshold) {
+        return staleThreshold.atZoneSameInstant(ZoneOffset.UTC).toLocalDate().atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,100 @@
+package ydgrun.info.qnotes3;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.UuidRepresentation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import ydgrun.info.qnotes3.config.MongoConfig;
+import ydgrun.info.qnotes3.config.MongoIndexInitializer;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+import ydgrun.info.qnotes3.repository.NoteRepositoryCustomImpl;
+import ydgrun.info.qnotes3.repository.UserStatsRepository;
+import ydgrun.info.qnotes3.service.NoteReadCache;
+import ydgrun.info.qnotes3.service.NoteService;
+import ydgrun.info.qnotes3.service.UserStatsService;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Embedded mongod plus the Mongo beans of the application, wired by hand so that
+ * benchmarks measure the data path without starting a Spring context.
+ */
+public final class PerfMongo implements AutoCloseable {
+    private final TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private final MongoClient client;
+    private final MongoTemplate mongoTemplate;
+    private final NoteRepository noteRepository;
+    private final UserStatsRepository userStatsRepository;
+
+    private PerfMongo(TransitionWalker.ReachedState<RunningMongodProcess> mongod) {
+        this.mongod = mongod;
+        ServerAddress address = mongod.current().getServerAddress();
+        this.client = MongoClients.create(MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString("mongodb://" + address.getHost() + ":" + address.getPort()))
+            .uuidRepresentation(UuidRepresentation.JAVA_LEGACY)
+            .build());
+
+        var databaseFactory = new SimpleMongoClientDatabaseFactory(client, "qnotes3-perf");
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(databaseFactory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        this.mongoTemplate = new MongoTemplate(databaseFactory, converter);
+        new MongoIndexInitializer(mongoTemplate).createIndexes();
+
+        MongoRepositoryFactory repositoryFactory = new MongoRepositoryFactory(mongoTemplate);
+        this.noteRepository = repositoryFactory.getRepository(NoteRepository.class,
+            RepositoryComposition.RepositoryFragments.just(new NoteRepositoryCustomImpl(mongoTemplate)));
+        this.userStatsRepository = repositoryFactory.getRepository(UserStatsRepository.class);
+    }
+
+    public static PerfMongo start() {
+        return new PerfMongo(Mongod.instance().start(Version.Main.V7_0));
+    }
+
+    public MongoTemplate mongoTemplate() {
+        return mongoTemplate;
+    }
+
+    public NoteRepository noteRepository() {
+        return noteRepository;
+    }
+
+    public UserStatsRepository userStatsRepository() {
+        return userStatsRepository;
+    }
+
+    public UserStatsService userStatsService() {
+        return new UserStatsService(mongoTemplate, userStatsRepository, noteRepository, new SimpleMeterRegistry());
+    }
+
+    public NoteService noteService() {
+        NoteReadCache readCache = new NoteReadCache(10_000, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        return new NoteService(noteRepository, userStatsService(), readCache, List.of(readCache));
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        mongod.close();
+    }
+}
@@ -0,0 +1,91 @@
+package ydgrun.info.qnotes3.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ydgrun.info.qnotes3.service.JwtService;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request with a valid bearer token.
+ * <p>
+ * {@code legacyDoubleParse} reproduces the previous filter: a new parser per call and two full
+ * signature verifications (subject, then expiration). {@code filter} runs the real
+ * {@link JwtAuthFilter}; with {@code cacheMaxSize=0} every request verifies the signature once,
+ * otherwise repeated tokens are served from the verified-claims cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"0", "10000"})
+    public long cacheMaxSize;
+
+    private JwtAuthFilter filter;
+    private String token;
+    private SecretKey legacyKey;
+    private String legacyToken;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService(86_400_000L, cacheMaxSize, List.of(), "");
+        filter = new JwtAuthFilter(jwtService);
+        token = jwtService.generateToken("benchmark-user");
+
+        legacyKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        legacyToken = Jwts.builder()
+                .setSubject("benchmark-user")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 86_400_000L))
+                .signWith(legacyKey)
+                .compact();
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public boolean legacyDoubleParse() {
+        String subject = legacyClaims().getSubject();
+        boolean valid = !legacyClaims().getExpiration().before(new Date());
+        return subject != null && valid;
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parserBuilder()
+                .setSigningKey(legacyKey)
+                .build()
+                .parseClaimsJws(legacyToken)
+                .getBody();
+    }
+}
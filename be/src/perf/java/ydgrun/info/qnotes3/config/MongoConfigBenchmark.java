@@ -0,0 +1,52 @@
+package ydgrun.info.qnotes3.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link MongoConfig} OffsetDateTime/Date converters as the Mongo mapping layer calls
+ * them: through a conversion service they are registered in, once per date field read or written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MongoConfigBenchmark {
+
+    private DefaultConversionService conversionService;
+    private OffsetDateTime offsetDateTime;
+    private Date date;
+
+    @Setup
+    public void setUp() {
+        conversionService = new DefaultConversionService();
+        new MongoConfig().mongoCustomConversions().registerConvertersIn(conversionService);
+        offsetDateTime = OffsetDateTime.now();
+        date = new Date();
+    }
+
+    @Benchmark
+    public Date offsetDateTimeToDate() {
+        return conversionService.convert(offsetDateTime, Date.class);
+    }
+
+    @Benchmark
+    public OffsetDateTime dateToOffsetDateTime() {
+        return conversionService.convert(date, OffsetDateTime.class);
+    }
+}
@@ -0,0 +1,87 @@
+package ydgrun.info.qnotes3.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.model.NotesResponse;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing a page of {@code GET /api/notes}: mapping one domain note with
+ * {@link NoteMapper#toApiNote}, and serializing a 10-note {@link NotesResponse} with an
+ * {@link ObjectMapper} configured like Spring Boot's, with and without the mapping step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotesResponseBenchmark {
+    private static final int PAGE_SIZE = 10;
+
+    private ObjectMapper objectMapper;
+    private List<Note> domainNotes;
+    private NotesResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        OffsetDateTime now = OffsetDateTime.now();
+        domainNotes = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Note note = new Note();
+            note.setId(UUID.randomUUID());
+            note.setUserId("benchmark-user");
+            note.setTitle("Note " + i);
+            note.setContent("Content of note " + i + ", long enough to look like a short real note.");
+            note.setPriority(Note.Priority.values()[i % Note.Priority.values().length]);
+            note.setCreatedAt(now.minusDays(i));
+            note.setUpdatedAt(now.minusHours(i));
+            domainNotes.add(note);
+        }
+        response = page();
+    }
+
+    private NotesResponse page() {
+        NotesResponse page = new NotesResponse();
+        page.setNotes(domainNotes.stream().map(NoteMapper::toApiNote).toList());
+        page.setTotalPages(5);
+        page.setCurrentPage(0);
+        return page;
+    }
+
+    @Benchmark
+    public ydgrun.info.qnotes3.model.Note toApiNote() {
+        return NoteMapper.toApiNote(domainNotes.get(0));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page());
+    }
+}
@@ -0,0 +1,33 @@
+package ydgrun.info.qnotes3.load;
+
+/**
+ * Calls in the load mix, with their share of all requests in percent. Reads dominate, as in the
+ * UI: every screen lists a page and most also open a note or the statistics.
+ */
+enum Endpoint {
+    LOGIN("POST /api/auth/login", 3),
+    LIST("GET /api/notes", 32),
+    GET("GET /api/notes/{id}", 25),
+    CREATE("POST /api/notes", 10),
+    UPDATE("PATCH /api/notes/{id}", 10),
+    DELETE("DELETE /api/notes/{id}", 5),
+    STATISTICS("GET /api/notes/statistics", 15);
+
+    final String label;
+    final int weight;
+
+    Endpoint(String label, int weight) {
+        this.label = label;
+        this.weight = weight;
+    }
+
+    static Endpoint pick(int percent) {
+        for (Endpoint endpoint : values()) {
+            percent -= endpoint.weight;
+            if (percent < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Weights do not add up to 100");
+    }
+}
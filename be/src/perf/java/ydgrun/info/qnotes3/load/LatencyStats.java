@@ -0,0 +1,70 @@
+package ydgrun.info.qnotes3.load;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Latencies and errors per endpoint. Each client records into its own instance without locking;
+ * the instances are merged once the run is over. All latencies are kept, so percentiles are exact.
+ */
+final class LatencyStats {
+    private final Map<Endpoint, long[]> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> counts = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> errors = new EnumMap<>(Endpoint.class);
+
+    void record(Endpoint endpoint, long nanos, boolean error) {
+        long[] values = latencies.computeIfAbsent(endpoint, e -> new long[1024]);
+        int count = counts.getOrDefault(endpoint, 0);
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+            latencies.put(endpoint, values);
+        }
+        values[count] = nanos;
+        counts.put(endpoint, count + 1);
+        if (error) {
+            errors.merge(endpoint, 1, Integer::sum);
+        }
+    }
+
+    void addAll(LatencyStats other) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            int count = other.count(endpoint);
+            long[] values = other.latencies.get(endpoint);
+            for (int i = 0; i < count; i++) {
+                record(endpoint, values[i], false);
+            }
+            errors.merge(endpoint, other.errors(endpoint), Integer::sum);
+        }
+    }
+
+    int count(Endpoint endpoint) {
+        return counts.getOrDefault(endpoint, 0);
+    }
+
+    int errors(Endpoint endpoint) {
+        return errors.getOrDefault(endpoint, 0);
+    }
+
+    /**
+     * Recorded latencies of the endpoint in nanoseconds, in ascending order.
+     */
+    long[] sorted(Endpoint endpoint) {
+        long[] values = latencies.get(endpoint);
+        long[] sorted = values == null ? new long[0] : Arrays.copyOf(values, count(endpoint));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Latency below which the given fraction of the sorted latencies lies, by the nearest-rank
+     * method; 0 when there are none.
+     */
+    static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -0,0 +1,168 @@
+package ydgrun.info.qnotes3.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * One simulated user session: sends requests back to back, in the {@link Endpoint} mix, until the
+ * stop time and records every call that started after the warmup.
+ * <p>
+ * Clients of the same user only read and update the seeded notes, which they learn from the pages
+ * they list, and only delete notes they created themselves, so they never see each other's deletes
+ * as errors.
+ * <p>
+ * Login-only clients send nothing but {@link Endpoint#LOGIN}; refused logins count as errors.
+ */
+final class LoadClient implements Callable<LatencyStats> {
+    private static final String[] PRIORITIES = {"NOW", "LATER", "SOMEDAY", "DONE"};
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final LoadTest.SeededUser user;
+    private final Random random;
+    private final long measureFrom;
+    private final long stopAt;
+    private final boolean loginOnly;
+    private final LatencyStats stats = new LatencyStats();
+    private final List<UUID> seededNotes = new ArrayList<>();
+    private final Set<UUID> knownSeededNotes = new HashSet<>();
+    private final List<UUID> ownNotes = new ArrayList<>();
+    private String token;
+    private int totalPages = 1;
+
+    LoadClient(HttpClient http, ObjectMapper objectMapper, String baseUrl, LoadTest.SeededUser user,
+               long seed, long measureFrom, long stopAt, boolean loginOnly) {
+        this.http = http;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.user = user;
+        this.random = new Random(seed);
+        this.measureFrom = measureFrom;
+        this.stopAt = stopAt;
+        this.loginOnly = loginOnly;
+        this.token = user.token();
+    }
+
+    @Override
+    public LatencyStats call() {
+        while (System.nanoTime() < stopAt) {
+            Endpoint endpoint = loginOnly ? Endpoint.LOGIN : feasible(Endpoint.pick(random.nextInt(100)));
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = execute(endpoint);
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (start >= measureFrom) {
+                stats.record(endpoint, System.nanoTime() - start, !ok);
+            }
+        }
+        return stats;
+    }
+
+    private Endpoint feasible(Endpoint endpoint) {
+        return switch (endpoint) {
+            case GET, UPDATE -> seededNotes.isEmpty() ? Endpoint.LIST : endpoint;
+            case DELETE -> ownNotes.isEmpty() ? Endpoint.CREATE : endpoint;
+            default -> endpoint;
+        };
+    }
+
+    private boolean execute(Endpoint endpoint) throws IOException, InterruptedException {
+        return switch (endpoint) {
+            case LOGIN -> login();
+            case LIST -> listPage();
+            case GET -> succeeded(send(request("/api/notes/" + randomSeededNote()).GET()));
+            case CREATE -> create();
+            case UPDATE -> succeeded(send(request("/api/notes/" + randomSeededNote())
+                    .method("PATCH", json(Map.of("priority", randomPriority())))));
+            case DELETE -> succeeded(send(request("/api/notes/" + ownNotes.remove(ownNotes.size() - 1)).DELETE()));
+            case STATISTICS -> succeeded(send(request("/api/notes/statistics").GET()));
+        };
+    }
+
+    private boolean login() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("username", user.username(), "password", user.password())))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (!succeeded(response)) {
+            return false;
+        }
+        token = objectMapper.readTree(response.body()).get("token").asText();
+        return true;
+    }
+
+    private boolean listPage() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request("/api/notes?page=" + random.nextInt(totalPages)).GET());
+        if (!succeeded(response)) {
+            return false;
+        }
+        JsonNode page = objectMapper.readTree(response.body());
+        totalPages = Math.max(1, page.get("totalPages").asInt());
+        for (JsonNode note : page.get("notes")) {
+            UUID id = UUID.fromString(note.get("id").asText());
+            if (note.get("title").asText().startsWith(LoadTest.SEEDED_TITLE) && knownSeededNotes.add(id)) {
+                seededNotes.add(id);
+            }
+        }
+        return true;
+    }
+
+    private boolean create() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request("/api/notes").POST(json(Map.of(
+                "title", "Load test note " + random.nextInt(1_000_000),
+                "content", LoadTest.content(random),
+                "priority", randomPriority()))));
+        if (!succeeded(response)) {
+            return false;
+        }
+        ownNotes.add(UUID.fromString(objectMapper.readTree(response.body()).get("id").asText()));
+        return true;
+    }
+
+    private UUID randomSeededNote() {
+        return seededNotes.get(random.nextInt(seededNotes.size()));
+    }
+
+    private String randomPriority() {
+        return PRIORITIES[random.nextInt(PRIORITIES.length)];
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private static boolean succeeded(HttpResponse<?> response) {
+        return response.statusCode() / 100 == 2;
+    }
+}
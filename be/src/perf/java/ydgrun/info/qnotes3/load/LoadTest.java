@@ -0,0 +1,384 @@
+package ydgrun.info.qnotes3.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import ydgrun.info.qnotes3.Qnotes3Application;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * End-to-end load test: boots the application with embedded mongod (or targets a running server),
+ * registers users and imports their notes over HTTP, then drives the {@link Endpoint} mix from
+ * concurrent clients and reports throughput and latency percentiles per endpoint, on the console
+ * and as JSON.
+ * <p>
+ * Clients are closed-loop: each waits for its response before sending the next request, so
+ * latencies are service times under the offered concurrency and throughput is what the server
+ * sustains at that concurrency. In-process runs share the CPU with the clients; use
+ * {@code --base-url} to load a server on another machine or JVM.
+ * <p>
+ * Nothing is downloaded once the mongod archive for the configured version is in the flapdoodle
+ * cache ({@code ~/.embedmongo}); alternatively point {@code --mongo-uri} at a local mongod.
+ * <p>
+ * For in-process runs the report also shows how many requests the server was handling at once and
+ * the peak number of platform threads, which is how {@link VirtualThreadsComparison} tells the two
+ * threading modes apart. Clients run on virtual threads so that thousands of them fit in the JVM.
+ */
+public final class LoadTest {
+    static final String SEEDED_TITLE = "Seeded note";
+    private static final String PASSWORD = "load-test-password";
+    private static final String[] WORDS = {
+        "meeting", "review", "budget", "groceries", "deploy", "invoice", "travel", "doctor",
+        "release", "backlog", "training", "dentist", "report", "garden", "birthday", "call"
+    };
+
+    record SeededUser(String username, String password, String token) {
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        execute(LoadTestOptions.parse(args));
+    }
+
+    /**
+     * Runs the load test and returns the report that is also written to the output file.
+     */
+    static Map<String, Object> execute(LoadTestOptions options) throws Exception {
+        ConfigurableApplicationContext context = options.baseUrl() == null ? boot(options) : null;
+        String baseUrl = context == null
+                ? options.baseUrl()
+                : "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        try {
+            long seedStart = System.nanoTime();
+            List<SeededUser> users = seed(http, objectMapper, baseUrl, options);
+            System.out.printf("Seeded %d users with %d notes each in %d s%n", options.users(), options.notesPerUser(),
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - seedStart));
+
+            System.out.printf("Running %d clients and %d login-only clients against %s: %d s warmup, %d s measured%n",
+                    options.clients(), options.loginClients(), baseUrl, options.warmupSeconds(), options.durationSeconds());
+            MeterRegistry meterRegistry = context == null ? null : context.getBean(MeterRegistry.class);
+            ServerSample server = new ServerSample();
+            LatencyStats stats = run(http, objectMapper, baseUrl, users, options, meterRegistry, server);
+            return report(stats, server, objectMapper, options);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext boot(LoadTestOptions options) {
+        List<String> properties = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.data.mongodb.port=0",
+                // The DEBUG levels of application.properties would turn the run into a logging benchmark
+                "--logging.level.root=WARN",
+                "--logging.level.ydgrun.info.qnotes3=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.data.mongodb=WARN",
+                "--logging.level.org.springframework.boot.autoconfigure.mongo=WARN",
+                "--logging.level.org.springframework.boot.autoconfigure.data.mongo=WARN",
+                "--logging.level.de.flapdoodle.embed=WARN"));
+        if (options.mongoUri() != null) {
+            properties.add("--spring.data.mongodb.uri=" + options.mongoUri());
+            properties.add("--spring.autoconfigure.exclude="
+                    + "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration");
+        }
+        if (options.reactive()) {
+            properties.add("--spring.profiles.active=reactive");
+        }
+        if (options.virtualThreads() != null) {
+            properties.add("--spring.threads.virtual.enabled=" + options.virtualThreads());
+        }
+        if (options.mongoPoolSize() > 0) {
+            properties.add("--notes.mongo.max-pool-size=" + options.mongoPoolSize());
+        }
+        SpringApplication application = new SpringApplication(Qnotes3Application.class);
+        // The test classes are on the classpath, and their TestConfig would switch Mongo off
+        application.addInitializers(context -> context.getBeanFactory()
+                .registerSingleton("loadTestExcludeFilter", new ExcludeTestConfig()));
+        if (options.mongoLatencyMillis() > 0) {
+            MongoClientSettingsBuilderCustomizer latency = settings -> settings
+                    .addCommandListener(new MongoLatency(options.mongoLatencyMillis()));
+            application.addInitializers(context -> context.getBeanFactory()
+                    .registerSingleton("loadTestMongoLatency", latency));
+        }
+        return application.run(properties.toArray(String[]::new));
+    }
+
+    /**
+     * Delays every command on the thread that sends it, while it holds its pooled connection, as
+     * a round trip to a remote database would.
+     */
+    private record MongoLatency(long millis) implements CommandListener {
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * What the in-process server did during the measured period.
+     */
+    private static final class ServerSample {
+        final LongSummaryStatistics inFlight = new LongSummaryStatistics();
+        int peakPlatformThreads;
+    }
+
+    private static final class ExcludeTestConfig extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getClassMetadata().getClassName().equals("ydgrun.info.qnotes3.config.TestConfig");
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other != null && other.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    /**
+     * Registers the users and imports their notes through the public API, in parallel.
+     */
+    private static List<SeededUser> seed(HttpClient http, ObjectMapper objectMapper, String baseUrl,
+                                         LoadTestOptions options) throws Exception {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.users(), 16))) {
+            List<Future<SeededUser>> futures = new ArrayList<>();
+            for (int i = 0; i < options.users(); i++) {
+                String username = "load-" + run + "-" + i + "@example.com";
+                Random random = new Random(options.seed() + i);
+                futures.add(executor.submit(() -> seedUser(http, objectMapper, baseUrl, username,
+                        options.notesPerUser(), random)));
+            }
+            List<SeededUser> users = new ArrayList<>();
+            for (Future<SeededUser> future : futures) {
+                users.add(future.get());
+            }
+            return users;
+        }
+    }
+
+    private static SeededUser seedUser(HttpClient http, ObjectMapper objectMapper, String baseUrl, String username,
+                                       int notes, Random random) throws IOException, InterruptedException {
+        HttpResponse<String> registered = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        objectMapper.writeValueAsBytes(Map.of("username", username, "password", PASSWORD))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (registered.statusCode() != 201) {
+            throw new IllegalStateException("Registering " + username + " failed: " + registered.statusCode()
+                    + " " + registered.body());
+        }
+        String token = objectMapper.readTree(registered.body()).get("token").asText();
+
+        // Spread over the last 30 days, with completed and deleted notes, so statistics have work to do
+        StringBuilder ndjson = new StringBuilder();
+        OffsetDateTime now = OffsetDateTime.now();
+        String[] priorities = {"NOW", "LATER", "SOMEDAY", "DONE"};
+        for (int i = 0; i < notes; i++) {
+            OffsetDateTime createdAt = now.minusMinutes(random.nextInt(60 * 24 * 30));
+            OffsetDateTime updatedAt = createdAt.plusMinutes(random.nextInt(60 * 24));
+            Map<String, Object> note = new LinkedHashMap<>();
+            note.put("title", SEEDED_TITLE + " " + i);
+            note.put("content", content(random));
+            note.put("priority", priorities[random.nextInt(priorities.length)]);
+            note.put("createdAt", createdAt.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+            note.put("updatedAt", updatedAt.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+            if (random.nextInt(10) == 0) {
+                note.put("deletedAt", updatedAt.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+            }
+            ndjson.append(objectMapper.writeValueAsString(note))
+                    .append('\n');
+        }
+        HttpResponse<String> imported = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes/import"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String[] events = imported.body().split("\n");
+        if (imported.statusCode() != 200
+                || objectMapper.readTree(events[events.length - 1]).path("imported").asLong() != notes) {
+            throw new IllegalStateException("Importing notes of " + username + " failed: " + imported.statusCode()
+                    + " " + imported.body());
+        }
+        return new SeededUser(username, PASSWORD, token);
+    }
+
+    static String content(Random random) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0, words = 5 + random.nextInt(30); i < words; i++) {
+            content.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return content.toString();
+    }
+
+    private static LatencyStats run(HttpClient http, ObjectMapper objectMapper, String baseUrl,
+                                    List<SeededUser> users, LoadTestOptions options,
+                                    MeterRegistry meterRegistry, ServerSample server) throws Exception {
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds());
+        long stopAt = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds());
+        LatencyStats total = new LatencyStats();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (meterRegistry != null) {
+                executor.submit(() -> sample(meterRegistry, measureFrom, stopAt, server));
+            }
+            List<Future<LatencyStats>> futures = new ArrayList<>();
+            for (int i = 0; i < options.clients(); i++) {
+                futures.add(executor.submit(new LoadClient(http, objectMapper, baseUrl, users.get(i % users.size()),
+                        options.seed() * 31 + i, measureFrom, stopAt, false)));
+            }
+            for (int i = 0; i < options.loginClients(); i++) {
+                futures.add(executor.submit(new LoadClient(http, objectMapper, baseUrl, users.get(i % users.size()),
+                        options.seed() * 37 + i, measureFrom, stopAt, true)));
+            }
+            for (Future<LatencyStats> future : futures) {
+                total.addAll(future.get());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Samples the requests in flight, as counted by the {@code http.server.requests.active} timer,
+     * and the peak number of platform threads over the measured period.
+     */
+    private static Void sample(MeterRegistry meterRegistry, long measureFrom, long stopAt, ServerSample server)
+            throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, measureFrom - System.nanoTime()));
+        threads.resetPeakThreadCount();
+        while (System.nanoTime() < stopAt) {
+            server.inFlight.accept(meterRegistry.find("http.server.requests.active").longTaskTimers().stream()
+                    .mapToLong(LongTaskTimer::activeTasks)
+                    .sum());
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        server.peakPlatformThreads = threads.getPeakThreadCount();
+        return null;
+    }
+
+    private static Map<String, Object> report(LatencyStats stats, ServerSample server, ObjectMapper objectMapper,
+                                              LoadTestOptions options) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        List<long[]> all = new ArrayList<>();
+        long totalErrors = 0;
+        System.out.printf("%n%-28s %9s %7s %9s %8s %8s %8s %8s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            long[] sorted = stats.sorted(endpoint);
+            all.add(sorted);
+            totalErrors += stats.errors(endpoint);
+            endpoints.put(endpoint.label, line(endpoint.label, sorted, stats.errors(endpoint), options));
+        }
+        long[] allSorted = all.stream().flatMapToLong(LongStream::of).sorted().toArray();
+        Map<String, Object> total = line("TOTAL", allSorted, totalErrors, options);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", options.users());
+        settings.put("notesPerUser", options.notesPerUser());
+        settings.put("clients", options.clients());
+        settings.put("loginClients", options.loginClients());
+        settings.put("warmupSeconds", options.warmupSeconds());
+        settings.put("durationSeconds", options.durationSeconds());
+        settings.put("target", options.baseUrl() != null ? options.baseUrl() : "in-process");
+        if (options.baseUrl() == null) {
+            settings.put("reactive", options.reactive());
+            settings.put("virtualThreads", options.virtualThreads());
+            settings.put("mongoPoolSize", options.mongoPoolSize());
+            settings.put("mongoLatencyMillis", options.mongoLatencyMillis());
+        }
+        result.put("options", settings);
+        result.put("endpoints", endpoints);
+        result.put("total", total);
+        if (server.inFlight.getCount() > 0) {
+            System.out.printf("%nRequests in flight at the server: avg %.1f, max %d; peak platform threads: %d%n",
+                    server.inFlight.getAverage(), server.inFlight.getMax(), server.peakPlatformThreads);
+            Map<String, Object> serverResult = new LinkedHashMap<>();
+            serverResult.put("inFlightAvg", server.inFlight.getAverage());
+            serverResult.put("inFlightMax", server.inFlight.getMax());
+            serverResult.put("peakPlatformThreads", server.peakPlatformThreads);
+            result.put("server", serverResult);
+        }
+        if (options.output().getParent() != null) {
+            Files.createDirectories(options.output().getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(options.output().toFile(), result);
+        System.out.printf("%nResult is saved to %s%n", options.output().toAbsolutePath());
+        return result;
+    }
+
+    private static Map<String, Object> line(String label, long[] sorted, long errors, LoadTestOptions options) {
+        double throughput = (double) sorted.length / options.durationSeconds();
+        double p50 = millis(LatencyStats.percentile(sorted, 0.50));
+        double p95 = millis(LatencyStats.percentile(sorted, 0.95));
+        double p99 = millis(LatencyStats.percentile(sorted, 0.99));
+        double max = millis(LatencyStats.percentile(sorted, 1.0));
+        System.out.printf("%-28s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f%n",
+                label, sorted.length, errors, throughput, p50, p95, p99, max);
+
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("requests", sorted.length);
+        line.put("errors", errors);
+        line.put("throughput", throughput);
+        line.put("p50Ms", p50);
+        line.put("p95Ms", p95);
+        line.put("p99Ms", p99);
+        line.put("maxMs", max);
+        return line;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,99 @@
+package ydgrun.info.qnotes3.load;
+
+import java.nio.file.Path;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}.
+ *
+ * @param users          users registered before the run
+ * @param notesPerUser   notes imported for each user before the run
+ * @param clients        concurrent clients, spread evenly over the users
+ * @param loginClients   additional clients that only log in, back to back, to show what a login
+ *                       storm does to the latency of the other endpoints
+ * @param warmupSeconds  load driven before measuring starts
+ * @param durationSeconds measured load
+ * @param baseUrl        server to load instead of booting the application in-process, or null
+ * @param mongoUri       Mongo used by the in-process application instead of embedded mongod, or null
+ * @param reactive       whether the in-process application serves the API on WebFlux and the
+ *                       reactive Mongo driver (the {@code reactive} profile) instead of Spring MVC
+ * @param virtualThreads whether the in-process application serves requests on virtual threads, or
+ *                       null for its configured default
+ * @param mongoPoolSize  Mongo connections of the in-process application, or 0 for its default
+ * @param mongoLatencyMillis delay added to every Mongo command of the in-process application, to
+ *                       stand in for a database on another host
+ * @param output         JSON report
+ * @param seed           seed of the random request mix
+ */
+record LoadTestOptions(
+        int users,
+        int notesPerUser,
+        int clients,
+        int loginClients,
+        int warmupSeconds,
+        int durationSeconds,
+        String baseUrl,
+        String mongoUri,
+        boolean reactive,
+        Boolean virtualThreads,
+        int mongoPoolSize,
+        int mongoLatencyMillis,
+        Path output,
+        long seed
+) {
+
+    static LoadTestOptions parse(String[] args) {
+        int users = 20;
+        int notesPerUser = 200;
+        int clients = 64;
+        int loginClients = 0;
+        int warmupSeconds = 10;
+        int durationSeconds = 60;
+        String baseUrl = null;
+        String mongoUri = null;
+        boolean reactive = false;
+        Boolean virtualThreads = null;
+        int mongoPoolSize = 0;
+        int mongoLatencyMillis = 0;
+        Path output = Path.of("target", "load-test-result.json");
+        long seed = 42;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "users" -> users = positive(arg, value);
+                case "notes" -> notesPerUser = positive(arg, value);
+                case "clients" -> clients = positive(arg, value);
+                case "login-clients" -> loginClients = Integer.parseInt(value);
+                case "warmup" -> warmupSeconds = Integer.parseInt(value);
+                case "duration" -> durationSeconds = positive(arg, value);
+                case "base-url" -> baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "mongo-uri" -> mongoUri = value;
+                case "reactive" -> reactive = Boolean.parseBoolean(value);
+                case "virtual-threads" -> virtualThreads = Boolean.parseBoolean(value);
+                case "mongo-pool" -> mongoPoolSize = positive(arg, value);
+                case "mongo-latency" -> mongoLatencyMillis = Integer.parseInt(value);
+                case "output" -> output = Path.of(value);
+                case "seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (reactive && mongoLatencyMillis > 0) {
+            // The listener sleeps on the thread that sends the command, which would stall an event loop
+            throw new IllegalArgumentException("--mongo-latency is not supported with --reactive");
+        }
+        return new LoadTestOptions(users, notesPerUser, clients, loginClients, warmupSeconds, durationSeconds,
+                baseUrl, mongoUri, reactive, virtualThreads, mongoPoolSize, mongoLatencyMillis, output, seed);
+    }
+
+    private static int positive(String arg, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("Expected a positive number: " + arg);
+        }
+        return parsed;
+    }
+}
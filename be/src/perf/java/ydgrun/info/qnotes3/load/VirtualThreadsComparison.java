@@ -0,0 +1,95 @@
+package ydgrun.info.qnotes3.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Runs {@link LoadTest} in-process twice, with requests served on Tomcat's platform threads and on
+ * virtual threads, and prints throughput, latency percentiles and server concurrency side by side.
+ * <p>
+ * Defaults to 5,000 clients against Mongo commands delayed by 20 ms each, so that requests spend
+ * most of their time waiting on the database, as with a Mongo on another host; any
+ * {@link LoadTestOptions} given on the command line override the defaults. Both runs get the same
+ * Mongo connection pool, so the only difference is how many requests may wait on it at once: 200
+ * Tomcat threads, or every open connection.
+ */
+public final class VirtualThreadsComparison {
+    private static final List<String> DEFAULTS = List.of(
+            "--users=50", "--notes=100", "--clients=5000", "--warmup=15", "--duration=60",
+            "--mongo-latency=20", "--mongo-pool=500", "--output=target/virtual-threads-result.json");
+
+    private VirtualThreadsComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(DEFAULTS);
+        arguments.addAll(List.of(args));
+        LoadTestOptions options = LoadTestOptions.parse(arguments.toArray(String[]::new));
+        if (options.baseUrl() != null || options.virtualThreads() != null || options.reactive()) {
+            throw new IllegalArgumentException("Compares in-process servlet servers only; --base-url,"
+                    + " --virtual-threads and --reactive are not supported");
+        }
+
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            String mode = virtualThreads ? "virtual" : "platform";
+            System.out.printf("%n=== Requests on %s threads ===%n", mode);
+            List<String> modeArguments = new ArrayList<>(arguments);
+            modeArguments.add("--virtual-threads=" + virtualThreads);
+            modeArguments.add("--output=" + sibling(options.output(), mode));
+            results.put(mode, LoadTest.execute(LoadTestOptions.parse(modeArguments.toArray(String[]::new))));
+        }
+
+        System.out.printf("%n%-30s %12s %12s%n", "", "platform", "virtual");
+        row(results, "Requests/s", "%12.1f", result -> total(result).get("throughput"));
+        row(results, "Errors", "%12d", result -> total(result).get("errors"));
+        row(results, "p50 ms", "%12.2f", result -> total(result).get("p50Ms"));
+        row(results, "p95 ms", "%12.2f", result -> total(result).get("p95Ms"));
+        row(results, "p99 ms", "%12.2f", result -> total(result).get("p99Ms"));
+        row(results, "max ms", "%12.2f", result -> total(result).get("maxMs"));
+        row(results, "Requests in flight, avg", "%12.1f", result -> server(result).get("inFlightAvg"));
+        row(results, "Requests in flight, max", "%12d", result -> server(result).get("inFlightMax"));
+        row(results, "Peak platform threads", "%12d", result -> server(result).get("peakPlatformThreads"));
+
+        if (options.output().getParent() != null) {
+            Files.createDirectories(options.output().getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(options.output().toFile(), results);
+        System.out.printf("%nResult is saved to %s%n", options.output().toAbsolutePath());
+    }
+
+    private static Path sibling(Path output, String mode) {
+        String name = output.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        return output.resolveSibling(extension < 0
+                ? name + "-" + mode
+                : name.substring(0, extension) + "-" + mode + name.substring(extension));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> total(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("total");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> server(Map<String, Object> result) {
+        return (Map<String, Object>) result.getOrDefault("server", Map.of());
+    }
+
+    private static void row(Map<String, Map<String, Object>> results, String label, String format,
+                            Function<Map<String, Object>, Object> value) {
+        System.out.printf("%-30s", label);
+        for (Map<String, Object> result : results.values()) {
+            Object cell = value.apply(result);
+            System.out.printf(cell == null ? "%12s" : format, cell == null ? "-" : cell);
+        }
+        System.out.println();
+    }
+}
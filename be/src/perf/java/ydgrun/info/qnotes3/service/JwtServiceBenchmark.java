@@ -0,0 +1,57 @@
+package ydgrun.info.qnotes3.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a token at login and of reading it back. With {@code cacheMaxSize=0} every read
+ * verifies the signature; otherwise repeated reads of the same token hit the verified-claims cache.
+ * {@code extractUsernameAndValidate} is the older two-call sequence, kept in the public API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    @Param({"0", "10000"})
+    public long cacheMaxSize;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(86_400_000L, cacheMaxSize, List.of(), "");
+        token = jwtService.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String extractValidUsername() {
+        return jwtService.extractValidUsername(token);
+    }
+
+    @Benchmark
+    public boolean extractUsernameAndValidate() {
+        return jwtService.extractUsername(token) != null && jwtService.isTokenValid(token);
+    }
+}
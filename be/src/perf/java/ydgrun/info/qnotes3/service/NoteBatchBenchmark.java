@@ -0,0 +1,86 @@
+package ydgrun.info.qnotes3.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ydgrun.info.qnotes3.PerfMongo;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput, in notes per second, of marking 1,000 notes done one call at a time versus
+ * in a single batch. Both paths run against an embedded mongod with the application indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NoteBatchBenchmark {
+    private static final int NOTES = 1000;
+    private static final String USER_ID = "batch-benchmark-user";
+
+    private PerfMongo mongo;
+    private NoteService noteService;
+    private List<Note> notes;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void startMongo() {
+        mongo = PerfMongo.start();
+        noteService = mongo.noteService();
+    }
+
+    @Setup(Level.Invocation)
+    public void seedNotes() {
+        mongo.noteRepository().deleteAll();
+        mongo.userStatsRepository().deleteAll();
+        List<NoteBatchOperation> creates = new ArrayList<>(NOTES);
+        for (int i = 0; i < NOTES; i++) {
+            creates.add(new NoteBatchOperation(NoteBatchOperation.Type.CREATE, null,
+                "Note " + i, "Content " + i, Note.Priority.LATER));
+        }
+        noteService.executeBatch(USER_ID, creates);
+        notes = mongo.noteRepository().findAll();
+        round++;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopMongo() {
+        mongo.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES)
+    public void singleCalls() {
+        for (Note note : notes) {
+            noteService.patchNote(USER_ID, note.getId(), "Done " + round, null, Note.Priority.DONE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES)
+    public void batch() {
+        List<NoteBatchOperation> operations = new ArrayList<>(NOTES);
+        for (Note note : notes) {
+            operations.add(new NoteBatchOperation(NoteBatchOperation.Type.UPDATE, note.getId(),
+                "Done " + round, null, Note.Priority.DONE));
+        }
+        noteService.executeBatch(USER_ID, operations);
+    }
+}
@@ -0,0 +1,150 @@
+package ydgrun.info.qnotes3.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import ydgrun.info.qnotes3.PerfMongo;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Search latency on a synthetic corpus (1M notes by default, spread over 1,000 users) whose words
+ * follow a Zipf-like distribution. {@code regexScan} is the same search without the text index:
+ * a case-insensitive regex over the user's notes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NoteSearchBenchmark {
+    private static final int USERS = 1000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final String[] SYLLABLES = {
+        "ka", "lo", "mi", "ne", "ru", "sa", "te", "vo", "zi", "pa", "do", "fe", "gu", "ha", "jo", "be", "ci", "ya"
+    };
+
+    @Param({"1000000"})
+    public int notes;
+
+    private PerfMongo mongo;
+    private NoteService noteService;
+    private List<String> vocabulary;
+    private String commonTerm;
+    private String rareTerm;
+    private int user;
+
+    @Setup
+    public void seedCorpus() {
+        mongo = PerfMongo.start();
+        noteService = mongo.noteService();
+        vocabulary = vocabulary();
+        commonTerm = vocabulary.get(20);
+        rareTerm = vocabulary.get(2000);
+
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Note> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < notes; i++) {
+            Note note = new Note();
+            note.setId(new UUID(random.nextLong(), random.nextLong()));
+            note.setUserId(userId(i % USERS));
+            note.setTitle(sentence(vocabulary, random, 2 + random.nextInt(5)));
+            note.setContent(sentence(vocabulary, random, 10 + random.nextInt(60)));
+            note.setPriority(Note.Priority.values()[random.nextInt(Note.Priority.values().length)]);
+            note.setCreatedAt(now.minusMinutes(i));
+            note.setUpdatedAt(now.minusMinutes(i));
+            batch.add(note);
+            if (batch.size() == INSERT_BATCH) {
+                mongo.noteRepository().bulkWrite(note.getUserId(), batch, List.of());
+                batch = new ArrayList<>(INSERT_BATCH);
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongo.noteRepository().bulkWrite(batch.get(0).getUserId(), batch, List.of());
+        }
+    }
+
+    @TearDown
+    public void stopMongo() {
+        mongo.close();
+    }
+
+    private static String userId(int index) {
+        return "search-user-" + index;
+    }
+
+    private String nextUser() {
+        user = (user + 1) % USERS;
+        return userId(user);
+    }
+
+    static List<String> vocabulary() {
+        List<String> words = new ArrayList<>();
+        for (String first : SYLLABLES) {
+            for (String second : SYLLABLES) {
+                for (String third : SYLLABLES) {
+                    words.add(first + second + third);
+                }
+            }
+        }
+        return words;
+    }
+
+    static String sentence(List<String> vocabulary, Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            // Approximately Zipf: low ranks are far more frequent than high ones
+            int rank = (int) Math.floor(Math.pow(vocabulary.size(), random.nextDouble())) - 1;
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(vocabulary.get(rank));
+        }
+        return sentence.toString();
+    }
+
+    @Benchmark
+    public List<NoteSearchResult> commonTerm() {
+        return noteService.searchNotes(nextUser(), commonTerm, null, null);
+    }
+
+    @Benchmark
+    public List<NoteSearchResult> rareTerm() {
+        return noteService.searchNotes(nextUser(), rareTerm, null, null);
+    }
+
+    @Benchmark
+    public List<NoteSearchResult> twoTermsWithPriority() {
+        return noteService.searchNotes(nextUser(), commonTerm + " " + rareTerm, Note.Priority.NOW, null);
+    }
+
+    @Benchmark
+    public List<Note> regexScan() {
+        Pattern pattern = Pattern.compile(Pattern.quote(commonTerm), Pattern.CASE_INSENSITIVE);
+        Query query = Query.query(Criteria.where("userId").is(nextUser()).and("deletedAt").is(null)
+                .orOperator(Criteria.where("title").regex(pattern), Criteria.where("content").regex(pattern)))
+            .limit(20);
+        return mongo.mongoTemplate().find(query, Note.class);
+    }
+}
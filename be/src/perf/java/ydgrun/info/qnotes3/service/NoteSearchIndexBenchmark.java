@@ -0,0 +1,139 @@
+package ydgrun.info.qnotes3.service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.lang.management.ManagementFactory;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the in-memory {@link UserNoteIndex} for one user with the given number of notes, on the
+ * same synthetic corpus as {@link NoteSearchBenchmark}: build time, retained heap per note
+ * (measured, and as estimated for the eviction budget) and query latency. No Mongo involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteSearchIndexBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int notes;
+
+    private List<Note> corpus;
+    private UserNoteIndex index;
+    private List<String> commonTerm;
+    private List<String> rareTerm;
+    private List<String> twoTerms;
+    private String shortPrefix;
+    private String longPrefix;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerNote;
+        public long estimatedBytesPerNote;
+    }
+
+    @Setup
+    public void buildIndex() {
+        List<String> vocabulary = NoteSearchBenchmark.vocabulary();
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.now();
+        corpus = new ArrayList<>(notes);
+        for (int i = 0; i < notes; i++) {
+            Note note = new Note();
+            note.setId(new UUID(random.nextLong(), random.nextLong()));
+            note.setUserId("index-user");
+            note.setTitle(NoteSearchBenchmark.sentence(vocabulary, random, 2 + random.nextInt(5)));
+            note.setContent(NoteSearchBenchmark.sentence(vocabulary, random, 10 + random.nextInt(60)));
+            note.setPriority(Note.Priority.values()[random.nextInt(Note.Priority.values().length)]);
+            note.setCreatedAt(now.minusMinutes(i));
+            note.setUpdatedAt(now.minusMinutes(i));
+            corpus.add(note);
+        }
+        index = build();
+        commonTerm = NoteSearchSnippets.terms(vocabulary.get(20));
+        rareTerm = NoteSearchSnippets.terms(vocabulary.get(2000));
+        twoTerms = NoteSearchSnippets.terms(vocabulary.get(20) + " " + vocabulary.get(2000));
+        shortPrefix = vocabulary.get(20).substring(0, 2);
+        longPrefix = vocabulary.get(20).substring(0, 4);
+    }
+
+    private UserNoteIndex build() {
+        UserNoteIndex built = new UserNoteIndex();
+        for (Note note : corpus) {
+            built.put(note);
+        }
+        return built;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UserNoteIndex buildTime() {
+        return build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UserNoteIndex footprint(Footprint footprint) {
+        long before = usedHeap();
+        UserNoteIndex built = build();
+        long retained = usedHeap() - before;
+        footprint.retainedBytesPerNote = retained / notes;
+        footprint.estimatedBytesPerNote = built.estimatedBytes() / notes;
+        return built;
+    }
+
+    @Benchmark
+    public List<UserNoteIndex.Hit> commonTerm() {
+        return index.search(commonTerm, null, 20);
+    }
+
+    @Benchmark
+    public List<UserNoteIndex.Hit> rareTerm() {
+        return index.search(rareTerm, null, 20);
+    }
+
+    @Benchmark
+    public List<UserNoteIndex.Hit> twoTermsWithPriority() {
+        return index.search(twoTerms, Note.Priority.NOW, 20);
+    }
+
+    @Benchmark
+    public List<String> suggestShortPrefix() {
+        return index.suggest(shortPrefix, 10);
+    }
+
+    @Benchmark
+    public List<String> suggestLongPrefix() {
+        return index.suggest(longPrefix, 10);
+    }
+}
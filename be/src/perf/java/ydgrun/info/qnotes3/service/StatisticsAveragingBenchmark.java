@@ -0,0 +1,93 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of the averages in the statistics, excluding Mongo: {@link NoteService} averaging the
+ * completion and deletion times over already loaded notes, versus deriving both averages from the
+ * counts and hour sums of a {@link NoteStatistics}, as the stats endpoint does. The repository is a
+ * plain proxy returning the same lists on every call, so mocking overhead does not skew small sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsAveragingBenchmark {
+    private static final String USER_ID = "benchmark-user";
+
+    @Param({"100", "1000", "10000"})
+    public int notes;
+
+    private NoteService noteService;
+    private NoteStatistics statistics;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Note> completed = new ArrayList<>(notes);
+        List<Note> deleted = new ArrayList<>(notes);
+        double completionHours = 0;
+        double deletionHours = 0;
+        for (int i = 0; i < notes; i++) {
+            Note note = new Note();
+            note.setId(UUID.randomUUID());
+            note.setUserId(USER_ID);
+            note.setPriority(Note.Priority.DONE);
+            note.setCreatedAt(now.minusHours(1 + random.nextInt(24 * 30)));
+            note.setUpdatedAt(note.getCreatedAt().plusMinutes(random.nextInt(60 * 24 * 7)));
+            note.setDeletedAt(note.getUpdatedAt().plusMinutes(random.nextInt(60 * 24)));
+            completed.add(note);
+            deleted.add(note);
+            completionHours += (note.getUpdatedAt().toEpochSecond() - note.getCreatedAt().toEpochSecond()) / 3600.0;
+            deletionHours += (note.getDeletedAt().toEpochSecond() - note.getCreatedAt().toEpochSecond()) / 3600.0;
+        }
+
+        NoteRepository noteRepository = (NoteRepository) Proxy.newProxyInstance(
+                NoteRepository.class.getClassLoader(), new Class<?>[]{NoteRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findCompletedNotes" -> completed;
+                    case "findDeletedNotes" -> deleted;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        NoteReadCache readCache = new NoteReadCache(1, 1, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new NoteService(noteRepository, null, readCache, List.of(readCache));
+        statistics = new NoteStatistics(0, 0, notes, completionHours, notes, deletionHours);
+    }
+
+    @Benchmark
+    public double averagesFromNotes() {
+        return noteService.calculateAverageCompletionTime(USER_ID)
+                + noteService.calculateAverageDeletionTime(USER_ID);
+    }
+
+    @Benchmark
+    public double averagesFromSums() {
+        return statistics.averageCompletionHours() + statistics.averageDeletionHours();
+    }
+}
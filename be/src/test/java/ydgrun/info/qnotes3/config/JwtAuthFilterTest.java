@@ -0,0 +1,89 @@
+package ydgrun.info.qnotes3.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ydgrun.info.qnotes3.service.JwtService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthFilterTest {
+
+    private static final String USERNAME = "test-user";
+
+    private final JwtService jwtService = new JwtService(60_000, 100, List.of(), "");
+    private final JwtAuthFilter filter = new JwtAuthFilter(jwtService);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+
+    @Test
+    void validToken_ShouldAuthenticateTheRequest() throws Exception {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(request(jwtService.generateToken(USERNAME)), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+        assertEquals(USERNAME, SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    @Test
+    void expiredOrInvalidToken_ShouldLeaveTheRequestUnauthenticated() throws Exception {
+        // Arrange
+        String expired = new JwtService(-60_000, 100, List.of(), "").generateToken(USERNAME);
+        String foreign = new JwtService(60_000, 100, List.of(), "").generateToken(USERNAME);
+
+        for (String token : List.of(expired, foreign, "not-a-jwt", "")) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletRequest request = request(token);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // Act
+            filter.doFilter(request, response, chain);
+
+            // Assert
+            assertEquals(200, response.getStatus(), token);
+            assertNotNull(chain.getRequest(), token);
+            assertEquals(Boolean.TRUE, request.getAttribute(JwtAuthFilter.INVALID_TOKEN_ATTRIBUTE));
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+        }
+    }
+
+    @Test
+    void entryPoint_ShouldAnswer401ForRejectedTokens_And403WithoutToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest rejected = request("not-a-jwt");
+        filter.doFilter(rejected, new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+        MockHttpServletResponse anonymousResponse = new MockHttpServletResponse();
+
+        // Act
+        JwtAuthFilter.ENTRY_POINT.commence(rejected, rejectedResponse, new InsufficientAuthenticationException("none"));
+        JwtAuthFilter.ENTRY_POINT.commence(new MockHttpServletRequest("GET", "/api/notes"), anonymousResponse,
+            new InsufficientAuthenticationException("none"));
+
+        // Assert
+        assertEquals(401, rejectedResponse.getStatus());
+        assertEquals(JwtAuthFilter.INVALID_TOKEN, rejectedResponse.getHeader(HttpHeaders.WWW_AUTHENTICATE));
+        assertEquals(403, anonymousResponse.getStatus());
+        assertNull(anonymousResponse.getHeader(HttpHeaders.WWW_AUTHENTICATE));
+    }
+}
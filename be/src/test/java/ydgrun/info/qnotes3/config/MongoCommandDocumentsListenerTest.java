@@ -0,0 +1,80 @@
+package ydgrun.info.qnotes3.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoCommandDocumentsListenerTest {
+
+    private static final ConnectionDescription CONNECTION =
+        new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private SimpleMeterRegistry meterRegistry;
+    private MongoCommandDocumentsListener listener;
+    private int requestId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new MongoCommandDocumentsListener(meterRegistry);
+    }
+
+    private void execute(String commandName, String command, String response) {
+        requestId++;
+        listener.commandStarted(new CommandStartedEvent(null, 1, requestId, CONNECTION, "qnotes3", commandName,
+            BsonDocument.parse(command)));
+        listener.commandSucceeded(new CommandSucceededEvent(null, 1, requestId, CONNECTION, "qnotes3", commandName,
+            BsonDocument.parse(response), 1_000));
+    }
+
+    private DistributionSummary documents(String command, String collection) {
+        return meterRegistry.get(MongoCommandDocumentsListener.METRIC)
+            .tag("command", command)
+            .tag("collection", collection)
+            .summary();
+    }
+
+    @Test
+    void commandSucceeded_ShouldRecordDocumentsPerCommandAndCollection() {
+        // Act
+        execute("find", "{find: 'notes', filter: {}}", "{cursor: {firstBatch: [{}, {}, {}], id: 7}, ok: 1}");
+        execute("getMore", "{getMore: 7, collection: 'notes'}", "{cursor: {nextBatch: [{}, {}], id: 0}, ok: 1}");
+        execute("aggregate", "{aggregate: 'notes', pipeline: []}", "{cursor: {firstBatch: [{}], id: 0}, ok: 1}");
+        execute("update", "{update: 'user_stats', updates: []}", "{n: 1, nModified: 1, ok: 1}");
+        execute("findAndModify", "{findAndModify: 'notes'}", "{value: null, ok: 1}");
+
+        // Assert
+        assertEquals(3, documents("find", "notes").totalAmount());
+        assertEquals(2, documents("getMore", "notes").totalAmount());
+        assertEquals(1, documents("aggregate", "notes").totalAmount());
+        assertEquals(1, documents("update", "user_stats").totalAmount());
+        assertEquals(1, documents("findAndModify", "notes").count());
+        assertEquals(0, documents("findAndModify", "notes").totalAmount());
+    }
+
+    @Test
+    void commandSucceeded_ShouldIgnoreCommandsWithoutCollection_AndFailedCommands() {
+        // Act
+        execute("hello", "{hello: 1}", "{isWritablePrimary: true, ok: 1}");
+        listener.commandStarted(new CommandStartedEvent(null, 1, 99, CONNECTION, "qnotes3", "find",
+            BsonDocument.parse("{find: 'notes'}")));
+        listener.commandFailed(new CommandFailedEvent(null, 1, 99, CONNECTION, "qnotes3", "find", 1_000,
+            new RuntimeException("interrupted")));
+        listener.commandSucceeded(new CommandSucceededEvent(null, 1, 99, CONNECTION, "qnotes3", "find",
+            BsonDocument.parse("{cursor: {firstBatch: [{}], id: 0}, ok: 1}"), 1_000));
+
+        // Assert
+        assertTrue(meterRegistry.find(MongoCommandDocumentsListener.METRIC).summaries().isEmpty());
+    }
+}
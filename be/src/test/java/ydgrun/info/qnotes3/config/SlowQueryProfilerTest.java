@@ -0,0 +1,137 @@
+package ydgrun.info.qnotes3.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlowQueryProfilerTest {
+
+    private static final ConnectionDescription CONNECTION =
+        new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+    private static final String FIND =
+        "{find: 'notes', filter: {userId: 'test-user', deletedAt: null, title: {$regex: 'secret'}},"
+            + " sort: {createdAt: -1}, limit: 10, $db: 'qnotes3', lsid: {id: 1}}";
+    private static final String EXPLAIN = """
+        {queryPlanner: {winningPlan: {queryPlan: {stage: 'LIMIT', inputStage: {stage: 'FETCH',
+            inputStage: {stage: 'IXSCAN', indexName: 'userId_1_createdAt_-1'}}}}},
+         executionStats: {nReturned: 10, executionTimeMillis: 120, totalKeysExamined: 4000, totalDocsExamined: 4000},
+         ok: 1}""";
+
+    @Mock
+    private MongoClient mongoClient;
+
+    @Mock
+    private MongoDatabase database;
+
+    private int requestId;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("test-user", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private SlowQueryProfiler profiler(double explainSampleRate, int capacity) {
+        return new SlowQueryProfiler(Duration.ofMillis(100), explainSampleRate, capacity, () -> mongoClient, Runnable::run);
+    }
+
+    private void execute(SlowQueryProfiler profiler, String command, String response, long millis) {
+        requestId++;
+        // Commands reach listeners as immutable raw documents
+        BsonDocument document = new RawBsonDocument(BsonDocument.parse(command), new BsonDocumentCodec());
+        profiler.commandStarted(new CommandStartedEvent(null, 1, requestId, CONNECTION, "qnotes3",
+            document.getFirstKey(), document));
+        profiler.commandSucceeded(new CommandSucceededEvent(null, 1, requestId, CONNECTION, "qnotes3",
+            document.getFirstKey(), BsonDocument.parse(response), TimeUnit.MILLISECONDS.toNanos(millis)));
+    }
+
+    @Test
+    void commandSucceeded_ShouldKeepSlowCommands_WithUserAndRedactedShape() {
+        // Arrange
+        SlowQueryProfiler profiler = profiler(0, 2);
+
+        // Act
+        execute(profiler, FIND, "{cursor: {firstBatch: [{}, {}], id: 0}, ok: 1}", 150);
+        execute(profiler, FIND, "{cursor: {firstBatch: [], id: 0}, ok: 1}", 20);
+        execute(profiler, "{update: 'user_stats', updates: [], $db: 'qnotes3'}", "{n: 1, ok: 1}", 300);
+        execute(profiler, "{count: 'notes', query: {userId: 'test-user'}}", "{n: 5, ok: 1}", 200);
+
+        // Assert
+        List<SlowQueryProfiler.SlowQuery> slowQueries = profiler.recent();
+        assertEquals(List.of("count", "update"), slowQueries.stream().map(SlowQueryProfiler.SlowQuery::command).toList());
+        assertEquals(5L, slowQueries.get(0).docsReturned());
+        assertEquals("test-user", slowQueries.get(0).userId());
+        assertEquals("notes", slowQueries.get(0).collection());
+        assertEquals(200, slowQueries.get(0).durationMillis());
+        assertNull(slowQueries.get(1).shape());
+        verifyNoInteractions(mongoClient);
+    }
+
+    @Test
+    void shape_ShouldReplaceFilterValues_AndKeepSortAndLimit() {
+        // Act
+        BsonDocument shape = SlowQueryProfiler.shape(BsonDocument.parse(FIND));
+
+        // Assert
+        assertEquals(BsonDocument.parse(
+            "{find: 'notes', filter: {userId: '?', deletedAt: '?', title: {$regex: '?'}}, sort: {createdAt: -1}, limit: 10}"),
+            shape);
+    }
+
+    @Test
+    void commandSucceeded_ShouldExplainSampledReads_WithoutDriverFields() {
+        // Arrange
+        when(mongoClient.getDatabase("qnotes3")).thenReturn(database);
+        when(database.runCommand(any(Bson.class), eq(BsonDocument.class))).thenReturn(BsonDocument.parse(EXPLAIN));
+        SlowQueryProfiler profiler = profiler(1, 10);
+
+        // Act
+        execute(profiler, FIND, "{cursor: {firstBatch: [{}], id: 0}, ok: 1}", 150);
+
+        // Assert
+        ArgumentCaptor<Bson> explain = ArgumentCaptor.forClass(Bson.class);
+        verify(database).runCommand(explain.capture(), eq(BsonDocument.class));
+        BsonDocument command = (BsonDocument) explain.getValue();
+        assertEquals("executionStats", command.getString("verbosity").getValue());
+        assertFalse(command.getDocument("explain").containsKey("$db"));
+        assertFalse(command.getDocument("explain").containsKey("lsid"));
+
+        SlowQueryProfiler.Plan plan = profiler.recent().get(0).plan();
+        assertEquals("LIMIT <- FETCH <- IXSCAN userId_1_createdAt_-1", plan.summary());
+        assertEquals(4000, plan.keysExamined());
+        assertEquals(10, plan.docsReturned());
+    }
+}
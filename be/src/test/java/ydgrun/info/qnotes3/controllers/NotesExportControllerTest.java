@@ -0,0 +1,125 @@
+package ydgrun.info.qnotes3.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.service.NoteService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class NotesExportControllerTest {
+
+    private static final String USER_ID = "test-user";
+
+    @Mock
+    private NoteService noteService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new NotesExportController(noteService, objectMapper)).build();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(USER_ID, null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Note createNote(String title, OffsetDateTime deletedAt) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(USER_ID);
+        note.setTitle(title);
+        note.setContent("Content");
+        note.setPriority(Note.Priority.LATER);
+        note.setCreatedAt(OffsetDateTime.now());
+        note.setUpdatedAt(OffsetDateTime.now());
+        note.setDeletedAt(deletedAt);
+        return note;
+    }
+
+    @Test
+    void exportNotes_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        // Arrange
+        Note active = createNote("Active", null);
+        Note deleted = createNote("Deleted", OffsetDateTime.now());
+        Stream<Note> notes = Stream.of(active, deleted);
+        when(noteService.streamNotes(USER_ID, true)).thenReturn(notes);
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/notes/export").param("includeDeleted", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", "application/x-ndjson"))
+            .andReturn();
+
+        // Assert
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(active.getId().toString(), first.get("id").asText());
+        assertEquals("Active", first.get("title").asText());
+        assertEquals("Deleted", objectMapper.readTree(lines[1]).get("title").asText());
+        assertTrue(objectMapper.readTree(lines[1]).hasNonNull("deletedAt"));
+        verify(noteService).streamNotes(USER_ID, true);
+    }
+
+    @Test
+    void exportNotes_ShouldGzip_WhenClientAcceptsIt() throws Exception {
+        // Arrange
+        when(noteService.streamNotes(USER_ID, false)).thenReturn(Stream.of(createNote("Active", null)));
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/notes/export").header("Accept-Encoding", "gzip, deflate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andReturn();
+
+        // Assert
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("Active", objectMapper.readTree(body.trim()).get("title").asText());
+    }
+}
@@ -0,0 +1,21 @@
+package ydgrun.info.qnotes3.repository;
+
+import de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import ydgrun.info.qnotes3.config.MongoConfig;
+import ydgrun.info.qnotes3.config.MongoIndexInitializer;
+
+/**
+ * Shared slice configuration for tests running against embedded MongoDB.
+ * Subclasses must not add their own context configuration so that all of them
+ * reuse one cached context (and one embedded mongod on the configured port). The mongod is a
+ * single-node replica set, as configured in application.properties, so change streams work.
+ * The commands sent to it are kept by a {@link MongoCommandRecorder}.
+ */
+@DataMongoTest
+@ImportAutoConfiguration(EmbeddedMongoAutoConfiguration.class)
+@Import({MongoConfig.class, MongoIndexInitializer.class, MongoCommandRecorder.class})
+public abstract class AbstractMongoRepositoryTest {
+}
@@ -0,0 +1,39 @@
+package ydgrun.info.qnotes3.repository;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the commands the Mongo clients of the test context send, so that tests can check queries
+ * as Mongo receives them rather than as they are written.
+ */
+class MongoCommandRecorder implements CommandListener, MongoClientSettingsBuilderCustomizer {
+    private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void customize(MongoClientSettings.Builder settings) {
+        settings.addCommandListener(this);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // The event's document is only valid during the callback, and its clone is immutable
+        BsonDocument command = new BsonDocument();
+        command.putAll(event.getCommand().clone());
+        commands.add(command);
+    }
+
+    void clear() {
+        commands.clear();
+    }
+
+    List<BsonDocument> commands() {
+        return List.copyOf(commands);
+    }
+}
@@ -0,0 +1,123 @@
+package ydgrun.info.qnotes3.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.exception.NoteNotFoundException;
+import ydgrun.info.qnotes3.service.NoteReadCache;
+import ydgrun.info.qnotes3.service.NoteService;
+import ydgrun.info.qnotes3.service.UserStatsService;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteAtomicUpdateTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "patch-user";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    private NoteService noteService;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        NoteReadCache readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new NoteService(noteRepository,
+            new UserStatsService(mongoTemplate, userStatsRepository, noteRepository, new SimpleMeterRegistry()), readCache, List.of(readCache));
+    }
+
+    @Test
+    void patchNote_ShouldKeepConcurrentChangesToDifferentFields() {
+        // Arrange
+        Note note = noteService.createNote(USER_ID, "Title", "Content", Note.Priority.NOW);
+        List<CompletableFuture<Note>> patches = new ArrayList<>();
+
+        // Act
+        patches.add(CompletableFuture.supplyAsync(
+            () -> noteService.patchNote(USER_ID, note.getId(), "New title", null, null)));
+        patches.add(CompletableFuture.supplyAsync(
+            () -> noteService.patchNote(USER_ID, note.getId(), null, "New content", null)));
+        patches.add(CompletableFuture.supplyAsync(
+            () -> noteService.patchNote(USER_ID, note.getId(), null, null, Note.Priority.DONE)));
+        patches.forEach(CompletableFuture::join);
+
+        // Assert
+        Note stored = noteRepository.findById(note.getId()).orElseThrow();
+        assertEquals("New title", stored.getTitle());
+        assertEquals("New content", stored.getContent());
+        assertEquals(Note.Priority.DONE, stored.getPriority());
+        assertEquals(1, noteService.getStatistics(USER_ID).completedCount());
+    }
+
+    @Test
+    void updateNote_ShouldReplaceEveryField() {
+        // Arrange
+        Note note = noteService.createNote(USER_ID, "Title", "Content", Note.Priority.NOW);
+
+        // Act
+        noteService.updateNote(USER_ID, note.getId(), "New title", null, Note.Priority.LATER);
+
+        // Assert
+        Note stored = noteRepository.findById(note.getId()).orElseThrow();
+        assertEquals("New title", stored.getTitle());
+        assertNull(stored.getContent());
+        assertEquals(Note.Priority.LATER, stored.getPriority());
+    }
+
+    @Test
+    void patchNote_ShouldNotMatchOtherUsersOrDeletedNotes() {
+        // Arrange
+        Note note = noteService.createNote(USER_ID, "Title", "Content", Note.Priority.NOW);
+
+        // Act & Assert
+        assertThrows(NoteNotFoundException.class,
+            () -> noteService.patchNote("someone-else", note.getId(), "Stolen", null, null));
+        noteService.deleteNote(USER_ID, note.getId());
+        assertThrows(NoteNotFoundException.class,
+            () -> noteService.patchNote(USER_ID, note.getId(), "Too late", null, null));
+        assertThrows(NoteNotFoundException.class,
+            () -> noteService.deleteNote(USER_ID, note.getId()));
+
+        Note stored = noteRepository.findById(note.getId()).orElseThrow();
+        assertEquals("Title", stored.getTitle());
+        assertNotNull(stored.getDeletedAt());
+    }
+
+    @Test
+    void bulkWrite_ShouldSkipNotesChangedSinceTheyWereRead() {
+        // Arrange
+        Note unchanged = noteService.createNote(USER_ID, "Unchanged", "Content", Note.Priority.NOW);
+        Note changed = noteService.createNote(USER_ID, "Changed", "Content", Note.Priority.NOW);
+        List<Note> read = noteRepository.findActiveNotesByIds(USER_ID, List.of(unchanged.getId(), changed.getId()));
+        noteRepository.modifyActiveNote(USER_ID, changed.getId(),
+            new Update().set("content", "Concurrent content").set("changedAt", OffsetDateTime.now().plusSeconds(1)));
+
+        // Act
+        long matched = noteRepository.bulkWrite(USER_ID, List.of(),
+            read.stream().map(note -> Pair.of(note, new Update().set("title", "Batch title"))).toList())
+            .getMatchedCount();
+
+        // Assert
+        assertEquals(1, matched);
+        assertEquals("Batch title", noteRepository.findById(unchanged.getId()).orElseThrow().getTitle());
+        assertEquals("Changed", noteRepository.findById(changed.getId()).orElseThrow().getTitle());
+    }
+}
@@ -0,0 +1,70 @@
+package ydgrun.info.qnotes3.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteChangedAtBackfillTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "legacy-user";
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+    }
+
+    /**
+     * As written before changedAt existed: saving leaves out the unset field.
+     */
+    private Note saveLegacyNote(String title, OffsetDateTime createdAt, OffsetDateTime updatedAt,
+                                OffsetDateTime deletedAt) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(USER_ID);
+        note.setTitle(title);
+        note.setContent("Content");
+        note.setPriority(Note.Priority.NOW);
+        note.setCreatedAt(createdAt);
+        note.setUpdatedAt(updatedAt);
+        note.setDeletedAt(deletedAt);
+        return noteRepository.save(note);
+    }
+
+    @Test
+    void backfillChangedAt_ShouldMakeLegacyNotesPartOfTheChanges() {
+        // Arrange
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Note created = saveLegacyNote("Created", now.minusDays(3), null, null);
+        Note updated = saveLegacyNote("Updated", now.minusDays(4), now.minusDays(2), null);
+        Note deleted = saveLegacyNote("Deleted", now.minusDays(5), now.minusDays(4), now.minusDays(1));
+        assertTrue(noteRepository.findChangedNotes(USER_ID, null, now, 10).isEmpty());
+
+        // Act
+        long backfilled = noteRepository.backfillChangedAt();
+
+        // Assert
+        assertEquals(3, backfilled);
+        assertEquals(0, noteRepository.backfillChangedAt());
+
+        List<Note> initialSync = noteRepository.findChangedNotes(USER_ID, null, now, 10);
+        assertEquals(List.of(created.getId(), updated.getId()), initialSync.stream().map(Note::getId).toList());
+        assertEquals(created.getCreatedAt().toInstant(), initialSync.get(0).getChangedAt().toInstant());
+        assertEquals(updated.getUpdatedAt().toInstant(), initialSync.get(1).getChangedAt().toInstant());
+
+        List<Note> delta = noteRepository.findChangedNotes(USER_ID, NoteCheckpoint.of(initialSync.get(1)), now, 10);
+        assertEquals(List.of(deleted.getId()), delta.stream().map(Note::getId).toList());
+        assertEquals(deleted.getDeletedAt().toInstant(), delta.get(0).getChangedAt().toInstant());
+    }
+}
@@ -0,0 +1,233 @@
+package ydgrun.info.qnotes3.repository;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls every read of {@link NoteRepository} as the services do, then explains each command it
+ * sent to the notes collection, aggregation pipelines included, and fails if a winning plan scans
+ * the whole collection or sorts in memory.
+ */
+class NoteRepositoryIndexTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "index-user";
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct", "findAndModify");
+    // Added by the driver to every command; explain rejects them inside the explained command
+    private static final Set<String> DRIVER_FIELDS = Set.of(
+        "$db", "lsid", "$clusterTime", "txnNumber", "$readPreference", "apiVersion", "apiStrict", "apiDeprecationErrors");
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MongoCommandRecorder commandRecorder;
+
+    private Note note;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Note note = new Note();
+            note.setId(UUID.randomUUID());
+            note.setUserId(i % 2 == 0 ? USER_ID : "other-user");
+            note.setTitle("Title " + i);
+            note.setContent("Content " + i);
+            note.setPriority(Note.Priority.values()[i % Note.Priority.values().length]);
+            note.setCreatedAt(OffsetDateTime.now().minusDays(i));
+            note.setUpdatedAt(OffsetDateTime.now().minusDays(i / 2));
+            note.setDeletedAt(i % 5 == 0 ? OffsetDateTime.now() : null);
+            note.setChangedAt(OffsetDateTime.now().minusHours(i));
+            notes.add(note);
+        }
+        noteRepository.saveAll(notes);
+        note = notes.get(2);
+    }
+
+    private void assertIndexed(Runnable call) {
+        assertIndexed(call, false);
+    }
+
+    /**
+     * @param sortsInMemory true for queries whose sort no index can provide, such as by text score
+     */
+    private void assertIndexed(Runnable call, boolean sortsInMemory) {
+        commandRecorder.clear();
+        call.run();
+
+        String collection = mongoTemplate.getCollectionName(Note.class);
+        List<BsonDocument> commands = commandRecorder.commands().stream()
+            .filter(command -> EXPLAINABLE.contains(command.getFirstKey())
+                && new BsonString(collection).equals(command.get(command.getFirstKey())))
+            .toList();
+        assertFalse(commands.isEmpty(), "No query sent to " + collection);
+
+        for (BsonDocument command : commands) {
+            BsonDocument explained = command.clone();
+            DRIVER_FIELDS.forEach(explained::remove);
+            Document explain = mongoTemplate.getDb().runCommand(
+                new BsonDocument("explain", explained).append("verbosity", new BsonString("queryPlanner")));
+
+            List<String> stages = new ArrayList<>();
+            collectWinningStages(explain, false, stages);
+            assertFalse(stages.isEmpty(), "No stages in plan: " + explain.toJson());
+            assertFalse(stages.contains("COLLSCAN"), "Collection scan for " + explained.toJson() + ": " + explain.toJson());
+            if (!sortsInMemory) {
+                assertFalse(stages.contains("SORT"), "In-memory sort for " + explained.toJson() + ": " + explain.toJson());
+            }
+        }
+    }
+
+    /**
+     * Collects the stages of every winning plan; an aggregation has one per stage that reads the collection.
+     */
+    private static void collectWinningStages(Object node, boolean winning, List<String> stages) {
+        if (node instanceof Document document) {
+            if (winning && document.get("stage") instanceof String name) {
+                stages.add(name);
+            }
+            document.forEach((key, value) -> {
+                if (!key.equals("rejectedPlans")) {
+                    collectWinningStages(value, winning || key.equals("winningPlan"), stages);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectWinningStages(value, winning, stages));
+        }
+    }
+
+    @Test
+    void findAllByUserIdAndNotDeleted_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findAllByUserIdAndNotDeleted(USER_ID, FIRST_PAGE));
+    }
+
+    @Test
+    void findAllByUserIdAndPriorityAndNotDeleted_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findAllByUserIdAndPriorityAndNotDeleted(
+            USER_ID, Note.Priority.LATER, FIRST_PAGE));
+    }
+
+    @Test
+    void findAllByUserIdAndCreatedAtAfterAndNotDeleted_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findAllByUserIdAndCreatedAtAfterAndNotDeleted(
+            USER_ID, OffsetDateTime.now().minusDays(7), FIRST_PAGE));
+    }
+
+    @Test
+    void findByUserIdAndIdAndNotDeleted_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, note.getId()));
+    }
+
+    @Test
+    void findStaleNotes_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findStaleNotes(USER_ID, OffsetDateTime.now().minusDays(2)));
+    }
+
+    @Test
+    void countOpenNotesUpdatedBetween_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.countOpenNotesUpdatedBetween(
+            USER_ID, OffsetDateTime.now().minusDays(3), OffsetDateTime.now().minusDays(2)));
+    }
+
+    @Test
+    void findHighPriorityCompletedAndDeletedNotes_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findHighPriorityNotes(USER_ID));
+        assertIndexed(() -> noteRepository.findCompletedNotes(USER_ID));
+        assertIndexed(() -> noteRepository.findDeletedNotes(USER_ID));
+    }
+
+    @Test
+    void aggregateStatistics_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.aggregateStatistics(USER_ID, OffsetDateTime.now().minusDays(2)));
+    }
+
+    @Test
+    void countOpenNotesByUpdatedDay_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.countOpenNotesByUpdatedDay(USER_ID));
+    }
+
+    @Test
+    void findDistinctUserIds_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findDistinctUserIds());
+    }
+
+    @Test
+    void findActiveNotesAfter_ShouldUseIndex() {
+        NoteCursor after = new NoteCursor(note.getCreatedAt(), note.getId());
+        assertIndexed(() -> noteRepository.findActiveNotesAfter(USER_ID, null, null, null, 10));
+        assertIndexed(() -> noteRepository.findActiveNotesAfter(USER_ID, null, null, after, 10));
+        assertIndexed(() -> noteRepository.findActiveNotesAfter(USER_ID, Note.Priority.LATER, null, after, 10));
+        assertIndexed(() -> noteRepository.findActiveNotesAfter(
+            USER_ID, null, OffsetDateTime.now().minusDays(7), after, 10));
+    }
+
+    @Test
+    void findChangedNotes_ShouldUseIndex() {
+        OffsetDateTime until = OffsetDateTime.now();
+        assertIndexed(() -> noteRepository.findChangedNotes(USER_ID, null, until, 10));
+        assertIndexed(() -> noteRepository.findChangedNotes(
+            USER_ID, new NoteCheckpoint(note.getChangedAt(), null), until, 10));
+        assertIndexed(() -> noteRepository.findChangedNotes(USER_ID, NoteCheckpoint.of(note), until, 10));
+    }
+
+    @Test
+    void modifyActiveNote_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.modifyActiveNote(USER_ID, note.getId(), new Update().set("title", "Changed")));
+    }
+
+    @Test
+    void findActiveNotesByIds_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findActiveNotesByIds(USER_ID, List.of(note.getId(), UUID.randomUUID())));
+    }
+
+    @Test
+    void findNotesByIds_ShouldUseIndex() {
+        assertIndexed(() -> noteRepository.findNotesByIds(USER_ID, List.of(note.getId(), UUID.randomUUID())));
+    }
+
+    @Test
+    void streamNotes_ShouldUseIndex() {
+        assertIndexed(() -> {
+            try (Stream<Note> notes = noteRepository.streamNotes(USER_ID, false)) {
+                notes.forEach(note -> { });
+            }
+        });
+        assertIndexed(() -> {
+            try (Stream<Note> notes = noteRepository.streamNotes(USER_ID, true)) {
+                notes.forEach(note -> { });
+            }
+        });
+    }
+
+    @Test
+    void searchActiveNotes_ShouldUseTextIndex() {
+        // Results are ordered by text score, which only an in-memory sort can do
+        assertIndexed(() -> noteRepository.searchActiveNotes(USER_ID, "content", null, 10), true);
+        assertIndexed(() -> noteRepository.searchActiveNotes(USER_ID, "content", Note.Priority.NOW, 10), true);
+    }
+}
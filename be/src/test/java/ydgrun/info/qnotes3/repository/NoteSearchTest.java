@@ -0,0 +1,81 @@
+package ydgrun.info.qnotes3.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+import ydgrun.info.qnotes3.service.NoteReadCache;
+import ydgrun.info.qnotes3.service.NoteService;
+import ydgrun.info.qnotes3.service.UserStatsService;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteSearchTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "search-user";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    private NoteService noteService;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        NoteReadCache readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new NoteService(noteRepository,
+            new UserStatsService(mongoTemplate, userStatsRepository, noteRepository, new SimpleMeterRegistry()), readCache, List.of(readCache));
+    }
+
+    private static List<String> titles(List<NoteSearchResult> results) {
+        return results.stream().map(result -> result.note().getTitle()).toList();
+    }
+
+    @Test
+    void searchNotes_ShouldRankTitleMatchesFirst_AndOnlyReturnActiveNotesOfUser() {
+        // Arrange
+        noteService.createNote(USER_ID, "Groceries", "Buy milk and bread for the garden party", Note.Priority.LATER);
+        noteService.createNote(USER_ID, "Garden", "Plant tomatoes", Note.Priority.NOW);
+        noteService.createNote(USER_ID, "Taxes", "File the yearly return", Note.Priority.NOW);
+        Note deleted = noteService.createNote(USER_ID, "Garden shed", "Paint it", Note.Priority.NOW);
+        noteService.deleteNote(USER_ID, deleted.getId());
+        noteService.createNote("other-user", "Garden", "Someone else's garden", Note.Priority.NOW);
+
+        // Act
+        List<NoteSearchResult> results = noteService.searchNotes(USER_ID, "garden", null, null);
+
+        // Assert
+        assertEquals(List.of("Garden", "Groceries"), titles(results));
+        assertTrue(results.get(0).score() > results.get(1).score());
+    }
+
+    @Test
+    void searchNotes_ShouldApplyPriorityFilter_AndStemTerms() {
+        // Arrange
+        noteService.createNote(USER_ID, "Run", "Go running in the park", Note.Priority.NOW);
+        noteService.createNote(USER_ID, "Marathon", "Runs every sunday", Note.Priority.LATER);
+
+        // Act
+        List<NoteSearchResult> all = noteService.searchNotes(USER_ID, "running", null, null);
+        List<NoteSearchResult> later = noteService.searchNotes(USER_ID, "running", Note.Priority.LATER, null);
+
+        // Assert
+        assertEquals(2, all.size());
+        assertEquals(List.of("Marathon"), titles(later));
+        NoteSearchResult result = later.get(0);
+        assertEquals("Runs every sunday", result.snippet());
+        assertEquals(List.of(new NoteSearchResult.Highlight(0, 4)), result.highlights());
+    }
+}
@@ -0,0 +1,103 @@
+package ydgrun.info.qnotes3.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.service.NoteReadCache;
+import ydgrun.info.qnotes3.service.NoteService;
+import ydgrun.info.qnotes3.service.UserStatsService;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteStatisticsAggregationTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "stats-user";
+    private static final String OTHER_USER_ID = "other-user";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    private NoteService noteService;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        NoteReadCache readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new NoteService(noteRepository,
+            new UserStatsService(mongoTemplate, userStatsRepository, noteRepository, new SimpleMeterRegistry()), readCache, List.of(readCache));
+    }
+
+    private Note note(String userId, Note.Priority priority, OffsetDateTime createdAt, OffsetDateTime updatedAt,
+                      OffsetDateTime deletedAt) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(userId);
+        note.setTitle("Title");
+        note.setContent("Content");
+        note.setPriority(priority);
+        note.setCreatedAt(createdAt);
+        note.setUpdatedAt(updatedAt);
+        note.setDeletedAt(deletedAt);
+        return note;
+    }
+
+    @Test
+    void aggregateStatistics_ShouldMatchPerQueryImplementation() {
+        // Arrange
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Note> notes = new ArrayList<>();
+        notes.add(note(USER_ID, Note.Priority.NOW, now.minusDays(5), now.minusDays(4), null));
+        notes.add(note(USER_ID, Note.Priority.NOW, now.minusHours(5), now.minusHours(1), null));
+        notes.add(note(USER_ID, Note.Priority.LATER, now.minusDays(10), now.minusDays(3), null));
+        notes.add(note(USER_ID, Note.Priority.SOMEDAY, now.minusDays(1), now.minusDays(1), null));
+        notes.add(note(USER_ID, Note.Priority.DONE, now.minusDays(6), now.minusDays(5), null));
+        notes.add(note(USER_ID, Note.Priority.DONE, now.minusHours(30), now.minusHours(3), null));
+        notes.add(note(USER_ID, Note.Priority.NOW, now.minusDays(7), now.minusDays(6), now.minusDays(2)));
+        notes.add(note(USER_ID, Note.Priority.DONE, now.minusHours(12), now.minusHours(11), now.minusHours(1)));
+        notes.add(note(OTHER_USER_ID, Note.Priority.NOW, now.minusDays(9), now.minusDays(9), null));
+        notes.add(note(OTHER_USER_ID, Note.Priority.DONE, now.minusDays(9), now.minusDays(1), now));
+        noteRepository.saveAll(notes);
+
+        // Act
+        NoteStatistics statistics = noteService.getStatistics(USER_ID);
+
+        // Assert
+        assertEquals(noteService.countStaleNotes(USER_ID), statistics.staleCount());
+        assertEquals(noteService.countHighPriorityNotes(USER_ID), statistics.highPriorityCount());
+        assertEquals(noteService.calculateAverageCompletionTime(USER_ID), statistics.averageCompletionHours(), 0.01);
+        assertEquals(noteService.calculateAverageDeletionTime(USER_ID), statistics.averageDeletionHours(), 0.01);
+
+        assertEquals(2, statistics.staleCount());
+        assertEquals(2, statistics.highPriorityCount());
+        assertEquals(2, statistics.completedCount());
+        assertEquals(2, statistics.deletedCount());
+    }
+
+    @Test
+    void aggregateStatistics_ShouldReturnZeros_WhenUserHasNoNotes() {
+        // Act
+        NoteStatistics statistics = noteService.getStatistics(USER_ID);
+
+        // Assert
+        assertEquals(0, statistics.staleCount());
+        assertEquals(0, statistics.highPriorityCount());
+        assertEquals(0.0, statistics.averageCompletionHours(), 0.01);
+        assertEquals(0.0, statistics.averageDeletionHours(), 0.01);
+    }
+}
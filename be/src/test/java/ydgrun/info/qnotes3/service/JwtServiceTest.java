@@ -0,0 +1,102 @@
+package ydgrun.info.qnotes3.service;
+
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String USERNAME = "test-user";
+    private static final String OLD_KEY = "old:" + secret('o');
+    private static final String NEW_KEY = "new:" + secret('n');
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes());
+    }
+
+    /**
+     * A separate application context per call, as on separate instances behind a load balancer.
+     */
+    private static ApplicationContextRunner node(String keys, String signingKeyId) {
+        return new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withBean(JwtService.class)
+            .withPropertyValues("jwt.expiration=60000", "jwt.cache.max-size=100",
+                "jwt.keys=" + keys, "jwt.signing-key-id=" + signingKeyId);
+    }
+
+    @Test
+    void tokenIssuedByOneInstance_ShouldBeAcceptedByAnother_WithTheSameKeys() {
+        // Arrange
+        AtomicReference<String> token = new AtomicReference<>();
+
+        // Act
+        node(OLD_KEY, "").run(context -> token.set(context.getBean(JwtService.class).generateToken(USERNAME)));
+
+        // Assert
+        node(OLD_KEY, "").run(context ->
+            assertEquals(USERNAME, context.getBean(JwtService.class).extractValidUsername(token.get())));
+    }
+
+    @Test
+    void tokensSignedWithEitherKey_ShouldBeAccepted_WhileKeysOverlap() {
+        // Arrange
+        AtomicReference<String> oldToken = new AtomicReference<>();
+        AtomicReference<String> newToken = new AtomicReference<>();
+        node(OLD_KEY, "").run(context -> oldToken.set(context.getBean(JwtService.class).generateToken(USERNAME)));
+        node(OLD_KEY + "," + NEW_KEY, "new").run(context ->
+            newToken.set(context.getBean(JwtService.class).generateToken(USERNAME)));
+
+        // Act & Assert
+        node(NEW_KEY + "," + OLD_KEY, "new").run(context -> {
+            JwtService jwtService = context.getBean(JwtService.class);
+            assertEquals(USERNAME, jwtService.extractValidUsername(oldToken.get()));
+            assertEquals(USERNAME, jwtService.extractValidUsername(newToken.get()));
+        });
+        node(NEW_KEY, "").run(context -> assertThrows(SignatureException.class,
+            () -> context.getBean(JwtService.class).extractValidUsername(oldToken.get())));
+    }
+
+    @Test
+    void instancesWithoutConfiguredKeys_ShouldNotAcceptEachOthersTokens() {
+        // Arrange
+        JwtService issuer = new JwtService(60_000, 100, List.of(), "");
+        JwtService other = new JwtService(60_000, 100, List.of(), "");
+
+        // Act
+        String token = issuer.generateToken(USERNAME);
+
+        // Assert
+        assertEquals(USERNAME, issuer.extractValidUsername(token));
+        assertThrows(SignatureException.class, () -> other.extractValidUsername(token));
+    }
+
+    @Test
+    void constructor_ShouldReject_SigningKeyThatIsNotConfigured() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new JwtService(60_000, 100, List.of(OLD_KEY), "new"));
+    }
+
+    @Test
+    void remainingLifetime_ShouldCountDownToTheExpiration() {
+        // Arrange
+        JwtService jwtService = new JwtService(60_000, 100, List.of(), "");
+        String token = jwtService.generateToken(USERNAME);
+
+        // Act
+        Duration remaining = jwtService.remainingLifetime(token);
+
+        // Assert
+        assertTrue(remaining.compareTo(Duration.ofSeconds(58)) > 0, remaining::toString);
+        assertTrue(remaining.compareTo(Duration.ofSeconds(60)) <= 0, remaining::toString);
+    }
+}
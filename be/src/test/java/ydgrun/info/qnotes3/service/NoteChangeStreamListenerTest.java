@@ -0,0 +1,120 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import ydgrun.info.qnotes3.domain.ChangeStreamToken;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.repository.AbstractMongoRepositoryTest;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against the single-node replica set that the embedded mongod is started as.
+ */
+class NoteChangeStreamListenerTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "stream-user";
+    private static final String NODE_ID = "test-node";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    private final BlockingQueue<Note> published = new LinkedBlockingQueue<>();
+    private final NoteChangeListener recorder = (before, after) -> published.add(after);
+    private final List<NoteChangeStreamListener> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        mongoTemplate.remove(ChangeStreamToken.class).all();
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(NoteChangeStreamListener::stop);
+    }
+
+    private NoteChangeStreamListener start() {
+        NoteChangeStreamListener listener = new NoteChangeStreamListener(mongoTemplate, List.of(recorder), NODE_ID,
+            Duration.ofMillis(100), Duration.ofMillis(100), new SimpleMeterRegistry());
+        listener.start();
+        started.add(listener);
+        return listener;
+    }
+
+    private Note saveNote(String title) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return noteRepository.save(NoteService.newNote(USER_ID, title, "content", Note.Priority.NOW, now));
+    }
+
+    private Note nextPublished() throws InterruptedException {
+        return published.poll(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void writesOfOtherInstances_ShouldBePublishedToLocalListeners() throws InterruptedException {
+        // Arrange
+        start();
+
+        // Act
+        Note saved = saveNote("Remote");
+
+        // Assert
+        Note note = nextPublished();
+        assertNotNull(note);
+        assertEquals(saved.getId(), note.getId());
+        assertEquals(USER_ID, note.getUserId());
+        assertEquals("Remote", note.getTitle());
+    }
+
+    @Test
+    void writesOfThisInstance_ShouldNotBePublishedAgain() throws InterruptedException {
+        // Arrange
+        NoteChangeStreamListener listener = start();
+        Note local = NoteService.newNote(USER_ID, "Local", "content", Note.Priority.NOW, OffsetDateTime.now());
+        listener.onNoteChanged(null, local);
+
+        // Act
+        noteRepository.save(local);
+        Note remote = saveNote("Remote");
+
+        // Assert
+        assertEquals(remote.getId(), nextPublished().getId());
+        assertNull(published.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void restartedListener_ShouldResumeAfterTheSavedToken() throws InterruptedException {
+        // Arrange
+        NoteChangeStreamListener first = start();
+        saveNote("Before stop");
+        assertNotNull(nextPublished());
+        first.stop();
+        assertNotNull(mongoTemplate.findById(NODE_ID, ChangeStreamToken.class));
+
+        // Act
+        Note missed = saveNote("While stopped");
+        start();
+
+        // Assert
+        Note note = nextPublished();
+        assertNotNull(note);
+        assertEquals(missed.getId(), note.getId());
+    }
+}
@@ -0,0 +1,239 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class NoteEventBusTest {
+
+    private static final String USER_ID = "test-user";
+    private static final int BUFFER_SIZE = 3;
+
+    @Mock
+    private UserStatsService userStatsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NoteEventBus noteEventBus;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(userStatsService.getStatistics(anyString())).thenReturn(NoteStatistics.EMPTY);
+        noteEventBus = new NoteEventBus(userStatsService, BUFFER_SIZE, Duration.ZERO, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteEventBus.destroy();
+    }
+
+    private static Note note(UUID id, String title) {
+        Note note = new Note();
+        note.setId(id);
+        note.setUserId(USER_ID);
+        note.setTitle(title);
+        note.setChangedAt(OffsetDateTime.now());
+        return note;
+    }
+
+    /**
+     * Records events as strings; holds the drain thread in the first statistics event until released,
+     * so that changes published meanwhile pile up in the buffer.
+     */
+    private static class RecordingSink implements NoteEventSink {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void note(Note note) {
+            events.add("note:" + note.getTitle());
+        }
+
+        @Override
+        public void statistics(NoteStatistics statistics) throws IOException {
+            events.add("statistics");
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void resync() {
+            events.add("resync");
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void subscribe_ShouldSendStatisticsFirst() throws InterruptedException {
+        // Arrange
+        RecordingSink sink = new RecordingSink();
+        sink.release.countDown();
+
+        // Act
+        noteEventBus.subscribe(USER_ID, sink);
+
+        // Assert
+        assertEquals("statistics", sink.next());
+        assertEquals(1, noteEventBus.subscriberCount());
+    }
+
+    @Test
+    void onNoteChanged_ShouldCoalesceChangesOfTheSameNote() throws InterruptedException {
+        // Arrange
+        RecordingSink sink = new RecordingSink();
+        noteEventBus.subscribe(USER_ID, sink);
+        assertTrue(sink.blocked.await(5, TimeUnit.SECONDS));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        // Act
+        noteEventBus.onNoteChanged(null, note(first, "a1"));
+        noteEventBus.onNoteChanged(null, note(second, "b1"));
+        noteEventBus.onNoteChanged(null, note(first, "a2"));
+        sink.release.countDown();
+
+        // Assert
+        assertEquals(List.of("statistics", "note:a2", "note:b1", "statistics"),
+            List.of(sink.next(), sink.next(), sink.next(), sink.next()));
+    }
+
+    @Test
+    void onNoteChanged_ShouldDropBufferedChangesForAResync_WhenTheBufferIsFull() throws InterruptedException {
+        // Arrange
+        RecordingSink sink = new RecordingSink();
+        noteEventBus.subscribe(USER_ID, sink);
+        assertTrue(sink.blocked.await(5, TimeUnit.SECONDS));
+
+        // Act
+        for (int i = 0; i < BUFFER_SIZE + 2; i++) {
+            noteEventBus.onNoteChanged(null, note(UUID.randomUUID(), "n" + i));
+        }
+        sink.release.countDown();
+
+        // Assert
+        assertEquals(List.of("statistics", "resync", "statistics"), List.of(sink.next(), sink.next(), sink.next()));
+        assertEquals(BUFFER_SIZE + 2, meterRegistry.get("notes.events.dropped").counter().count());
+    }
+
+    @Test
+    void onChangesMissed_ShouldReplaceBufferedChangesWithAResync() throws InterruptedException {
+        // Arrange
+        RecordingSink sink = new RecordingSink();
+        noteEventBus.subscribe(USER_ID, sink);
+        assertTrue(sink.blocked.await(5, TimeUnit.SECONDS));
+        noteEventBus.onNoteChanged(null, note(UUID.randomUUID(), "buffered"));
+
+        // Act
+        noteEventBus.onChangesMissed();
+        sink.release.countDown();
+
+        // Assert
+        assertEquals(List.of("statistics", "resync", "statistics"), List.of(sink.next(), sink.next(), sink.next()));
+    }
+
+    @Test
+    void onNoteChanged_ShouldOnlyReachSubscriptionsOfTheOwner() throws InterruptedException {
+        // Arrange
+        RecordingSink sink = new RecordingSink();
+        sink.release.countDown();
+        noteEventBus.subscribe("other-user", sink);
+        assertEquals("statistics", sink.next());
+
+        // Act
+        noteEventBus.onNoteChanged(null, note(UUID.randomUUID(), "mine"));
+
+        // Assert
+        assertNull(sink.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void subscription_ShouldBeRemoved_WhenTheSinkFails() throws InterruptedException {
+        // Arrange
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void note(Note note) {
+                throw new IllegalStateException("client gone");
+            }
+        };
+        sink.release.countDown();
+        noteEventBus.subscribe(USER_ID, sink);
+        assertEquals("statistics", sink.next());
+
+        // Act
+        noteEventBus.onNoteChanged(null, note(UUID.randomUUID(), "lost"));
+
+        // Assert
+        assertTrue(sink.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, noteEventBus.subscriberCount());
+    }
+
+    @Test
+    void subscribe_ShouldComputeStatisticsOnceForAllStreamsOfAUser_UntilTheyChange() throws InterruptedException {
+        // Arrange
+        NoteEventBus sharingBus = new NoteEventBus(userStatsService, BUFFER_SIZE, Duration.ofMinutes(1),
+            Duration.ofMinutes(1), meterRegistry);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        RecordingSink third = new RecordingSink();
+        first.release.countDown();
+        second.release.countDown();
+        third.release.countDown();
+
+        try {
+            // Act
+            sharingBus.subscribe(USER_ID, first);
+            sharingBus.subscribe(USER_ID, second);
+            assertEquals("statistics", first.next());
+            assertEquals("statistics", second.next());
+            sharingBus.onNoteChanged(null, note(UUID.randomUUID(), "changed"));
+            sharingBus.subscribe(USER_ID, third);
+            assertEquals("statistics", third.next());
+
+            // Assert
+            verify(userStatsService, times(2)).getStatistics(USER_ID);
+        } finally {
+            sharingBus.destroy();
+        }
+    }
+}
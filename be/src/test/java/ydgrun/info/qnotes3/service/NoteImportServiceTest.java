@@ -0,0 +1,137 @@
+package ydgrun.info.qnotes3.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteImportProgress;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoteImportServiceTest {
+
+    private static final String USER_ID = "test-user";
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private UserStatsService userStatsService;
+
+    private NoteImportService noteImportService;
+
+    private final List<String> errors = new ArrayList<>();
+    private final List<NoteImportProgress> progress = new ArrayList<>();
+    private final NoteImportListener listener = new NoteImportListener() {
+        @Override
+        public void onError(long line, String message) {
+            errors.add(line + ": " + message);
+        }
+
+        @Override
+        public void onProgress(NoteImportProgress update) {
+            progress.add(update);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        noteImportService = new NoteImportService(noteRepository, userStatsService, List.of(), new ObjectMapper(), BATCH_SIZE);
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String record(String title, String priority) {
+        return "{\"title\":\"" + title + "\",\"content\":\"Content\",\"priority\":\"" + priority + "\"}";
+    }
+
+    @Test
+    void importNotes_ShouldInsertInBatches_AndReportInvalidLines() throws Exception {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        String withTimestamps = "{\"id\":\"" + id + "\",\"title\":\"Old\",\"content\":\"Content\",\"priority\":\"DONE\","
+            + "\"createdAt\":\"2024-01-01T10:00:00Z\",\"updatedAt\":\"2024-01-03T10:00:00Z\"}";
+
+        // Act
+        NoteImportProgress result = noteImportService.importNotes(USER_ID, ndjson(
+            record("First", "NOW"),
+            record("Invalid", "URGENT"),
+            withTimestamps,
+            "{\"content\":\"No title\",\"priority\":\"LATER\"}",
+            record("Last", "LATER")
+        ), listener);
+
+        // Assert
+        assertEquals(new NoteImportProgress(5, 3, 2), result);
+        assertEquals(List.of(
+            "2: priority must be one of NOW, LATER, SOMEDAY, DONE",
+            "4: title is required"), errors);
+        assertEquals(List.of(new NoteImportProgress(3, 2, 1), new NoteImportProgress(5, 3, 2)), progress);
+
+        verify(noteRepository).bulkWrite(eq(USER_ID), argThat(notes -> notes.size() == 2
+            && "First".equals(notes.get(0).getTitle())
+            && id.equals(notes.get(1).getId())
+            && OffsetDateTime.parse("2024-01-01T10:00:00Z").isEqual(notes.get(1).getCreatedAt())), eq(List.of()));
+        verify(noteRepository).bulkWrite(eq(USER_ID), argThat(notes -> notes.size() == 1
+            && USER_ID.equals(notes.get(0).getUserId())
+            && notes.get(0).getPriority() == Note.Priority.LATER), eq(List.of()));
+        verify(noteRepository, never()).save(any(Note.class));
+        verify(userStatsService, times(2)).apply(eq(USER_ID), any(UserStatsDelta.class));
+    }
+
+    @Test
+    void importNotes_ShouldReportDuplicateIds() throws Exception {
+        // Arrange
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        when(noteRepository.bulkWrite(eq(USER_ID), any(), any()))
+            .thenThrow(new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+        // Act
+        NoteImportProgress result = noteImportService.importNotes(USER_ID,
+            ndjson(record("First", "NOW"), record("Second", "NOW")), listener);
+
+        // Assert
+        assertEquals(new NoteImportProgress(2, 1, 1), result);
+        assertEquals(List.of("2: A note with this id already exists"), errors);
+    }
+
+    @Test
+    void importNotes_ShouldStopAtMalformedJson_KeepingEarlierRecords() throws Exception {
+        // Act
+        NoteImportProgress result = noteImportService.importNotes(USER_ID,
+            ndjson(record("First", "NOW"), "{\"title\": oops", record("Never read", "NOW")), listener);
+
+        // Assert
+        assertEquals(1, result.imported());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).startsWith("2: Malformed JSON, import stopped"));
+        verify(noteRepository).bulkWrite(eq(USER_ID), argThat(notes -> notes.size() == 1), eq(List.of()));
+    }
+}
@@ -0,0 +1,165 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import ydgrun.info.qnotes3.domain.Note;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteReadCacheTest {
+
+    private static final String USER_ID = "test-user";
+
+    private SimpleMeterRegistry meterRegistry;
+    private NoteReadCache readCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private static Note note(String userId) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(userId);
+        note.setTitle("Title");
+        note.setContent("Content");
+        note.setPriority(Note.Priority.NOW);
+        note.setCreatedAt(OffsetDateTime.now());
+        note.setUpdatedAt(OffsetDateTime.now());
+        return note;
+    }
+
+    private Page<Note> loadPage(String userId) {
+        return loadPage(userId, 0);
+    }
+
+    private Page<Note> loadPage(String userId, long changeCount) {
+        return readCache.getPage(userId, changeCount, 0, null, null, () -> {
+            Note note = note(userId);
+            note.setTitle("Load " + loads.incrementAndGet());
+            return new PageImpl<>(List.of(note));
+        });
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void getPage_ShouldRecordHitsAndMisses() {
+        // Act
+        Page<Note> first = loadPage(USER_ID);
+        Page<Note> second = loadPage(USER_ID);
+        readCache.getPage(USER_ID, 0, 1, null, null, () -> new PageImpl<>(List.of()));
+        readCache.getPage(USER_ID, 0, 0, Note.Priority.NOW, null, () -> new PageImpl<>(List.of()));
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, gets("notes.pages", "hit"));
+        assertEquals(3, gets("notes.pages", "miss"));
+        assertNotNull(meterRegistry.get("cache.evictions").tag("cache", "notes.pages").functionCounter());
+    }
+
+    @Test
+    void getPage_ShouldLoadAgain_OnlyForTheUserWhoseChangeCountAdvanced() {
+        // Arrange
+        loadPage(USER_ID, 0);
+        loadPage("other-user", 0);
+
+        // Act
+        Page<Note> afterChange = loadPage(USER_ID, 1);
+        Page<Note> again = loadPage(USER_ID, 1);
+        loadPage("other-user", 0);
+
+        // Assert
+        assertSame(afterChange, again);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void getNote_ShouldNotCacheMissingNotes_AndInvalidateOnlyTheChangedNote() {
+        // Arrange
+        Note cached = note(USER_ID);
+        Note untouched = note(USER_ID);
+        UUID missingId = UUID.randomUUID();
+
+        // Act
+        readCache.getNote(USER_ID, cached.getId(), () -> Optional.of(cached));
+        readCache.getNote(USER_ID, untouched.getId(), () -> Optional.of(untouched));
+        readCache.getNote(USER_ID, missingId, Optional::empty);
+        Optional<Note> missing = readCache.getNote(USER_ID, missingId, () -> Optional.of(note(USER_ID)));
+        Optional<Note> otherUser = readCache.getNote("other-user", cached.getId(), Optional::empty);
+
+        Note updated = cached.copy();
+        updated.setTitle("Updated");
+        readCache.onNoteChanged(cached, updated);
+        Optional<Note> afterUpdate = readCache.getNote(USER_ID, cached.getId(), () -> Optional.of(updated));
+        Optional<Note> stillCached = readCache.getNote(USER_ID, untouched.getId(), Optional::empty);
+
+        // Assert
+        assertTrue(missing.isPresent());
+        assertTrue(otherUser.isEmpty());
+        assertEquals("Updated", afterUpdate.orElseThrow().getTitle());
+        assertSame(untouched, stillCached.orElseThrow());
+        assertEquals(1, gets("notes.single", "hit"));
+    }
+
+    @Test
+    void getNote_ShouldNotKeepLoad_ThatRacedWithAChange() {
+        // Arrange
+        Note stale = note(USER_ID);
+        Note updated = stale.copy();
+        updated.setTitle("Updated");
+
+        // Act
+        Optional<Note> racing = readCache.getNote(USER_ID, stale.getId(), () -> {
+            readCache.onNoteChanged(stale, updated);
+            return Optional.of(stale);
+        });
+        Optional<Note> afterChange = readCache.getNote(USER_ID, stale.getId(), () -> Optional.of(updated));
+
+        // Assert
+        assertSame(stale, racing.orElseThrow());
+        assertSame(updated, afterChange.orElseThrow());
+    }
+
+    @Test
+    void getPage_ShouldNotCacheFailedLoads() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> readCache.getPage(USER_ID, 0, 0, null, null, () -> {
+            throw new IllegalStateException("Mongo unavailable");
+        }));
+        loadPage(USER_ID);
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void onChangesMissed_ShouldDropCachedNotes() {
+        // Arrange
+        Note cached = note(USER_ID);
+        readCache.getNote(USER_ID, cached.getId(), () -> Optional.of(cached));
+
+        // Act
+        readCache.onChangesMissed();
+        Optional<Note> afterMissed = readCache.getNote(USER_ID, cached.getId(), Optional::empty);
+
+        // Assert
+        assertTrue(afterMissed.isEmpty());
+    }
+}
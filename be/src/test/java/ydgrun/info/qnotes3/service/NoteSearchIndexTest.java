@@ -0,0 +1,262 @@
+package ydgrun.info.qnotes3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+import ydgrun.info.qnotes3.exception.InvalidSearchQueryException;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoteSearchIndexTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private NoteSearchIndex searchIndex;
+
+    private static final String USER_ID = "test-user";
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new NoteSearchIndex(noteRepository, DataSize.ofMegabytes(1));
+    }
+
+    private static Note note(String title, String content, Note.Priority priority) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(USER_ID);
+        note.setTitle(title);
+        note.setContent(content);
+        note.setPriority(priority);
+        note.setCreatedAt(OffsetDateTime.now());
+        note.setUpdatedAt(OffsetDateTime.now());
+        return note;
+    }
+
+    private void storeNotes(String userId, List<Note> notes) {
+        when(noteRepository.streamNotes(userId, false)).thenAnswer(invocation -> notes.stream());
+        lenient().when(noteRepository.findActiveNotesByIds(eq(userId), any())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(1);
+            return notes.stream().filter(note -> ids.contains(note.getId())).toList();
+        });
+    }
+
+    @Test
+    void searchNotes_ShouldBuildIndexOnce_AndRankTitleMatchesFirst() {
+        // Arrange
+        Note inContent = note("Groceries", "Buy milk and bread", Note.Priority.LATER);
+        Note inTitle = note("Milk", "From the farm shop", Note.Priority.NOW);
+        Note unrelated = note("Gym", "Leg day", Note.Priority.NOW);
+        storeNotes(USER_ID, List.of(inContent, inTitle, unrelated));
+
+        // Act
+        List<NoteSearchResult> first = searchIndex.searchNotes(USER_ID, "milk", null, null);
+        List<NoteSearchResult> filtered = searchIndex.searchNotes(USER_ID, "milk", Note.Priority.LATER, null);
+
+        // Assert
+        assertEquals(List.of(inTitle.getId(), inContent.getId()), first.stream().map(result -> result.note().getId()).toList());
+        assertTrue(first.get(0).score() > first.get(1).score());
+        assertEquals("Buy milk and bread", first.get(1).snippet());
+        assertEquals(List.of(new NoteSearchResult.Highlight(4, 4)), first.get(1).highlights());
+        assertEquals(List.of(inContent.getId()), filtered.stream().map(result -> result.note().getId()).toList());
+        verify(noteRepository, times(1)).streamNotes(USER_ID, false);
+    }
+
+    @Test
+    void searchNotes_ShouldMatchStemmedWords() {
+        // Arrange
+        Note note = note("Running plan", "Runs on Mondays", Note.Priority.SOMEDAY);
+        storeNotes(USER_ID, List.of(note));
+
+        // Act
+        List<NoteSearchResult> results = searchIndex.searchNotes(USER_ID, "runs", null, null);
+
+        // Assert
+        assertEquals(1, results.size());
+        assertEquals(note.getId(), results.get(0).note().getId());
+    }
+
+    @Test
+    void searchNotes_ShouldRejectQueryWithoutTerms() {
+        assertThrows(InvalidSearchQueryException.class, () -> searchIndex.searchNotes(USER_ID, "-milk", null, null));
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void onNoteChanged_ShouldKeepLoadedIndexCurrent() {
+        // Arrange
+        Note original = note("Milk", "Buy milk", Note.Priority.NOW);
+        List<Note> stored = new ArrayList<>(List.of(original));
+        storeNotes(USER_ID, stored);
+        searchIndex.searchNotes(USER_ID, "milk", null, null);
+
+        Note created = note("Bread", "Sourdough", Note.Priority.LATER);
+        stored.add(created);
+        Note renamed = original.copy();
+        renamed.setTitle("Eggs");
+        renamed.setContent("A dozen");
+        Note deleted = created.copy();
+        deleted.setDeletedAt(OffsetDateTime.now());
+
+        // Act & Assert
+        searchIndex.onNoteChanged(null, created);
+        assertEquals(List.of(created.getId()), hitIds("bread"));
+
+        searchIndex.onNoteChanged(original, renamed);
+        assertEquals(List.of(), hitIds("milk"));
+        assertEquals(List.of(original.getId()), hitIds("eggs"));
+
+        searchIndex.onNoteChanged(created, deleted);
+        assertEquals(List.of(), hitIds("bread"));
+        verify(noteRepository, times(1)).streamNotes(USER_ID, false);
+    }
+
+    @Test
+    void onNoteChanged_ShouldNotWaitForIndexBeingBuilt_AndApplyChangeAfterwards() throws Exception {
+        // Arrange
+        Note original = note("Milk", "Buy milk", Note.Priority.NOW);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(noteRepository.streamNotes(USER_ID, false)).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Stream.of(original);
+        });
+        lenient().when(noteRepository.findActiveNotesByIds(eq(USER_ID), any())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(1);
+            return ids.contains(original.getId()) ? List.of(original) : List.of();
+        });
+        CompletableFuture<List<NoteSearchResult>> building =
+            CompletableFuture.supplyAsync(() -> searchIndex.searchNotes(USER_ID, "eggs", null, null));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        Note renamed = original.copy();
+        renamed.setTitle("Eggs");
+        renamed.setContent("A dozen");
+
+        // Act
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> searchIndex.onNoteChanged(original, renamed));
+        release.countDown();
+
+        // Assert
+        assertEquals(List.of(original.getId()),
+            building.get(5, TimeUnit.SECONDS).stream().map(result -> result.note().getId()).toList());
+        assertEquals(List.of(), hitIds("milk"));
+    }
+
+    @Test
+    void onNoteChanged_ShouldIgnoreUsersWithoutIndex() {
+        // Act
+        searchIndex.onNoteChanged(null, note("Milk", "Buy milk", Note.Priority.NOW));
+
+        // Assert
+        assertEquals(0, searchIndex.indexedUsers());
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void suggest_ShouldReturnWordsWithPrefix_MostFrequentFirst() {
+        // Arrange
+        storeNotes(USER_ID, List.of(
+            note("Project kickoff", "Prepare the project plan", Note.Priority.NOW),
+            note("Projector", "Return the projector", Note.Priority.LATER),
+            note("Project review", "Profile the queries", Note.Priority.DONE)));
+
+        // Act
+        List<String> suggestions = searchIndex.suggest(USER_ID, " Proj", null);
+        List<String> limited = searchIndex.suggest(USER_ID, "pr", 2);
+
+        // Assert
+        assertEquals(List.of("project", "projector"), suggestions);
+        assertEquals(List.of("project", "prepare"), limited);
+        assertEquals(List.of(), searchIndex.suggest(USER_ID, "  ", null));
+    }
+
+    @Test
+    void searchNotes_ShouldEvictLeastRecentlyUsedIndex_WhenOverMemoryBudget() {
+        // Arrange
+        for (String userId : List.of("user-x", "user-a", "user-b", "user-c")) {
+            List<Note> notes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Note note = note("Title " + userId + i, "word" + i + " common", Note.Priority.NOW);
+                note.setUserId(userId);
+                notes.add(note);
+            }
+            storeNotes(userId, notes);
+        }
+        searchIndex.searchNotes("user-x", "common", null, 1);
+        long budget = searchIndex.estimatedBytes() * 5 / 2;
+        searchIndex = new NoteSearchIndex(noteRepository, DataSize.ofBytes(budget));
+
+        // Act
+        searchIndex.searchNotes("user-a", "common", null, 1);
+        searchIndex.searchNotes("user-b", "common", null, 1);
+        searchIndex.searchNotes("user-a", "common", null, 1);
+        searchIndex.searchNotes("user-c", "common", null, 1);
+        searchIndex.searchNotes("user-a", "common", null, 1);
+
+        // Assert
+        assertEquals(2, searchIndex.indexedUsers());
+        assertTrue(searchIndex.estimatedBytes() <= budget);
+        verify(noteRepository, times(1)).streamNotes("user-a", false);
+        verify(noteRepository, times(1)).streamNotes("user-c", false);
+
+        searchIndex.searchNotes("user-b", "common", null, 1);
+        verify(noteRepository, times(2)).streamNotes("user-b", false);
+    }
+
+    @Test
+    void userNoteIndex_ShouldCompactRemovedNotes_AndKeepRanking() {
+        // Arrange
+        UserNoteIndex index = new UserNoteIndex();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Note note = note("Note " + i, i % 2 == 0 ? "even" : "odd", Note.Priority.NOW);
+            notes.add(note);
+            index.put(note);
+        }
+        long sizeBeforeUpdates = index.estimatedBytes();
+
+        // Act
+        for (int round = 0; round < 5; round++) {
+            for (Note note : notes) {
+                index.put(note);
+            }
+        }
+        Note deleted = notes.get(0).copy();
+        deleted.setDeletedAt(OffsetDateTime.now());
+        index.put(deleted);
+
+        // Assert
+        assertEquals(299, index.size());
+        assertEquals(149, index.search(List.of("even"), null, 1000).size());
+        assertEquals(150, index.search(List.of("odd"), null, 1000).size());
+        assertEquals(notes.get(299).getId(), index.search(List.of("odd"), null, 1).get(0).noteId());
+        assertTrue(index.estimatedBytes() < sizeBeforeUpdates * 3);
+    }
+
+    private List<UUID> hitIds(String query) {
+        return searchIndex.searchNotes(USER_ID, query, null, null).stream()
+            .map(result -> result.note().getId())
+            .toList();
+    }
+}
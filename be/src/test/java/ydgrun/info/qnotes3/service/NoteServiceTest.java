@@ -1,21 +1,47 @@
 package ydgrun.info.qnotes3.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.query.Update;
 import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+import ydgrun.info.qnotes3.domain.NoteBatchResult;
+import ydgrun.info.qnotes3.domain.NoteChanges;
+import ydgrun.info.qnotes3.domain.NoteCheckpoint;
+import ydgrun.info.qnotes3.domain.NoteCursor;
+import ydgrun.info.qnotes3.domain.NoteSearchResult;
+import ydgrun.info.qnotes3.domain.NoteWindow;
+import ydgrun.info.qnotes3.domain.ScoredNote;
+import ydgrun.info.qnotes3.exception.InvalidCursorException;
+import ydgrun.info.qnotes3.exception.InvalidSearchQueryException;
+import ydgrun.info.qnotes3.exception.NoteNotFoundException;
 import ydgrun.info.qnotes3.repository.NoteRepository;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +53,12 @@ class NoteServiceTest {
     @Mock
     private NoteRepository noteRepository;
 
+    @Mock
+    private UserStatsService userStatsService;
+
+    @Mock
+    private NoteChangeListener changeListener;
+
     private NoteService noteService;
 
     private static final String USER_ID = "test-user";
@@ -37,7 +69,8 @@ class NoteServiceTest {
 
     @BeforeEach
     void setUp() {
-        noteService = new NoteService(noteRepository);
+        NoteReadCache readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new NoteService(noteRepository, userStatsService, readCache, List.of(changeListener, readCache));
     }
 
     private Note createSampleNote() {
@@ -52,6 +85,15 @@ class NoteServiceTest {
         return note;
     }
 
+    /**
+     * Lets the mocked statistics count the writes of {@code USER_ID} the way {@code user_stats} does.
+     */
+    private void countChanges() {
+        AtomicLong changeCount = new AtomicLong();
+        when(userStatsService.getChangeCount(USER_ID)).thenAnswer(invocation -> changeCount.get());
+        doAnswer(invocation -> changeCount.incrementAndGet()).when(userStatsService).recordChange(any(), any());
+    }
+
     @Test
     void createNote_ShouldCreateAndReturnNewNote() {
         // Arrange
@@ -72,6 +114,8 @@ class NoteServiceTest {
         assertNull(createdNote.getDeletedAt());
 
         verify(noteRepository).save(any(Note.class));
+        verify(userStatsService).recordChange(null, createdNote);
+        verify(changeListener).onNoteChanged(null, createdNote);
     }
 
     @Test
@@ -82,9 +126,8 @@ class NoteServiceTest {
         String newContent = "Updated Content";
         Note.Priority newPriority = Note.Priority.LATER;
 
-        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID))
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
             .thenReturn(Optional.of(existingNote));
-        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         Note updatedNote = noteService.updateNote(USER_ID, NOTE_ID, newTitle, newContent, newPriority);
@@ -99,46 +142,98 @@ class NoteServiceTest {
         assertNotNull(updatedNote.getUpdatedAt());
         assertNull(updatedNote.getDeletedAt());
 
-        verify(noteRepository).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
-        verify(noteRepository).save(any(Note.class));
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID), argThat(update ->
+            update.modifies("title") && update.modifies("content")
+                && update.modifies("priority") && update.modifies("updatedAt")));
+        verify(noteRepository, never()).save(any(Note.class));
+        verify(userStatsService).recordChange(
+            argThat(before -> before.getPriority() == PRIORITY && TITLE.equals(before.getTitle())),
+            eq(updatedNote));
+        verify(changeListener).onNoteChanged(argThat(before -> TITLE.equals(before.getTitle())), eq(updatedNote));
     }
 
     @Test
     void updateNote_ShouldThrowException_WhenNoteNotFound() {
         // Arrange
-        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID))
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
             .thenReturn(Optional.empty());
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
             () -> noteService.updateNote(USER_ID, NOTE_ID, "title", "content", Note.Priority.NOW));
         assertEquals("Note not found", exception.getMessage());
+        assertInstanceOf(NoteNotFoundException.class, exception);
 
-        verify(noteRepository).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class));
         verify(noteRepository, never()).save(any(Note.class));
+        verifyNoInteractions(userStatsService, changeListener);
+    }
+
+    @Test
+    void updateNote_ShouldClearFieldsSentAsNull() {
+        // Arrange
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
+            .thenReturn(Optional.of(createSampleNote()));
+
+        // Act
+        Note updatedNote = noteService.updateNote(USER_ID, NOTE_ID, "Updated Title", null, PRIORITY);
+
+        // Assert
+        assertEquals("Updated Title", updatedNote.getTitle());
+        assertNull(updatedNote.getContent());
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID), argThat(update ->
+            update.modifies("content") && update.getUpdateObject().get("$set", Document.class).get("content") == null));
+    }
+
+    @Test
+    void patchNote_ShouldOnlySetProvidedFields() {
+        // Arrange
+        Note existingNote = createSampleNote();
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
+            .thenReturn(Optional.of(existingNote));
+
+        // Act
+        Note patchedNote = noteService.patchNote(USER_ID, NOTE_ID, null, null, Note.Priority.DONE);
+
+        // Assert
+        assertEquals(TITLE, patchedNote.getTitle());
+        assertEquals(CONTENT, patchedNote.getContent());
+        assertEquals(Note.Priority.DONE, patchedNote.getPriority());
+
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID), argThat(update ->
+            update.modifies("priority") && update.modifies("updatedAt")
+                && !update.modifies("title") && !update.modifies("content")));
+        verify(userStatsService).recordChange(
+            argThat(before -> before.getPriority() == PRIORITY),
+            eq(patchedNote));
     }
 
     @Test
     void deleteNote_ShouldMarkNoteAsDeleted() {
         // Arrange
         Note existingNote = createSampleNote();
-        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID))
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
             .thenReturn(Optional.of(existingNote));
-        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         noteService.deleteNote(USER_ID, NOTE_ID);
 
         // Assert
-        assertNotNull(existingNote.getDeletedAt());
-        verify(noteRepository).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
-        verify(noteRepository).save(existingNote);
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID), argThat(update ->
+            update.modifies("deletedAt") && update.modifies("changedAt") && !update.modifies("updatedAt")));
+        verify(noteRepository, never()).save(any(Note.class));
+        verify(userStatsService).recordChange(
+            argThat(before -> before.getDeletedAt() == null),
+            argThat(after -> after.getDeletedAt() != null && NOTE_ID.equals(after.getId())));
+        verify(changeListener).onNoteChanged(
+            argThat(before -> before.getDeletedAt() == null),
+            argThat(after -> after.getDeletedAt() != null));
     }
 
     @Test
     void deleteNote_ShouldThrowException_WhenNoteNotFound() {
         // Arrange
-        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID))
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
             .thenReturn(Optional.empty());
 
         // Act & Assert
@@ -146,8 +241,9 @@ class NoteServiceTest {
             () -> noteService.deleteNote(USER_ID, NOTE_ID));
         assertEquals("Note not found", exception.getMessage());
 
-        verify(noteRepository).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class));
         verify(noteRepository, never()).save(any(Note.class));
+        verifyNoInteractions(userStatsService, changeListener);
     }
 
     @Test
@@ -185,6 +281,70 @@ class NoteServiceTest {
         verify(noteRepository).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
     }
 
+    @Test
+    void getNote_ShouldServeRepeatedReadsFromCache_UntilNoteIsDeleted() {
+        // Arrange
+        Note existingNote = createSampleNote();
+        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID))
+            .thenReturn(Optional.of(existingNote), Optional.empty());
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
+            .thenReturn(Optional.of(existingNote));
+
+        // Act
+        Note first = noteService.getNote(USER_ID, NOTE_ID);
+        Note second = noteService.getNote(USER_ID, NOTE_ID);
+        noteService.deleteNote(USER_ID, NOTE_ID);
+
+        // Assert
+        assertSame(first, second);
+        assertThrows(NoteNotFoundException.class, () -> noteService.getNote(USER_ID, NOTE_ID));
+        verify(noteRepository, times(2)).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
+    }
+
+    @Test
+    void getNotes_ShouldServeRepeatedReadsFromCache_UntilUserWrites() {
+        // Arrange
+        countChanges();
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+        when(noteRepository.findAllByUserIdAndNotDeleted(USER_ID, pageRequest))
+            .thenReturn(new PageImpl<>(List.of()), new PageImpl<>(List.of(createSampleNote())));
+        when(noteRepository.findAllByUserIdAndNotDeleted("other-user", pageRequest))
+            .thenReturn(new PageImpl<>(List.of()));
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        noteService.getNotes(USER_ID, 0, null, null);
+        noteService.getNotes(USER_ID, null, null, "ALL");
+        noteService.getNotes("other-user", 0, null, null);
+        noteService.createNote(USER_ID, TITLE, CONTENT, PRIORITY);
+        Page<Note> afterWrite = noteService.getNotes(USER_ID, 0, null, null);
+        noteService.getNotes("other-user", 0, null, null);
+
+        // Assert
+        assertEquals(1, afterWrite.getContent().size());
+        verify(noteRepository, times(2)).findAllByUserIdAndNotDeleted(USER_ID, pageRequest);
+        verify(noteRepository, times(1)).findAllByUserIdAndNotDeleted("other-user", pageRequest);
+    }
+
+    @Test
+    void getNotesVersion_ShouldChangeWithWrites_AndBeAbsentForDateRanges() {
+        // Arrange
+        countChanges();
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String before = noteService.getNotesVersion(USER_ID, null, "ALL");
+
+        // Act
+        noteService.createNote(USER_ID, TITLE, CONTENT, PRIORITY);
+
+        // Assert
+        assertNotNull(before);
+        assertNotEquals(before, noteService.getNotesVersion(USER_ID, null, "ALL"));
+        assertEquals(noteService.getNotesVersion(USER_ID, null, "ALL"),
+            noteService.getNotesVersion(USER_ID, PRIORITY, null));
+        assertNull(noteService.getNotesVersion(USER_ID, null, "TODAY"));
+        assertNull(noteService.getNotesVersion(USER_ID, null, "PAST_SEVEN_DAYS"));
+    }
+
     @Test
     void getNotes_ShouldReturnAllNotes_WhenNoFilters() {
         // Arrange
@@ -290,6 +450,263 @@ class NoteServiceTest {
         verify(noteRepository).findAllByUserIdAndNotDeleted(USER_ID, pageRequest);
     }
 
+    @Test
+    void executeBatch_ShouldFoldOperationsIntoSingleBulkWrite() {
+        // Arrange
+        Note existingNote = createSampleNote();
+        UUID missingId = UUID.randomUUID();
+        when(noteRepository.findActiveNotesByIds(eq(USER_ID), any()))
+            .thenReturn(List.of(existingNote));
+        when(noteRepository.bulkWrite(eq(USER_ID), any(), any()))
+            .thenReturn(BulkWriteResult.acknowledged(1, 1, 0, 1, List.of(), List.of()));
+
+        // Act
+        List<NoteBatchResult> results = noteService.executeBatch(USER_ID, List.of(
+            new NoteBatchOperation(NoteBatchOperation.Type.CREATE, null, TITLE, CONTENT, Note.Priority.LATER),
+            new NoteBatchOperation(NoteBatchOperation.Type.SET_PRIORITY, NOTE_ID, null, null, Note.Priority.DONE),
+            new NoteBatchOperation(NoteBatchOperation.Type.UPDATE, NOTE_ID, "Updated Title", null, null),
+            new NoteBatchOperation(NoteBatchOperation.Type.DELETE, missingId, null, null, null),
+            new NoteBatchOperation(NoteBatchOperation.Type.CREATE, null, null, CONTENT, PRIORITY)
+        ));
+
+        // Assert
+        assertEquals(List.of(
+                NoteBatchResult.Status.CREATED,
+                NoteBatchResult.Status.UPDATED,
+                NoteBatchResult.Status.UPDATED,
+                NoteBatchResult.Status.NOT_FOUND,
+                NoteBatchResult.Status.INVALID),
+            results.stream().map(NoteBatchResult::status).toList());
+
+        verify(noteRepository).findActiveNotesByIds(USER_ID, Set.of(NOTE_ID, missingId));
+        verify(noteRepository).bulkWrite(eq(USER_ID),
+            argThat(inserts -> inserts.size() == 1 && TITLE.equals(inserts.get(0).getTitle())),
+            argThat(updates -> updates.size() == 1
+                && existingNote.equals(updates.get(0).getFirst())
+                && updates.get(0).getSecond().modifies("priority")
+                && updates.get(0).getSecond().modifies("title")
+                && !updates.get(0).getSecond().modifies("content")));
+        verify(noteRepository, never()).save(any(Note.class));
+        verify(userStatsService).apply(eq(USER_ID), any(UserStatsDelta.class));
+        verify(changeListener).onNoteChanged(isNull(), argThat(note -> TITLE.equals(note.getTitle())));
+        verify(changeListener).onNoteChanged(eq(existingNote),
+            argThat(note -> note.getPriority() == Note.Priority.DONE && "Updated Title".equals(note.getTitle())));
+    }
+
+    @Test
+    void executeBatch_ShouldReportFailedWritesPerItem() {
+        // Arrange
+        Note existingNote = createSampleNote();
+        when(noteRepository.findActiveNotesByIds(eq(USER_ID), any()))
+            .thenReturn(List.of(existingNote));
+        BulkWriteError writeError = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(noteRepository.bulkWrite(eq(USER_ID), any(), any()))
+            .thenThrow(new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                List.of(writeError), null, new ServerAddress(), Set.of())));
+
+        // Act
+        List<NoteBatchResult> results = noteService.executeBatch(USER_ID, List.of(
+            new NoteBatchOperation(NoteBatchOperation.Type.CREATE, null, TITLE, CONTENT, PRIORITY),
+            new NoteBatchOperation(NoteBatchOperation.Type.DELETE, NOTE_ID, null, null, null)
+        ));
+
+        // Assert
+        assertEquals(NoteBatchResult.Status.CREATED, results.get(0).status());
+        assertEquals(NoteBatchResult.Status.FAILED, results.get(1).status());
+        assertEquals(NOTE_ID, results.get(1).id());
+        assertEquals("duplicate key", results.get(1).error());
+        verify(changeListener).onNoteChanged(isNull(), argThat(note -> TITLE.equals(note.getTitle())));
+        verify(changeListener, never()).onNoteChanged(any(), argThat(note -> NOTE_ID.equals(note.getId())));
+    }
+
+    @Test
+    void executeBatch_ShouldFailItemsWhoseNoteChangedAfterItWasRead() {
+        // Arrange
+        Note deletedMeanwhile = createSampleNote();
+        Note changedMeanwhile = createSampleNote();
+        changedMeanwhile.setId(UUID.randomUUID());
+        when(noteRepository.findActiveNotesByIds(eq(USER_ID), any()))
+            .thenReturn(List.of(deletedMeanwhile, changedMeanwhile));
+        when(noteRepository.bulkWrite(eq(USER_ID), any(), any()))
+            .thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+        Note deleted = deletedMeanwhile.copy();
+        deleted.setDeletedAt(OffsetDateTime.now().minusSeconds(1));
+        deleted.setChangedAt(deleted.getDeletedAt());
+        Note changed = changedMeanwhile.copy();
+        changed.setChangedAt(OffsetDateTime.now().minusSeconds(1));
+        when(noteRepository.findNotesByIds(USER_ID, List.of(NOTE_ID, changedMeanwhile.getId())))
+            .thenReturn(List.of(deleted, changed));
+
+        // Act
+        List<NoteBatchResult> results = noteService.executeBatch(USER_ID, List.of(
+            new NoteBatchOperation(NoteBatchOperation.Type.SET_PRIORITY, NOTE_ID, null, null, Note.Priority.DONE),
+            new NoteBatchOperation(NoteBatchOperation.Type.DELETE, changedMeanwhile.getId(), null, null, null)
+        ));
+
+        // Assert
+        assertEquals(List.of(NoteBatchResult.Status.NOT_FOUND, NoteBatchResult.Status.FAILED),
+            results.stream().map(NoteBatchResult::status).toList());
+        verify(userStatsService).apply(eq(USER_ID), argThat(UserStatsDelta::isEmpty));
+        verify(changeListener, never()).onNoteChanged(any(), any());
+    }
+
+    @Test
+    void searchNotes_ShouldBuildHighlightedSnippets() {
+        // Arrange
+        Note note = createSampleNote();
+        note.setContent("Remember to buy\nfresh milk and bread before the weekend");
+        when(noteRepository.searchActiveNotes(USER_ID, "milk -cheese", null, 20))
+            .thenReturn(List.of(new ScoredNote(note, 1.5)));
+
+        // Act
+        List<NoteSearchResult> results = noteService.searchNotes(USER_ID, "milk -cheese", null, null);
+
+        // Assert
+        assertEquals(1, results.size());
+        NoteSearchResult result = results.get(0);
+        assertSame(note, result.note());
+        assertEquals(1.5, result.score());
+        assertEquals("Remember to buy fresh milk and bread before the weekend", result.snippet());
+        assertEquals(List.of(new NoteSearchResult.Highlight(22, 4)), result.highlights());
+    }
+
+    @Test
+    void searchNotes_ShouldTrimLongContentAroundFirstMatch() {
+        // Arrange
+        Note note = createSampleNote();
+        note.setContent("word ".repeat(100) + "needle " + "word ".repeat(100));
+        when(noteRepository.searchActiveNotes(USER_ID, "needle", Note.Priority.NOW, 5))
+            .thenReturn(List.of(new ScoredNote(note, 1.0)));
+
+        // Act
+        NoteSearchResult result = noteService.searchNotes(USER_ID, "needle", Note.Priority.NOW, 5).get(0);
+
+        // Assert
+        assertTrue(result.snippet().startsWith("…"));
+        assertTrue(result.snippet().endsWith("…"));
+        assertTrue(result.snippet().length() <= 162);
+        NoteSearchResult.Highlight highlight = result.highlights().get(0);
+        assertEquals("needle", result.snippet().substring(highlight.start(), highlight.start() + highlight.length()));
+    }
+
+    @Test
+    void searchNotes_ShouldRejectQueryWithoutTerms() {
+        // Act & Assert
+        assertThrows(InvalidSearchQueryException.class,
+            () -> noteService.searchNotes(USER_ID, " -excluded \"\" ", null, null));
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void scrollNotes_ShouldReturnNextCursor_WhenMoreNotesExist() {
+        // Arrange
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            Note note = createSampleNote();
+            note.setId(UUID.randomUUID());
+            notes.add(note);
+        }
+        when(noteRepository.findActiveNotesAfter(USER_ID, null, null, null, 11)).thenReturn(notes);
+
+        // Act
+        NoteWindow window = noteService.scrollNotes(USER_ID, null, null, null, null);
+
+        // Assert
+        assertEquals(10, window.notes().size());
+        assertEquals(NoteCursor.of(notes.get(9)), window.nextCursor());
+    }
+
+    @Test
+    void scrollNotes_ShouldContinueAfterCursor_AndEndWithoutNextCursor() {
+        // Arrange
+        Note last = createSampleNote();
+        NoteCursor cursor = new NoteCursor(OffsetDateTime.parse("2025-01-01T10:00:00Z"), UUID.randomUUID());
+        when(noteRepository.findActiveNotesAfter(USER_ID, Note.Priority.NOW, null, cursor, 6)).thenReturn(List.of(last));
+
+        // Act
+        NoteWindow window = noteService.scrollNotes(USER_ID, cursor.encode(), 5, Note.Priority.NOW, null);
+
+        // Assert
+        assertEquals(List.of(last), window.notes());
+        assertNull(window.nextCursor());
+    }
+
+    @Test
+    void scrollNotes_ShouldThrowException_WhenCursorInvalid() {
+        // Act & Assert
+        assertThrows(InvalidCursorException.class,
+            () -> noteService.scrollNotes(USER_ID, "not-a-cursor", null, null, null));
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void getChanges_ShouldReturnCheckpointOfLastChange_WhenMoreChangesExist() {
+        // Arrange
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Note note = createSampleNote();
+            note.setId(UUID.randomUUID());
+            note.setChangedAt(OffsetDateTime.parse("2025-01-01T10:00:00Z").plusSeconds(i));
+            notes.add(note);
+        }
+        when(noteRepository.findChangedNotes(eq(USER_ID), isNull(), any(OffsetDateTime.class), eq(3))).thenReturn(notes);
+
+        // Act
+        NoteChanges changes = noteService.getChanges(USER_ID, null, 2);
+
+        // Assert
+        assertEquals(notes.subList(0, 2), changes.notes());
+        assertEquals(NoteCheckpoint.of(notes.get(1)), changes.checkpoint());
+        assertTrue(changes.hasMore());
+    }
+
+    @Test
+    void getChanges_ShouldOnlyReportSettledWrites_AndMoveCheckpointToThem() {
+        // Arrange
+        Note deleted = createSampleNote();
+        deleted.setDeletedAt(OffsetDateTime.now().minusMinutes(1));
+        NoteCheckpoint since = new NoteCheckpoint(OffsetDateTime.parse("2025-01-01T10:00:00Z"), UUID.randomUUID());
+        when(noteRepository.findChangedNotes(eq(USER_ID), eq(since), any(OffsetDateTime.class), eq(101)))
+            .thenReturn(List.of(deleted));
+        OffsetDateTime settledBefore = OffsetDateTime.now().minus(NoteService.CHANGES_SETTLE_TIME);
+
+        // Act
+        NoteChanges changes = noteService.getChanges(USER_ID, since.encode(), null);
+
+        // Assert
+        ArgumentCaptor<OffsetDateTime> until = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(noteRepository).findChangedNotes(eq(USER_ID), eq(since), until.capture(), eq(101));
+        assertFalse(until.getValue().isAfter(OffsetDateTime.now().minus(NoteService.CHANGES_SETTLE_TIME)));
+        assertFalse(until.getValue().isBefore(settledBefore.minusNanos(1_000_000)));
+        assertEquals(List.of(deleted), changes.notes());
+        assertEquals(new NoteCheckpoint(until.getValue(), null), changes.checkpoint());
+        assertFalse(changes.hasMore());
+    }
+
+    @Test
+    void getChanges_ShouldKeepCheckpoint_ThatIsAheadOfSettledWrites() {
+        // Arrange
+        NoteCheckpoint since = new NoteCheckpoint(
+            OffsetDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MILLIS), null);
+        when(noteRepository.findChangedNotes(eq(USER_ID), eq(since), any(OffsetDateTime.class), eq(101)))
+            .thenReturn(List.of());
+
+        // Act
+        NoteChanges changes = noteService.getChanges(USER_ID, since.encode(), null);
+
+        // Assert
+        assertTrue(changes.notes().isEmpty());
+        assertEquals(since, changes.checkpoint());
+    }
+
+    @Test
+    void getChanges_ShouldThrowException_WhenCheckpointInvalid() {
+        // Act & Assert
+        assertThrows(InvalidCursorException.class, () -> noteService.getChanges(USER_ID, "not-a-checkpoint", null));
+        verifyNoInteractions(noteRepository);
+    }
+
     @Test
     void countStaleNotes_ShouldReturnCount() {
         // Arrange
@@ -0,0 +1,87 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ydgrun.info.qnotes3.exception.PasswordHashingRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CountDownLatch started;
+    private CountDownLatch release;
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+        passwordHasher = new PasswordHasher(blockingEncoder, 1, 1, Duration.ofSeconds(3), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHasher.destroy();
+    }
+
+    @Test
+    void encodeAsync_ShouldQueueOneCall_AndRejectTheNext_WhenSaturated() throws Exception {
+        // Arrange
+        CompletableFuture<String> running = passwordHasher.encodeAsync("first");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = passwordHasher.matchesAsync("second", "hashed-second");
+
+        // Act
+        PasswordHashingRejectedException rejected = assertThrows(PasswordHashingRejectedException.class,
+            () -> passwordHasher.encode("third"));
+        double queueDepth = meterRegistry.get("executor.queued").tag("name", "password.hash").gauge().value();
+        release.countDown();
+
+        // Assert
+        assertEquals(Duration.ofSeconds(3), rejected.getRetryAfter());
+        assertEquals(1, queueDepth);
+        assertEquals("hashed-first", running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("password.hash.rejected").counter().count());
+        assertEquals(1, meterRegistry.get("password.hash.duration").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("password.hash.duration").tag("operation", "match").timer().count());
+    }
+
+    @Test
+    void matches_ShouldReturnResult_OfTheHashingThread() {
+        // Arrange
+        release.countDown();
+
+        // Act & Assert
+        assertTrue(passwordHasher.matches("secret", "hashed-secret"));
+        assertFalse(passwordHasher.matches("secret", "hashed-other"));
+    }
+}
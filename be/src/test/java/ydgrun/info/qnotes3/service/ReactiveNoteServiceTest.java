@@ -0,0 +1,214 @@
+package ydgrun.info.qnotes3.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteBatchOperation;
+import ydgrun.info.qnotes3.domain.NoteBatchResult;
+import ydgrun.info.qnotes3.domain.ScoredNote;
+import ydgrun.info.qnotes3.exception.NoteNotFoundException;
+import ydgrun.info.qnotes3.repository.ReactiveNoteRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveNoteServiceTest {
+
+    @Mock
+    private ReactiveNoteRepository noteRepository;
+
+    @Mock
+    private ReactiveUserStatsService userStatsService;
+
+    @Mock
+    private NoteChangeListener changeListener;
+
+    private ReactiveNoteService noteService;
+
+    private static final String USER_ID = "test-user";
+    private static final UUID NOTE_ID = UUID.randomUUID();
+    private static final String TITLE = "Test Title";
+    private static final String CONTENT = "Test Content";
+    private static final Note.Priority PRIORITY = Note.Priority.NOW;
+
+    @BeforeEach
+    void setUp() {
+        NoteReadCache readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new ReactiveNoteService(noteRepository, userStatsService, readCache,
+            List.of(changeListener, readCache), Optional.empty());
+    }
+
+    private Note createSampleNote() {
+        Note note = new Note();
+        note.setId(NOTE_ID);
+        note.setUserId(USER_ID);
+        note.setTitle(TITLE);
+        note.setContent(CONTENT);
+        note.setPriority(PRIORITY);
+        note.setCreatedAt(OffsetDateTime.now());
+        note.setUpdatedAt(OffsetDateTime.now());
+        return note;
+    }
+
+    @Test
+    void createNote_ShouldSaveNote_AndRecordChange() {
+        // Arrange
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(userStatsService.recordChange(isNull(), any(Note.class))).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(noteService.createNote(USER_ID, TITLE, CONTENT, PRIORITY))
+            .assertNext(note -> {
+                assertNotNull(note.getId());
+                assertEquals(USER_ID, note.getUserId());
+                assertEquals(TITLE, note.getTitle());
+            })
+            .verifyComplete();
+        verify(changeListener).onNoteChanged(isNull(), argThat(note -> TITLE.equals(note.getTitle())));
+    }
+
+    @Test
+    void updateNote_ShouldClearFieldsSentAsNull() {
+        // Arrange
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
+            .thenReturn(Mono.just(createSampleNote()));
+        when(userStatsService.recordChange(any(Note.class), any(Note.class))).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(noteService.updateNote(USER_ID, NOTE_ID, TITLE, null, Note.Priority.DONE))
+            .assertNext(note -> {
+                assertNull(note.getContent());
+                assertEquals(Note.Priority.DONE, note.getPriority());
+            })
+            .verifyComplete();
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID),
+            argThat(update -> update.modifies("content") && update.modifies("title")));
+    }
+
+    @Test
+    void patchNote_ShouldOnlySetProvidedFields() {
+        // Arrange
+        Note existingNote = createSampleNote();
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class)))
+            .thenReturn(Mono.just(existingNote));
+        when(userStatsService.recordChange(any(Note.class), any(Note.class))).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(noteService.patchNote(USER_ID, NOTE_ID, null, null, Note.Priority.DONE))
+            .assertNext(note -> {
+                assertEquals(TITLE, note.getTitle());
+                assertEquals(Note.Priority.DONE, note.getPriority());
+            })
+            .verifyComplete();
+        verify(noteRepository).modifyActiveNote(eq(USER_ID), eq(NOTE_ID),
+            argThat(update -> update.modifies("priority") && !update.modifies("title")));
+    }
+
+    @Test
+    void deleteNote_ShouldFail_WhenNoteNotFound() {
+        // Arrange
+        when(noteRepository.modifyActiveNote(eq(USER_ID), eq(NOTE_ID), any(Update.class))).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(noteService.deleteNote(USER_ID, NOTE_ID))
+            .expectError(NoteNotFoundException.class)
+            .verify();
+        verifyNoInteractions(userStatsService, changeListener);
+    }
+
+    @Test
+    void getNote_ShouldServeRepeatedReadsFromCache_AndFailWhenMissing() {
+        // Arrange
+        UUID missingId = UUID.randomUUID();
+        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID)).thenReturn(Mono.just(createSampleNote()));
+        when(noteRepository.findByUserIdAndIdAndNotDeleted(USER_ID, missingId)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(noteService.getNote(USER_ID, NOTE_ID)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(noteService.getNote(USER_ID, NOTE_ID)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(noteService.getNote(USER_ID, missingId)).expectError(NoteNotFoundException.class).verify();
+        verify(noteRepository, times(1)).findByUserIdAndIdAndNotDeleted(USER_ID, NOTE_ID);
+    }
+
+    @Test
+    void getNotes_ShouldCombineContentAndCount() {
+        // Arrange
+        when(userStatsService.getChangeCount(USER_ID)).thenReturn(Mono.just(0L));
+        when(noteRepository.findAllByUserIdAndPriorityAndNotDeleted(eq(USER_ID), eq(PRIORITY), any(PageRequest.class)))
+            .thenReturn(Flux.just(createSampleNote()));
+        when(noteRepository.countByUserIdAndPriorityAndNotDeleted(USER_ID, PRIORITY)).thenReturn(Mono.just(21L));
+
+        // Act & Assert
+        StepVerifier.create(noteService.getNotes(USER_ID, 0, PRIORITY, "ALL"))
+            .assertNext(page -> {
+                assertEquals(1, page.getContent().size());
+                assertEquals(21, page.getTotalElements());
+                assertEquals(3, page.getTotalPages());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void executeBatch_ShouldReportFailedWritesPerItem() {
+        // Arrange
+        when(noteRepository.findActiveNotesByIds(eq(USER_ID), any())).thenReturn(Flux.just(createSampleNote()));
+        BulkWriteError writeError = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(noteRepository.bulkWrite(eq(USER_ID), any(), any()))
+            .thenReturn(Mono.error(new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                List.of(writeError), null, new ServerAddress(), Set.of()))));
+        when(userStatsService.apply(eq(USER_ID), any(UserStatsDelta.class))).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(noteService.executeBatch(USER_ID, List.of(
+                new NoteBatchOperation(NoteBatchOperation.Type.CREATE, null, TITLE, CONTENT, PRIORITY),
+                new NoteBatchOperation(NoteBatchOperation.Type.DELETE, NOTE_ID, null, null, null))))
+            .assertNext(results -> assertEquals(List.of(NoteBatchResult.Status.CREATED, NoteBatchResult.Status.FAILED),
+                results.stream().map(NoteBatchResult::status).toList()))
+            .verifyComplete();
+        verify(changeListener).onNoteChanged(isNull(), argThat(note -> TITLE.equals(note.getTitle())));
+        verify(changeListener, never()).onNoteChanged(any(), argThat(note -> NOTE_ID.equals(note.getId())));
+    }
+
+    @Test
+    void searchNotes_ShouldUseTextSearch_WhenIndexIsDisabled() {
+        // Arrange
+        when(noteRepository.searchActiveNotes(USER_ID, "test", null, 20))
+            .thenReturn(Flux.just(new ScoredNote(createSampleNote(), 1.5)));
+
+        // Act & Assert
+        StepVerifier.create(noteService.searchNotes(USER_ID, "test", null, null))
+            .assertNext(results -> {
+                assertEquals(1, results.size());
+                assertEquals(1.5, results.get(0).score());
+            })
+            .verifyComplete();
+        StepVerifier.create(noteService.suggest(USER_ID, "te", null))
+            .expectNext(List.of())
+            .verifyComplete();
+    }
+}
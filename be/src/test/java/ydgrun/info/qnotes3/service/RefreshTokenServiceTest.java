@@ -0,0 +1,99 @@
+package ydgrun.info.qnotes3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import ydgrun.info.qnotes3.domain.RefreshToken;
+import ydgrun.info.qnotes3.exception.InvalidRefreshTokenException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final String USERNAME = "test-user";
+    private static final String FAMILY = "family";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(mongoTemplate, Duration.ofDays(30));
+    }
+
+    private static RefreshToken stored(String token, OffsetDateTime usedAt) {
+        RefreshToken refreshToken = RefreshTokenService.document(token, USERNAME, FAMILY, OffsetDateTime.now().plusDays(1));
+        refreshToken.setUsedAt(usedAt);
+        return refreshToken;
+    }
+
+    @Test
+    void issue_ShouldStoreOnlyTheHashOfTheToken() {
+        // Act
+        String token = refreshTokenService.issue(USERNAME);
+
+        // Assert
+        ArgumentCaptor<RefreshToken> inserted = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertNotEquals(token, inserted.getValue().getId());
+        assertEquals(RefreshTokenService.hash(token), inserted.getValue().getId());
+        assertEquals(USERNAME, inserted.getValue().getUsername());
+        assertTrue(inserted.getValue().getExpiresAt().isAfter(OffsetDateTime.now().plusDays(29)));
+    }
+
+    @Test
+    void rotate_ShouldMarkTheTokenUsed_AndIssueTheNextOfTheSameFamily() {
+        // Arrange
+        String token = RefreshTokenService.newToken();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(RefreshToken.class)))
+            .thenReturn(stored(token, null));
+
+        // Act
+        RefreshTokenService.Issued issued = refreshTokenService.rotate(token);
+
+        // Assert
+        ArgumentCaptor<RefreshToken> inserted = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertEquals(USERNAME, issued.username());
+        assertNotEquals(token, issued.token());
+        assertEquals(RefreshTokenService.hash(issued.token()), inserted.getValue().getId());
+        assertEquals(FAMILY, inserted.getValue().getFamily());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_ShouldRevokeTheFamily_WhenATokenIsReused() {
+        // Arrange
+        String token = RefreshTokenService.newToken();
+        when(mongoTemplate.findById(RefreshTokenService.hash(token), RefreshToken.class))
+            .thenReturn(stored(token, OffsetDateTime.now().minusMinutes(1)));
+
+        // Act & Assert
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(token));
+        verify(mongoTemplate).remove(RefreshTokenService.familyQuery(FAMILY), RefreshToken.class);
+        verify(mongoTemplate, never()).insert(any(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_ShouldReject_UnknownTokens() {
+        // Act & Assert
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(RefreshToken.class));
+        verify(mongoTemplate, never()).insert(any(RefreshToken.class));
+    }
+}
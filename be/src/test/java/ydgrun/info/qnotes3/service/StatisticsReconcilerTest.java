@@ -0,0 +1,52 @@
+package ydgrun.info.qnotes3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import ydgrun.info.qnotes3.domain.JobLock;
+import ydgrun.info.qnotes3.repository.AbstractMongoRepositoryTest;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsReconcilerTest extends AbstractMongoRepositoryTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), JobLock.class);
+    }
+
+    private StatisticsReconciler node(String nodeId) {
+        return new StatisticsReconciler(mongoTemplate, noteRepository, null, nodeId, Duration.ofHours(1));
+    }
+
+    @Test
+    void tryLock_ShouldLetOnlyOneInstanceRun_UntilTheLockExpires() {
+        // Arrange
+        OffsetDateTime now = OffsetDateTime.now();
+        StatisticsReconciler first = node("first");
+        StatisticsReconciler second = node("second");
+
+        // Act
+        boolean firstLocked = first.tryLock(now);
+        boolean secondLocked = second.tryLock(now.plusMinutes(5));
+        boolean secondLockedNextDay = second.tryLock(now.plusDays(1));
+
+        // Assert
+        assertTrue(firstLocked);
+        assertFalse(secondLocked);
+        assertTrue(secondLockedNextDay);
+        assertEquals("second", mongoTemplate.findById(StatisticsReconciler.JOB, JobLock.class).getLockedBy());
+    }
+}
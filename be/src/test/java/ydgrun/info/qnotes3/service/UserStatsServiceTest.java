@@ -0,0 +1,226 @@
+package ydgrun.info.qnotes3.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import ydgrun.info.qnotes3.domain.Note;
+import ydgrun.info.qnotes3.domain.NoteStatistics;
+import ydgrun.info.qnotes3.repository.AbstractMongoRepositoryTest;
+import ydgrun.info.qnotes3.repository.NoteRepository;
+import ydgrun.info.qnotes3.repository.UserStatsRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserStatsServiceTest extends AbstractMongoRepositoryTest {
+
+    private static final String USER_ID = "stats-user";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    private UserStatsService userStatsService;
+    private NoteService noteService;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        userStatsRepository.deleteAll();
+        userStatsService = new UserStatsService(mongoTemplate, userStatsRepository, noteRepository, new SimpleMeterRegistry());
+        NoteReadCache readCache = new NoteReadCache(100, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        noteService = new NoteService(noteRepository, userStatsService, readCache, List.of(readCache));
+    }
+
+    private Note saveBackdatedNote(Note.Priority priority, OffsetDateTime updatedAt) {
+        Note note = new Note();
+        note.setId(UUID.randomUUID());
+        note.setUserId(USER_ID);
+        note.setTitle("Old");
+        note.setContent("Old content");
+        note.setPriority(priority);
+        note.setCreatedAt(updatedAt.minusDays(1));
+        note.setUpdatedAt(updatedAt);
+        Note saved = noteRepository.save(note);
+        userStatsService.recordChange(null, saved);
+        return saved;
+    }
+
+    private void assertStatisticsEqual(NoteStatistics expected, NoteStatistics actual) {
+        assertEquals(expected.staleCount(), actual.staleCount());
+        assertEquals(expected.highPriorityCount(), actual.highPriorityCount());
+        assertEquals(expected.completedCount(), actual.completedCount());
+        assertEquals(expected.averageCompletionHours(), actual.averageCompletionHours(), 0.01);
+        assertEquals(expected.deletedCount(), actual.deletedCount());
+        assertEquals(expected.averageDeletionHours(), actual.averageDeletionHours(), 0.01);
+    }
+
+    @Test
+    void getStatistics_ShouldMatchAggregation_AfterIncrementalWrites() {
+        // Arrange
+        userStatsService.rebuild(USER_ID);
+        OffsetDateTime now = OffsetDateTime.now();
+        saveBackdatedNote(Note.Priority.LATER, now.minusDays(5));
+        saveBackdatedNote(Note.Priority.NOW, now.minusDays(2).minusMinutes(5));
+        saveBackdatedNote(Note.Priority.SOMEDAY, now.minusDays(2).plusMinutes(5));
+        Note staleDone = saveBackdatedNote(Note.Priority.DONE, now.minusDays(4));
+
+        Note first = noteService.createNote(USER_ID, "First", "Content", Note.Priority.NOW);
+        Note second = noteService.createNote(USER_ID, "Second", "Content", Note.Priority.LATER);
+        noteService.createNote(USER_ID, "Third", "Content", Note.Priority.SOMEDAY);
+
+        // Act
+        noteService.updateNote(USER_ID, first.getId(), "First", "Content", Note.Priority.DONE);
+        noteService.updateNote(USER_ID, second.getId(), "Second", "Changed", Note.Priority.NOW);
+        noteService.deleteNote(USER_ID, staleDone.getId());
+        noteService.deleteNote(USER_ID, first.getId());
+
+        // Assert
+        NoteStatistics incremental = userStatsService.getStatistics(USER_ID);
+        assertStatisticsEqual(noteService.getStatistics(USER_ID), incremental);
+        assertEquals(2, incremental.staleCount());
+        assertEquals(2, incremental.highPriorityCount());
+        assertEquals(2, incremental.deletedCount());
+    }
+
+    @Test
+    void getStatistics_ShouldRebuildFromNotes_WhenDocumentMissing() {
+        // Arrange
+        OffsetDateTime now = OffsetDateTime.now();
+        saveBackdatedNote(Note.Priority.NOW, now.minusDays(3));
+        saveBackdatedNote(Note.Priority.DONE, now.minusHours(3));
+        userStatsRepository.deleteAll();
+
+        // Act
+        NoteStatistics statistics = userStatsService.getStatistics(USER_ID);
+
+        // Assert
+        assertStatisticsEqual(noteService.getStatistics(USER_ID), statistics);
+        assertTrue(userStatsRepository.findById(USER_ID).orElseThrow().getRebuiltAt() != null);
+    }
+
+    @Test
+    void rebuild_ShouldReplaceDriftedCounters() {
+        // Arrange
+        noteService.createNote(USER_ID, "Note", "Content", Note.Priority.NOW);
+        userStatsService.rebuild(USER_ID);
+        Note phantom = new Note();
+        phantom.setUserId(USER_ID);
+        phantom.setPriority(Note.Priority.NOW);
+        phantom.setCreatedAt(OffsetDateTime.now());
+        phantom.setUpdatedAt(OffsetDateTime.now());
+        userStatsService.recordChange(null, phantom);
+
+        // Act
+        userStatsService.rebuild(USER_ID);
+
+        // Assert
+        assertEquals(1, userStatsService.getStatistics(USER_ID).highPriorityCount());
+    }
+
+    @Test
+    void recordChange_ShouldRemoveDayBucketsThatReachZero() {
+        // Arrange
+        OffsetDateTime now = OffsetDateTime.now();
+        Note alone = saveBackdatedNote(Note.Priority.LATER, now.minusDays(5));
+        Note shared = saveBackdatedNote(Note.Priority.LATER, now.minusDays(3));
+        saveBackdatedNote(Note.Priority.SOMEDAY, now.minusDays(3));
+
+        // Act
+        noteService.updateNote(USER_ID, alone.getId(), "Moved", "Content", Note.Priority.LATER);
+        noteService.updateNote(USER_ID, shared.getId(), "Moved", "Content", Note.Priority.LATER);
+
+        // Assert
+        var openByUpdatedDay = userStatsRepository.findById(USER_ID).orElseThrow().getOpenByUpdatedDay();
+        assertFalse(openByUpdatedDay.containsKey(UserStatsDelta.dayOf(alone.getUpdatedAt())));
+        assertEquals(1L, openByUpdatedDay.get(UserStatsDelta.dayOf(shared.getUpdatedAt())));
+        assertEquals(2L, openByUpdatedDay.get(UserStatsDelta.dayOf(OffsetDateTime.now())));
+    }
+
+    @Test
+    void getStatistics_ShouldKeepIncrementsOfAConcurrentRebuild() {
+        // Arrange
+        noteService.createNote(USER_ID, "Note", "Content", Note.Priority.NOW);
+        userStatsRepository.deleteAll();
+        NoteRepository racingRepository = mock(NoteRepository.class);
+        when(racingRepository.aggregateStatistics(eq(USER_ID), any())).thenAnswer(invocation -> {
+            NoteStatistics totals = noteRepository.aggregateStatistics(USER_ID, invocation.getArgument(1));
+            // Another request rebuilds first, then a write is applied to its document
+            userStatsService.rebuild(USER_ID);
+            noteService.createNote(USER_ID, "Concurrent", "Content", Note.Priority.NOW);
+            return totals;
+        });
+        when(racingRepository.countOpenNotesByUpdatedDay(USER_ID))
+            .thenAnswer(invocation -> noteRepository.countOpenNotesByUpdatedDay(USER_ID));
+        UserStatsService racingService = new UserStatsService(
+            mongoTemplate, userStatsRepository, racingRepository, new SimpleMeterRegistry());
+
+        // Act
+        NoteStatistics statistics = racingService.getStatistics(USER_ID);
+
+        // Assert
+        assertEquals(2, statistics.highPriorityCount());
+        assertEquals(2, userStatsService.getStatistics(USER_ID).highPriorityCount());
+    }
+
+    @Test
+    void getStatisticsVersion_ShouldChangeWithEveryWrite_AndKeepTheChangeCountAcrossRebuilds() {
+        // Arrange
+        Note note = noteService.createNote(USER_ID, "Note", "Content", Note.Priority.NOW);
+        String beforeBuild = userStatsService.getStatisticsVersion(USER_ID);
+        userStatsService.getStatistics(USER_ID);
+        String built = userStatsService.getStatisticsVersion(USER_ID);
+
+        // Act
+        noteService.updateNote(USER_ID, note.getId(), "Renamed", "Content", Note.Priority.NOW);
+        String afterRename = userStatsService.getStatisticsVersion(USER_ID);
+        userStatsService.rebuild(USER_ID);
+
+        // Assert
+        assertNull(beforeBuild);
+        assertNotNull(built);
+        assertNotEquals(built, afterRename);
+        assertNotEquals(afterRename, userStatsService.getStatisticsVersion(USER_ID));
+        assertEquals(2, userStatsService.getChangeCount(USER_ID));
+    }
+
+    @Test
+    void rebuild_ShouldBeSkipped_WhenAWriteIsAppliedWhileItRuns() {
+        // Arrange
+        noteService.createNote(USER_ID, "Note", "Content", Note.Priority.NOW);
+        userStatsService.getStatistics(USER_ID);
+        NoteRepository racingRepository = mock(NoteRepository.class);
+        when(racingRepository.aggregateStatistics(eq(USER_ID), any())).thenAnswer(invocation -> {
+            NoteStatistics totals = noteRepository.aggregateStatistics(USER_ID, invocation.getArgument(1));
+            // Counted by the document but not by the totals being rebuilt
+            noteService.createNote(USER_ID, "Concurrent", "Content", Note.Priority.NOW);
+            return totals;
+        });
+        when(racingRepository.countOpenNotesByUpdatedDay(USER_ID))
+            .thenAnswer(invocation -> noteRepository.countOpenNotesByUpdatedDay(USER_ID));
+        UserStatsService racingService = new UserStatsService(
+            mongoTemplate, userStatsRepository, racingRepository, new SimpleMeterRegistry());
+
+        // Act
+        racingService.rebuild(USER_ID);
+
+        // Assert
+        assertEquals(2, userStatsService.getStatistics(USER_ID).highPriorityCount());
+        assertEquals(2, userStatsService.getChangeCount(USER_ID));
+    }
+}
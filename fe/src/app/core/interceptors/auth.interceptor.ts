@@ -1,18 +1,39 @@
-import { HttpInterceptorFn } from '@angular/common/http';
+import { HttpErrorResponse, HttpInterceptorFn, HttpRequest } from '@angular/common/http';
 import { inject } from '@angular/core';
+import { catchError, switchMap, throwError } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
+const withToken = (req: HttpRequest<unknown>, token: string | null) => token
+    ? req.clone({
+        setHeaders: {
+            Authorization: `Bearer ${token}`
+        }
+    })
+    : req;
+
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
     const authService = inject(AuthService);
-    const token = authService.getToken();
-    
-    if (token) {
-        req = req.clone({
-            setHeaders: {
-                Authorization: `Bearer ${token}`
-            }
-        });
+
+    if (authService.isAuthUrl(req.url)) {
+        return next(req);
     }
-    
-    return next(req);
-};
\ No newline at end of file
+
+    // An expired access token is rejected as 401 or 403; exchange the refresh token and retry once
+    const sentToken = authService.getToken();
+    return next(withToken(req, sentToken)).pipe(
+        catchError((error: HttpErrorResponse) => {
+            if ((error.status !== 401 && error.status !== 403) || !authService.getRefreshToken()) {
+                return throwError(() => error);
+            }
+            // Another request has refreshed the tokens since this one was sent
+            const currentToken = authService.getToken();
+            if (currentToken && currentToken !== sentToken) {
+                return next(withToken(req, currentToken));
+            }
+            return authService.refresh().pipe(
+                switchMap(response => next(withToken(req, response.token))),
+                catchError(() => throwError(() => error))
+            );
+        })
+    );
+};
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, finalize, shareReplay, tap } from 'rxjs';
 import { AuthResponse, LoginRequest, RegisterRequest } from '../../shared/models/api.models';
 
 @Injectable({
@@ -8,6 +8,8 @@ import { AuthResponse, LoginRequest, RegisterRequest } from '../../shared/models
 })
 export class AuthService {
     private apiUrl = 'http://localhost:8080/api/auth';
+    // Refresh tokens are single-use: requests rejected at the same time share one exchange
+    private refreshInFlight: Observable<AuthResponse> | null = null;
 
     constructor(private http: HttpClient) {}
 
@@ -19,15 +21,46 @@ export class AuthService {
         return this.http.post<AuthResponse>(`${this.apiUrl}/register`, request);
     }
 
+    refresh(): Observable<AuthResponse> {
+        if (!this.refreshInFlight) {
+            this.refreshInFlight = this.http
+                .post<AuthResponse>(`${this.apiUrl}/refresh`, { refreshToken: this.getRefreshToken() })
+                .pipe(
+                    tap(response => this.storeTokens(response)),
+                    finalize(() => this.refreshInFlight = null),
+                    shareReplay(1)
+                );
+        }
+        return this.refreshInFlight;
+    }
+
     logout(): void {
+        const refreshToken = this.getRefreshToken();
+        if (refreshToken) {
+            this.http.post<void>(`${this.apiUrl}/logout`, { refreshToken }).subscribe({ error: () => {} });
+        }
         localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
+    }
+
+    storeTokens(response: AuthResponse): void {
+        localStorage.setItem('token', response.token);
+        localStorage.setItem('refreshToken', response.refreshToken);
     }
 
     getToken(): string | null {
         return localStorage.getItem('token');
     }
 
+    getRefreshToken(): string | null {
+        return localStorage.getItem('refreshToken');
+    }
+
     isAuthenticated(): boolean {
         return !!this.getToken();
     }
-}
\ No newline at end of file
+
+    isAuthUrl(url: string): boolean {
+        return url.startsWith(this.apiUrl);
+    }
+}
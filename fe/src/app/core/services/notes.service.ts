@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Note, NoteRequest, NotesResponse } from '../../shared/models/api.models';
+import { Note, NoteBatchOperation, NoteBatchResponse, NoteChangesResponse, NotePatchRequest, NotePriority, NoteRequest, NoteSearchResponse, NoteSuggestResponse, NotesResponse, NotesScrollResponse } from '../../shared/models/api.models';
 
 @Injectable({
     providedIn: 'root'
@@ -16,6 +16,40 @@ export class NotesService {
         return this.http.get<NotesResponse>(this.apiUrl, { params });
     }
 
+    scrollNotes(after?: string | null, limit: number = 10): Observable<NotesScrollResponse> {
+        let params = new HttpParams().set('limit', limit.toString());
+        if (after) {
+            params = params.set('after', after);
+        }
+        return this.http.get<NotesScrollResponse>(`${this.apiUrl}/scroll`, { params });
+    }
+
+    getNoteChanges(since?: string | null, limit: number = 100): Observable<NoteChangesResponse> {
+        let params = new HttpParams().set('limit', limit.toString());
+        if (since) {
+            params = params.set('since', since);
+        }
+        return this.http.get<NoteChangesResponse>(`${this.apiUrl}/changes`, { params });
+    }
+
+    searchNotes(q: string, priority?: NotePriority | null, limit: number = 20): Observable<NoteSearchResponse> {
+        let params = new HttpParams().set('q', q).set('limit', limit.toString());
+        if (priority) {
+            params = params.set('priority', priority);
+        }
+        return this.http.get<NoteSearchResponse>(`${this.apiUrl}/search`, { params });
+    }
+
+    suggestNoteTerms(prefix: string, limit: number = 10): Observable<NoteSuggestResponse> {
+        const params = new HttpParams().set('prefix', prefix).set('limit', limit.toString());
+        return this.http.get<NoteSuggestResponse>(`${this.apiUrl}/suggest`, { params });
+    }
+
+    exportNotes(includeDeleted: boolean = false): Observable<Blob> {
+        const params = new HttpParams().set('includeDeleted', includeDeleted.toString());
+        return this.http.get(`${this.apiUrl}/export`, { params, responseType: 'blob' });
+    }
+
     getNote(id: string): Observable<Note> {
         return this.http.get<Note>(`${this.apiUrl}/${id}`);
     }
@@ -28,6 +62,14 @@ export class NotesService {
         return this.http.put<Note>(`${this.apiUrl}/${id}`, note);
     }
 
+    patchNote(id: string, changes: NotePatchRequest): Observable<Note> {
+        return this.http.patch<Note>(`${this.apiUrl}/${id}`, changes);
+    }
+
+    batchNotes(operations: NoteBatchOperation[]): Observable<NoteBatchResponse> {
+        return this.http.post<NoteBatchResponse>(`${this.apiUrl}:batch`, { operations });
+    }
+
     deleteNote(id: string): Observable<void> {
         return this.http.delete<void>(`${this.apiUrl}/${id}`);
     }
@@ -130,7 +130,7 @@ export class LoginComponent {
         if (this.loginForm.valid) {
             this.authService.login(this.loginForm.value).subscribe({
                 next: (response) => {
-                    localStorage.setItem('token', response.token);
+                    this.authService.storeTokens(response);
                     this.router.navigate(['/notes']);
                 },
                 error: () => {
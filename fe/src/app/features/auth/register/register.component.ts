@@ -133,7 +133,7 @@ export class RegisterComponent {
         if (this.registerForm.valid) {
             this.authService.register(this.registerForm.value).subscribe({
                 next: (response) => {
-                    localStorage.setItem('token', response.token);
+                    this.authService.storeTokens(response);
                     this.router.navigate(['/notes']);
                 },
                 error: () => {
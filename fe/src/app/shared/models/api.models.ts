@@ -10,6 +10,11 @@ export interface RegisterRequest {
 
 export interface AuthResponse {
     token: string;
+    refreshToken: string;
+}
+
+export interface RefreshRequest {
+    refreshToken: string;
 }
 
 export enum NotePriority {
@@ -35,12 +40,70 @@ export interface NoteRequest {
     priority: NotePriority;
 }
 
+export type NotePatchRequest = Partial<NoteRequest>;
+
+export interface NoteSearchHighlight {
+    start: number;
+    length: number;
+}
+
+export interface NoteSearchResult {
+    note: Note;
+    score: number;
+    snippet: string;
+    highlights: NoteSearchHighlight[];
+}
+
+export interface NoteSearchResponse {
+    results: NoteSearchResult[];
+}
+
+export interface NoteSuggestResponse {
+    suggestions: string[];
+}
+
+export interface NoteBatchOperation {
+    type: 'CREATE' | 'UPDATE' | 'SET_PRIORITY' | 'DELETE';
+    id?: string;
+    title?: string;
+    content?: string;
+    priority?: NotePriority;
+}
+
+export interface NoteBatchResult {
+    index: number;
+    status: 'CREATED' | 'UPDATED' | 'DELETED' | 'NOT_FOUND' | 'INVALID' | 'FAILED';
+    id?: string;
+    error?: string;
+}
+
+export interface NoteBatchResponse {
+    results: NoteBatchResult[];
+}
+
 export interface NotesResponse {
     notes: Note[];
     totalPages: number;
     currentPage: number;
 }
 
+export interface NotesScrollResponse {
+    notes: Note[];
+    nextCursor?: string | null;
+}
+
+export interface NoteTombstone {
+    id: string;
+    deletedAt: string;
+}
+
+export interface NoteChangesResponse {
+    notes: Note[];
+    deleted: NoteTombstone[];
+    checkpoint: string;
+    hasMore: boolean;
+}
+
 export interface Statistics {
     staleNotesCount: number;
     highPriorityNotesCount: number;